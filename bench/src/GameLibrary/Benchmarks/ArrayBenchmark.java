@@ -0,0 +1,108 @@
+package GameLibrary.Benchmarks;
+
+import GameLibrary.Serialisation.SerialReader;
+import GameLibrary.Serialisation.SerialWriter;
+import java.util.BitSet;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <p>
+ * Measures round tripping primitive Arrays, boolean[]s and BitSets from 16
+ * to 1M elements. The Arrays are written in bulk through view buffers and
+ * booleans are packed 64 at a time.</p>
+ *
+ * @author Dynisious
+ * @version 0.0.1
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArrayBenchmark {
+
+    @Param({"16", "1024", "65536", "1048576"})
+    public int length;
+
+    private int[] ints;
+    private double[] doubles;
+    private byte[] bytes;
+    private boolean[] bools;
+    private BitSet bits;
+    private SerialWriter writer;
+    private SerialReader reader;
+
+    @Setup
+    public void setup() {
+        ints = new int[length];
+        doubles = new double[length];
+        bytes = new byte[length];
+        bools = new boolean[length];
+        bits = new BitSet(length);
+        for (int i = 0; i < length; i++) {
+            ints[i] = i * 31;
+            doubles[i] = i / 3.0;
+            bytes[i] = (byte) i;
+            bools[i] = i % 3 == 0;
+            bits.set(i, bools[i]);
+        }
+        writer = new SerialWriter(length * Double.BYTES + 16);
+        reader = new SerialReader(writer.buffer().array(), 0);
+    }
+
+    private void flip() {
+        reader.reset(writer.buffer().array(), 0);
+    }
+
+    @Benchmark
+    public Object intArray() throws Exception {
+        writer.reset();
+        writer.writeArray(int[].class, ints);
+        flip();
+        return reader.readArray(int[].class);
+    }
+
+    @Benchmark
+    public Object doubleArray() throws Exception {
+        writer.reset();
+        writer.writeArray(double[].class, doubles);
+        flip();
+        return reader.readArray(double[].class);
+    }
+
+    @Benchmark
+    public Object byteArray() throws Exception {
+        writer.reset();
+        writer.writeArray(byte[].class, bytes);
+        flip();
+        return reader.readArray(byte[].class);
+    }
+
+    @Benchmark
+    public Object booleanArray() {
+        writer.reset();
+        writer.writeBooleans(bools, 0, bools.length);
+        flip();
+        return reader.readBooleans();
+    }
+
+    @Benchmark
+    public Object bitSet() {
+        writer.reset();
+        writer.writeBitSet(bits);
+        flip();
+        return reader.readBitSet();
+    }
+}
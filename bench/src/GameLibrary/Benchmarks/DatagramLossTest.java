@@ -0,0 +1,112 @@
+package GameLibrary.Benchmarks;
+
+import GameLibrary.Networking.DatagramClient;
+import GameLibrary.Networking.DatagramHandler;
+import GameLibrary.Networking.DatagramRelay;
+import GameLibrary.Serialisation.SerialReader;
+import GameLibrary.Serialisation.SerialWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * Sends a serialised state update every tick and a reliable event every
+ * tenth tick between two DatagramClients through a DatagramRelay which
+ * loses, delays and reorders packets, then checks what arrived: state
+ * updates must only ever move forward and every event must arrive once, in
+ * order.</p>
+ * <p>
+ * Run with 'ant datagram-test', passing
+ * '-Ddatagram.args="ticks loss latency jitter"', with the latency and
+ * jitter in milliseconds; 2000 0.2 50 20 by default. A tick lasts a
+ * millisecond.</p>
+ *
+ * @author Dynisious
+ * @version 0.0.1
+ */
+public final class DatagramLossTest {
+
+    private DatagramLossTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int ticks = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        double loss = args.length > 1 ? Double.parseDouble(args[1]) : 0.2;
+        long latency = args.length > 2 ? Long.parseLong(args[2]) : 50;
+        long jitter = args.length > 3 ? Long.parseLong(args[3]) : 20;
+        int events = (ticks + 9) / 10;
+
+        InetSocketAddress loopback = new InetSocketAddress(InetAddress.
+                getLoopbackAddress(), 0);
+        DatagramClient server = new DatagramClient(loopback);
+        DatagramRelay relay = new DatagramRelay(server.getLocalAddress(), 1);
+        relay.setLoss(loss);
+        relay.setLatency(latency, TimeUnit.MILLISECONDS);
+        relay.setJitter(jitter, TimeUnit.MILLISECONDS);
+        DatagramClient client = new DatagramClient(loopback);
+        client.connect(relay.getLocalAddress());
+        server.connect(relay.getLocalAddress());
+
+        long[] state = {-1, 0, 0}; //The newest update, the updates received and the errors.
+        int[] event = {0}; //The next event expected.
+        DatagramHandler check = (c, message, reliable) -> {
+            int val = new SerialReader(message).readInt();
+            if (reliable) {
+                if (val != event[0]++) {
+                    state[2]++;
+                }
+            } else {
+                if (val <= state[0]) {
+                    state[2]++;
+                }
+                state[0] = val;
+                state[1]++;
+            }
+        };
+        DatagramHandler ignore = (c, message, reliable) -> {
+        };
+
+        SerialWriter writer = new SerialWriter();
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.SECONDS.toNanos(30);
+        for (int tick = 0; (tick < ticks || event[0] < events)
+                && System.nanoTime() < deadline; tick++) {
+            if (tick < ticks) {
+                if (tick % 10 == 0) {
+                    writer.reset();
+                    writer.writeInt(tick / 10);
+                    client.sendReliable(writer);
+                }
+                writer.reset();
+                writer.writeInt(tick);
+                client.send(writer);
+            }
+            client.update();
+            client.receive(ignore);
+            server.receive(check);
+            server.update();
+            Thread.sleep(1);
+        }
+        long finished = System.nanoTime();
+
+        System.out.printf(
+                "%d ticks at %.0f%% loss, %d ms latency and %d ms jitter in %d ms.%n",
+                ticks, loss * 100, latency, jitter, TimeUnit.NANOSECONDS.
+                toMillis(finished - start));
+        System.out.printf(
+                "%d of %d updates received, %d stale dropped; %d of %d events received; %d errors.%n",
+                state[1], ticks, server.getStaleDropped(), event[0], events,
+                state[2]);
+        System.out.printf("Relay forwarded %d and lost %d, round trip %d ms.%n",
+                relay.getForwarded(), relay.getLost(), client.
+                getRoundTripTime(TimeUnit.MILLISECONDS));
+
+        relay.close();
+        client.close();
+        server.close();
+        if (event[0] != events || state[2] != 0) {
+            System.exit(1);
+        }
+    }
+}
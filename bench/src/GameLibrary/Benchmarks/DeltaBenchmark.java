@@ -0,0 +1,107 @@
+package GameLibrary.Benchmarks;
+
+import GameLibrary.Serialisation.SerialReader;
+import GameLibrary.Serialisation.SerialWriter;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <p>
+ * Compares sending an entity as a delta against it's last state with
+ * sending it in full when 'changed' of it's fields have changed. The bytes
+ * written are reported as the secondary result 'bytes'.</p>
+ *
+ * @author Dynisious
+ * @version 0.0.1
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeltaBenchmark {
+
+    @Param({"1", "3", "7"})
+    public int changed;
+
+    private Model.Entity base;
+    private Model.Entity current;
+    private Model.Entity into;
+    private SerialWriter writer;
+    private SerialReader reader;
+
+    /**
+     * <p>
+     * The bytes written per operation.</p>
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Bytes {
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void clear() {
+            bytes = 0;
+        }
+    }
+
+    @Setup
+    public void setup() {
+        base = new Model.Entity(42);
+        current = new Model.Entity(42);
+        into = new Model.Entity(42);
+        current.inventory = base.inventory.clone(); //The delta compares the Arrays, they must not be shared.
+        if (changed > 0) {
+            current.x += 1;
+        }
+        if (changed > 1) {
+            current.y += 1;
+        }
+        if (changed > 2) {
+            current.health -= 5;
+        }
+        if (changed > 3) {
+            current.alive = !current.alive;
+        }
+        if (changed > 4) {
+            current.id++;
+        }
+        if (changed > 5) {
+            current.name = "renamed";
+        }
+        if (changed > 6) {
+            current.inventory[0]++;
+        }
+        writer = new SerialWriter();
+        reader = new SerialReader(writer.buffer().array(), 0);
+    }
+
+    @Benchmark
+    public Object delta(Bytes b) throws Exception {
+        writer.reset();
+        b.bytes += writer.writeDelta(Model.Entity.class, base, current);
+        reader.reset(writer.buffer().array(), 0);
+        return reader.readDelta(Model.Entity.class, into);
+    }
+
+    @Benchmark
+    public Object full(Bytes b) throws Exception {
+        writer.reset();
+        b.bytes += writer.writeObject(Model.Entity.class, current);
+        reader.reset(writer.buffer().array(), 0);
+        return reader.readObject(Model.Entity.class, into);
+    }
+}
@@ -0,0 +1,70 @@
+package GameLibrary.Benchmarks;
+
+import GameLibrary.Serialisation.AccessMode;
+import GameLibrary.Serialisation.SerialReader;
+import GameLibrary.Serialisation.SerialWriter;
+import GameLibrary.Serialisation.Serialiser;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <p>
+ * Compares the AccessModes on flat Objects of 5, 20 and 100 fields.</p>
+ *
+ * @author Dynisious
+ * @version 0.0.1
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FieldAccessBenchmark {
+
+    @Param({"REFLECTION", "METHOD_HANDLE", "GENERATED"})
+    public AccessMode mode;
+    @Param({"5", "20", "100"})
+    public int fields;
+
+    private Class cls;
+    private Object obj;
+    private Object into;
+    private SerialWriter writer;
+    private SerialReader reader;
+
+    @Setup
+    public void setup() throws Exception {
+        Serialiser.setAccessMode(mode);
+        cls = fields == 5 ? Model.Fields5.class : fields == 20 ? Model.Fields20.class
+                : Model.Fields100.class;
+        obj = cls.newInstance();
+        into = cls.newInstance();
+        writer = new SerialWriter();
+        reader = new SerialReader(writer.buffer().array(), 0);
+    }
+
+    @Benchmark
+    public int write() throws Exception {
+        writer.reset();
+        return writer.writeObject(cls, obj);
+    }
+
+    @Benchmark
+    public Object roundTrip() throws Exception {
+        writer.reset();
+        writer.writeObject(cls, obj);
+        reader.reset(writer.buffer().array(), 0);
+        return reader.readObject(cls, into);
+    }
+}
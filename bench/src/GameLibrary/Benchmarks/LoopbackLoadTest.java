@@ -0,0 +1,118 @@
+package GameLibrary.Benchmarks;
+
+import GameLibrary.Networking.ChannelClient;
+import GameLibrary.Networking.MessageHandler;
+import GameLibrary.Networking.NetworkLoop;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ * Opens thousands of ChannelClients to an echo server over loopback and
+ * sends messages on all of them at once, checking every reply. The server
+ * accepts on one NetworkLoop and spreads the connections across a worker
+ * NetworkLoop per core; the clients share another set of NetworkLoops.</p>
+ * <p>
+ * Run with 'ant load-test', passing
+ * '-Dload.args="connections messages size"', 5000 10 64 by default. Each
+ * end holds a file descriptor per connection, so the process needs a file
+ * limit of more than twice the connections.</p>
+ *
+ * @author Dynisious
+ * @version 0.0.1
+ */
+public final class LoopbackLoadTest {
+
+    private LoopbackLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int connections = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        int messages = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int size = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        NetworkLoop acceptor = new NetworkLoop();
+        NetworkLoop[] workers = loops(cores);
+        NetworkLoop[] clients = loops(cores);
+        AtomicInteger accepted = new AtomicInteger();
+        ServerSocketChannel server = acceptor.listen(new InetSocketAddress(
+                InetAddress.getLoopbackAddress(), 0), connections,
+                new MessageHandler() {
+            @Override
+            public void received(ChannelClient client, int header,
+                    ByteBuffer message) {
+                try {
+                    client.send(header, message); //Echo the message.
+                } catch (IOException ex) {
+                    client.close();
+                }
+            }
+
+            @Override
+            public void connected(ChannelClient client) {
+                accepted.incrementAndGet();
+            }
+        }, workers);
+
+        CountDownLatch replies = new CountDownLatch(connections * messages);
+        AtomicInteger errors = new AtomicInteger();
+        MessageHandler check = (client, header, message) -> {
+            if (message.remaining() != size || message.get(0) != (byte) header) {
+                errors.incrementAndGet();
+            }
+            replies.countDown();
+        };
+        long start = System.nanoTime();
+        ChannelClient[] opened = new ChannelClient[connections];
+        for (int i = 0; i < connections; i++) {
+            opened[i] = clients[i % clients.length].connect(server.
+                    getLocalAddress(), check);
+        }
+        long connected = System.nanoTime();
+        System.out.printf("Connected %d clients in %d ms.%n", connections,
+                TimeUnit.NANOSECONDS.toMillis(connected - start));
+
+        byte[] message = new byte[size];
+        for (int m = 0; m < messages; m++) {
+            for (int i = 0; i < connections; i++) {
+                message[0] = (byte) m;
+                opened[i].send(m, ByteBuffer.wrap(message));
+            }
+        }
+        boolean done = replies.await(60, TimeUnit.SECONDS);
+        long finished = System.nanoTime();
+        long roundTrips = (long) connections * messages - replies.getCount();
+        System.out.printf(
+                "%d round trips in %d ms, %.0f per second; %d accepted, %d bad replies.%n",
+                roundTrips, TimeUnit.NANOSECONDS.toMillis(finished - connected),
+                roundTrips * 1e9 / (finished - connected), accepted.get(),
+                errors.get());
+
+        server.close();
+        for (NetworkLoop l : clients) {
+            l.close();
+        }
+        for (NetworkLoop l : workers) {
+            l.close();
+        }
+        acceptor.close();
+        if (!done || errors.get() != 0 || accepted.get() != connections) {
+            System.exit(1);
+        }
+    }
+
+    private static NetworkLoop[] loops(int count) throws IOException {
+        NetworkLoop[] loops = new NetworkLoop[count];
+        for (int i = 0; i < count; i++) {
+            loops[i] = new NetworkLoop();
+        }
+        return loops;
+    }
+}
@@ -0,0 +1,99 @@
+package GameLibrary.Benchmarks;
+
+/**
+ * <p>
+ * The Objects serialised by the benchmarks: a small game state message and
+ * flat Objects of 5, 20 and 100 fields.</p>
+ *
+ * @author Dynisious
+ * @version 0.0.1
+ */
+public final class Model {
+
+    private Model() {
+    }
+
+    /**
+     * <p>
+     * A single entity in a game state message.</p>
+     */
+    public static class Entity {
+        public int id;
+        public double x, y;
+        public float health;
+        public boolean alive;
+        public String name;
+        public int[] inventory;
+
+        public Entity() {
+        }
+
+        public Entity(int nId) {
+            id = nId;
+            x = nId * 1.5;
+            y = nId * -0.25;
+            health = 100 - nId % 100;
+            alive = nId % 7 != 0;
+            name = "entity-" + nId;
+            inventory = new int[]{nId, nId + 1, nId + 2, nId + 3};
+        }
+    }
+
+    /**
+     * <p>
+     * A game state message holding 'count' entities.</p>
+     */
+    public static class World {
+        public long tick;
+        public String map;
+        public Entity[] entities;
+
+        public World() {
+        }
+
+        public World(int count) {
+            tick = 123456789L;
+            map = "arena";
+            entities = new Entity[count];
+            for (int i = 0; i < count; i++) {
+                entities[i] = new Entity(i);
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * An Object with 5 fields.</p>
+     */
+    public static class Fields5 {
+        public int f0, f1, f2, f3, f4;
+    }
+
+    /**
+     * <p>
+     * An Object with 20 fields.</p>
+     */
+    public static class Fields20 {
+        public int f0, f1, f2, f3, f4, f5, f6, f7, f8, f9;
+        public long f10, f11, f12, f13, f14;
+        public double f15, f16, f17, f18, f19;
+    }
+
+    /**
+     * <p>
+     * An Object with 100 fields.</p>
+     */
+    public static class Fields100 {
+        public int f0, f1, f2, f3, f4, f5, f6, f7, f8, f9;
+        public int f10, f11, f12, f13, f14, f15, f16, f17, f18, f19;
+        public int f20, f21, f22, f23, f24, f25, f26, f27, f28, f29;
+        public int f30, f31, f32, f33, f34, f35, f36, f37, f38, f39;
+        public long f40, f41, f42, f43, f44, f45, f46, f47, f48, f49;
+        public long f50, f51, f52, f53, f54, f55, f56, f57, f58, f59;
+        public double f60, f61, f62, f63, f64, f65, f66, f67, f68, f69;
+        public double f70, f71, f72, f73, f74, f75, f76, f77, f78, f79;
+        public float f80, f81, f82, f83, f84, f85, f86, f87, f88, f89;
+        public short f90, f91, f92, f93, f94;
+        public boolean f95, f96, f97, f98, f99;
+    }
+}
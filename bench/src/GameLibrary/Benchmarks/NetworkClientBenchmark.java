@@ -0,0 +1,112 @@
+package GameLibrary.Benchmarks;
+
+import GameLibrary.Networking.FlushPolicy;
+import GameLibrary.Networking.NetworkClient;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <p>
+ * Measures sending a message from one NetworkClient and receiving it on
+ * another over a loopback socket. Both ends run on the benchmark thread,
+ * the messages are small enough to fit in the socket buffers. With 'async'
+ * the message is sent by the NetworkClient's writer Thread, and 'policy'
+ * is the FlushPolicy sends are batched with.</p>
+ *
+ * @author Dynisious
+ * @version 0.0.1
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NetworkClientBenchmark {
+
+    @Param({"64", "1024", "16384"})
+    public int size;
+    @Param({"false", "true"})
+    public boolean async;
+    @Param({"IMMEDIATE", "MANUAL"})
+    public String policy;
+
+    private static final int TICK = 65536; //The bytes sent in each tick.
+
+    private Socket client;
+    private Socket server;
+    private NetworkClient sender;
+    private NetworkClient receiver;
+    private byte[] message;
+
+    @Setup
+    public void setup() throws Exception {
+        try (ServerSocket listener = new ServerSocket(0, 1, InetAddress.
+                getLoopbackAddress())) {
+            client = new Socket(listener.getInetAddress(), listener.
+                    getLocalPort());
+            server = listener.accept();
+        }
+        client.setTcpNoDelay(true); //Large frames are written in two parts.
+        server.setTcpNoDelay(true);
+        sender = new NetworkClient(client);
+        sender.setAsyncSend(async);
+        sender.setFlushPolicy(policy.equals("MANUAL") ? FlushPolicy.MANUAL
+                : FlushPolicy.IMMEDIATE);
+        receiver = new NetworkClient(server);
+        message = new byte[size];
+        for (int i = 0; i < size; i++) {
+            message[i] = (byte) i;
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        sender.setAsyncSend(false);
+        client.close();
+        server.close();
+    }
+
+    @Benchmark
+    public byte[] sendReceive() throws Exception {
+        sender.send(message);
+        sender.flush();
+        return receiver.receive();
+    }
+
+    /**
+     * <p>
+     * Sends a tick of 64KiB of messages, each a header and a frame, then
+     * flushes and receives them. The score is per byte sent.</p>
+     */
+    @Benchmark
+    @OperationsPerInvocation(TICK)
+    public int tick() throws Exception {
+        int count = TICK / size;
+        for (int i = 0; i < count; i++) {
+            sender.send(i, message, 0, message.length);
+        }
+        sender.flush();
+        int total = 0;
+        for (int i = 0; i < count; i++) {
+            total += receiver.receiveHeader();
+            total += receiver.receiveFrame().remaining();
+        }
+        return total;
+    }
+}
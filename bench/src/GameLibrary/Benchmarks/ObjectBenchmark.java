@@ -0,0 +1,84 @@
+package GameLibrary.Benchmarks;
+
+import GameLibrary.Serialisation.AccessMode;
+import GameLibrary.Serialisation.IntEncoding;
+import GameLibrary.Serialisation.SerialReader;
+import GameLibrary.Serialisation.SerialWriter;
+import GameLibrary.Serialisation.Serialiser;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <p>
+ * Measures round tripping a game state message of 50 entities, sizing it
+ * with ObjectSize and serialising it into new and pooled buffers. Run with
+ * '-prof gc' to compare the allocation rate of ObjectToBytes against a
+ * pooled SerialWriter.</p>
+ *
+ * @author Dynisious
+ * @version 0.0.1
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ObjectBenchmark {
+
+    @Param({"REFLECTION", "METHOD_HANDLE", "GENERATED"})
+    public AccessMode mode;
+    @Param({"FIXED", "VARINT"})
+    public IntEncoding ints;
+
+    private Model.World world;
+    private SerialWriter writer;
+    private SerialReader reader;
+
+    @Setup
+    public void setup() {
+        Serialiser.setAccessMode(mode);
+        Serialiser.setIntEncoding(ints);
+        world = new Model.World(50);
+        writer = new SerialWriter();
+        reader = new SerialReader(writer.buffer().array(), 0);
+    }
+
+    @Benchmark
+    public Object roundTrip() throws Exception {
+        writer.reset();
+        writer.writeObject(Model.World.class, world);
+        reader.reset(writer.buffer().array(), 0);
+        return reader.readObject(Model.World.class);
+    }
+
+    @Benchmark
+    public int objectSize() throws Exception {
+        return Serialiser.ObjectSize(Model.World.class, world, true);
+    }
+
+    @Benchmark
+    public byte[] writeNew() throws Exception {
+        return Serialiser.ObjectToBytes(Model.World.class, world);
+    }
+
+    @Benchmark
+    public int writePooled() throws Exception {
+        SerialWriter w = SerialWriter.acquire();
+        try {
+            return w.writeObject(Model.World.class, world);
+        } finally {
+            w.release();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package GameLibrary.Benchmarks;
+
+import GameLibrary.Serialisation.SerialWriter;
+import GameLibrary.Serialisation.Serialiser;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <p>
+ * Compares serialising a large Object[] on one thread with serialising it
+ * in parallel chunks. Scale the number of cores used by adding
+ * '-jvmArgsAppend -Djava.util.concurrent.ForkJoinPool.common.parallelism=N'
+ * for each N to compare.</p>
+ *
+ * @author Dynisious
+ * @version 0.0.1
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParallelBenchmark {
+
+    @Param({"1024", "65536"})
+    public int length;
+    @Param({"true", "false"})
+    public boolean parallel;
+
+    private Model.Entity[] entities;
+    private SerialWriter writer;
+    private int threshold;
+
+    @Setup
+    public void setup() {
+        entities = new Model.Entity[length];
+        for (int i = 0; i < length; i++) {
+            entities[i] = new Model.Entity(i);
+        }
+        writer = new SerialWriter();
+        threshold = Serialiser.setParallelThreshold(parallel ? 256
+                : Integer.MAX_VALUE);
+    }
+
+    @TearDown
+    public void tearDown() {
+        Serialiser.setParallelThreshold(threshold);
+    }
+
+    @Benchmark
+    public int write() throws Exception {
+        writer.reset();
+        return writer.writeArray(Model.Entity[].class, entities);
+    }
+}
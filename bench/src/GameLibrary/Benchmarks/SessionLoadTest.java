@@ -0,0 +1,124 @@
+package GameLibrary.Benchmarks;
+
+import GameLibrary.Networking.ChannelClient;
+import GameLibrary.Networking.MessageHandler;
+import GameLibrary.Networking.NetworkLoop;
+import GameLibrary.Networking.NetworkServer;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ * Opens thousands of connections to a NetworkServer echoing messages from a
+ * blocking session per connection, and sends messages on all of them at
+ * once, checking every reply. The sessions run either on virtual Threads or
+ * on a pool of platform Threads, one per session, so the two can be
+ * compared; the clients are ChannelClients sharing a NetworkLoop per
+ * core.</p>
+ * <p>
+ * Run with 'ant session-load-test', passing
+ * '-Dsession.load.args="mode connections messages size"', where mode is
+ * 'virtual' or 'platform'; virtual 5000 10 64 by default. Virtual Threads
+ * need Java 21, on older JVMs the virtual mode falls back to platform
+ * Threads and says so. Each end holds a file descriptor per connection, so
+ * the process needs a file limit of more than twice the connections.</p>
+ *
+ * @author Dynisious
+ * @version 0.0.1
+ */
+public final class SessionLoadTest {
+
+    private SessionLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String mode = args.length > 0 ? args[0] : "virtual";
+        int connections = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+        int messages = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int size = args.length > 3 ? Integer.parseInt(args[3]) : 64;
+        ExecutorService executor;
+        if ("virtual".equals(mode)) {
+            if (!NetworkServer.hasVirtualThreads()) {
+                System.out.println(
+                        "This JVM has no virtual Threads, using platform Threads.");
+            }
+            executor = NetworkServer.newSessionExecutor();
+        } else if ("platform".equals(mode)) {
+            executor = NetworkServer.newPlatformExecutor();
+        } else {
+            throw new IllegalArgumentException("Unknown mode '" + mode
+                    + "', expected 'virtual' or 'platform'.");
+        }
+
+        NetworkServer server = new NetworkServer(new InetSocketAddress(
+                InetAddress.getLoopbackAddress(), 0), connections, client -> {
+            while (true) { //Echo every message until the connection closes.
+                int header = client.receiveHeader();
+                ByteBuffer frame = client.receiveFrame();
+                client.send(header, frame.array(), frame.arrayOffset(),
+                        frame.remaining());
+            }
+        }, executor);
+
+        NetworkLoop[] clients = new NetworkLoop[Runtime.getRuntime().
+                availableProcessors()];
+        for (int i = 0; i < clients.length; i++) {
+            clients[i] = new NetworkLoop();
+        }
+        CountDownLatch replies = new CountDownLatch(connections * messages);
+        AtomicInteger errors = new AtomicInteger();
+        MessageHandler check = (client, header, message) -> {
+            if (message.remaining() != size || message.get(0) != (byte) header) {
+                errors.incrementAndGet();
+            }
+            replies.countDown();
+        };
+        long start = System.nanoTime();
+        ChannelClient[] opened = new ChannelClient[connections];
+        for (int i = 0; i < connections; i++) {
+            opened[i] = clients[i % clients.length].connect(server.
+                    getLocalAddress(), check);
+        }
+        while (server.getSessions() < connections && System.nanoTime() - start
+                < TimeUnit.SECONDS.toNanos(60)) { //Wait for every session to start.
+            Thread.sleep(1);
+        }
+        long connected = System.nanoTime();
+        System.out.printf("Started %d %s sessions in %d ms.%n", server.
+                getSessions(), mode, TimeUnit.NANOSECONDS.toMillis(connected
+                        - start));
+
+        byte[] message = new byte[size];
+        for (int m = 0; m < messages; m++) {
+            for (int i = 0; i < connections; i++) {
+                message[0] = (byte) m;
+                opened[i].send(m, ByteBuffer.wrap(message));
+            }
+        }
+        boolean done = replies.await(60, TimeUnit.SECONDS);
+        long finished = System.nanoTime();
+        long roundTrips = (long) connections * messages - replies.getCount();
+        System.out.printf(
+                "%d round trips in %d ms, %.0f per second; %d bad replies.%n",
+                roundTrips, TimeUnit.NANOSECONDS.toMillis(finished - connected),
+                roundTrips * 1e9 / (finished - connected), errors.get());
+        Runtime runtime = Runtime.getRuntime();
+        System.out.printf("Peak platform Threads %d, heap used %d MiB.%n",
+                ManagementFactory.getThreadMXBean().getPeakThreadCount(),
+                (runtime.totalMemory() - runtime.freeMemory()) >> 20);
+
+        for (NetworkLoop l : clients) {
+            l.close();
+        }
+        server.close();
+        if (!done || errors.get() != 0) {
+            System.exit(1);
+        }
+    }
+}
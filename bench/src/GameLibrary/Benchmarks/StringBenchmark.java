@@ -0,0 +1,70 @@
+package GameLibrary.Benchmarks;
+
+import GameLibrary.Serialisation.SerialReader;
+import GameLibrary.Serialisation.SerialWriter;
+import GameLibrary.Serialisation.StringEncoding;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <p>
+ * Measures writing and round tripping Strings of ASCII text in each
+ * StringEncoding.</p>
+ *
+ * @author Dynisious
+ * @version 0.0.1
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StringBenchmark {
+
+    @Param({"16", "1024", "65536"})
+    public int length;
+    @Param({"UTF16", "UTF8", "LATIN1"})
+    public StringEncoding encoding;
+
+    private String str;
+    private SerialWriter writer;
+    private SerialReader reader;
+
+    @Setup
+    public void setup() {
+        StringBuilder b = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            b.append((char) ('a' + i % 26));
+        }
+        str = b.toString();
+        writer = new SerialWriter(length * 3 + 16);
+        writer.setStringEncoding(encoding);
+        reader = new SerialReader(writer.buffer().array(), 0);
+        reader.setStringEncoding(encoding);
+    }
+
+    @Benchmark
+    public int write() {
+        writer.reset();
+        return writer.writeString(str);
+    }
+
+    @Benchmark
+    public String roundTrip() {
+        writer.reset();
+        writer.writeString(str);
+        reader.reset(writer.buffer().array(), 0);
+        return reader.readString();
+    }
+}
@@ -0,0 +1,51 @@
+package GameLibrary.Serialisation;
+
+import GameLibrary.Serialisation.Codec;
+import GameLibrary.Serialisation.SerialReader;
+import GameLibrary.Serialisation.SerialWriter;
+import GameLibrary.Serialisation.Serialiser;
+
+/**
+ * <p>
+ * The Codec for GameLibrary.Serialisation.SerialisableProcessorTest.Msg, generated by SerialisableProcessor.</p>
+ */
+public final class SerialisableProcessorTest_MsgCodec implements Codec<GameLibrary.Serialisation.SerialisableProcessorTest.Msg> {
+
+    @Override
+    public Class<GameLibrary.Serialisation.SerialisableProcessorTest.Msg> type() {
+        return GameLibrary.Serialisation.SerialisableProcessorTest.Msg.class;
+    }
+
+    @Override
+    public int size(GameLibrary.Serialisation.SerialisableProcessorTest.Msg obj) throws IllegalAccessException {
+        int size = 0;
+        size += Serialiser.StringSize(obj.name);
+        size += Serialiser.IntSize(obj.x);
+        size += Serialiser.ArraySize(int[].class, obj.xs);
+        size += Serialiser.LongSize(((GameLibrary.Serialisation.SerialisableProcessorTest.Base) obj).id);
+        size += Serialiser.IntSize(((GameLibrary.Serialisation.SerialisableProcessorTest.Base) obj).x);
+        return size;
+    }
+
+    @Override
+    public void write(SerialWriter w, GameLibrary.Serialisation.SerialisableProcessorTest.Msg obj) throws IllegalAccessException {
+        w.writeString(obj.name);
+        w.writeInt(obj.x);
+        w.writeArray(int[].class, obj.xs);
+        w.writeLong(((GameLibrary.Serialisation.SerialisableProcessorTest.Base) obj).id);
+        w.writeInt(((GameLibrary.Serialisation.SerialisableProcessorTest.Base) obj).x);
+    }
+
+    @Override
+    public GameLibrary.Serialisation.SerialisableProcessorTest.Msg read(SerialReader r, GameLibrary.Serialisation.SerialisableProcessorTest.Msg obj) throws InstantiationException, IllegalAccessException {
+        if (obj == null) {
+            obj = new GameLibrary.Serialisation.SerialisableProcessorTest.Msg();
+        }
+        obj.name = r.readString();
+        obj.x = r.readInt();
+        obj.xs = (int[]) r.readArray(int[].class, r.getReuse() ? obj.xs : null);
+        ((GameLibrary.Serialisation.SerialisableProcessorTest.Base) obj).id = r.readLong();
+        ((GameLibrary.Serialisation.SerialisableProcessorTest.Base) obj).x = r.readInt();
+        return obj;
+    }
+}
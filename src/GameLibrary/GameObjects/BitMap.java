@@ -0,0 +1,136 @@
+package GameLibrary.GameObjects;
+
+/**
+ * <p>
+ * A fixed length map of bits backed by a long[], 64 bits to a long. Bit 'i'
+ * is stored in bit 'i % 64' of long 'i / 64'.</p>
+ * <p>
+ * BitMaps are suited to large grids of flags such as visibility masks and
+ * are serialised by Serialiser as packed bits, the same as a
+ * boolean[].</p>
+ *
+ * @author Dynisious
+ * @version 0.0.1
+ */
+public final class BitMap {
+
+    /**
+     * <p>
+     * The bits of this BitMap.</p>
+     */
+    private final long[] words;
+    /**
+     * <p>
+     * The number of bits in this BitMap.</p>
+     */
+    private final int length;
+
+    /**
+     * <p>
+     * Creates a new BitMap of 'nLength' bits which are all false.</p>
+     *
+     * @param nLength The number of bits.
+     */
+    public BitMap(int nLength) {
+        this(new long[(nLength + Long.SIZE - 1) / Long.SIZE], nLength);
+    }
+
+    /**
+     * <p>
+     * Creates a new BitMap of 'nLength' bits backed by 'nWords'. 'nWords' is
+     * not copied.</p>
+     *
+     * @param nWords  The longs holding the bits.
+     * @param nLength The number of bits.
+     *
+     * @throws java.lang.IllegalArgumentException Thrown if 'nWords' is not
+     *                                            the right length to hold
+     *                                            'nLength' bits.
+     */
+    public BitMap(long[] nWords, int nLength) throws IllegalArgumentException {
+        if (nLength < 0 || nWords.length != (nLength + Long.SIZE - 1)
+                / Long.SIZE) {
+            throw new IllegalArgumentException(
+                    "The passed long[] cannot hold " + nLength + " bits.");
+        }
+        words = nWords;
+        length = nLength;
+    }
+
+    /**
+     * <p>
+     * Returns the number of bits in this BitMap.</p>
+     *
+     * @return The number of bits in this BitMap.
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * <p>
+     * Returns the long[] backing this BitMap. Changes to the long[] change
+     * this BitMap.</p>
+     *
+     * @return The long[] backing this BitMap.
+     */
+    public long[] words() {
+        return words;
+    }
+
+    public boolean get(int index) throws IndexOutOfBoundsException {
+        check(index);
+        return (words[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * <p>
+     * Sets the bit at 'index' to 'val'.</p>
+     *
+     * @param index The index of the bit.
+     * @param val   The new value of the bit.
+     *
+     * @return The previous value of the bit.
+     *
+     * @throws java.lang.IndexOutOfBoundsException Thrown if 'index' is
+     *                                             outside of this BitMap.
+     */
+    public boolean set(int index, boolean val) throws IndexOutOfBoundsException {
+        boolean old = get(index);
+        if (val) {
+            words[index >>> 6] |= 1L << index;
+        } else {
+            words[index >>> 6] &= ~(1L << index);
+        }
+        return old;
+    }
+
+    /**
+     * <p>
+     * Sets every bit to false.</p>
+     */
+    public void clear() {
+        java.util.Arrays.fill(words, 0);
+    }
+
+    /**
+     * <p>
+     * Returns the number of bits which are true.</p>
+     *
+     * @return The number of bits which are true.
+     */
+    public int cardinality() {
+        int n = 0;
+        for (long w : words) {
+            n += Long.bitCount(w);
+        }
+        return n;
+    }
+
+    private void check(int index) throws IndexOutOfBoundsException {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Index " + index
+                    + " is outside of a BitMap of length " + length + ".");
+        }
+    }
+}
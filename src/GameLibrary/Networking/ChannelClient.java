@@ -0,0 +1,351 @@
+package GameLibrary.Networking;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * <p>
+ * A non-blocking connection registered with a NetworkLoop. It sends the
+ * same headers and frames as NetworkClient, so the two interoperate, and
+ * delivers each header and the frame following it to it's MessageHandler
+ * as a single message.</p>
+ * <p>
+ * Any Thread may send on a ChannelClient; the bytes are queued and written
+ * by the NetworkLoop's Thread through a per-connection write buffer.
+ * Messages are received into a per-connection read buffer which is reused
+ * for every message.</p>
+ *
+ * @author Dynisious
+ * @version 0.0.1
+ */
+public final class ChannelClient implements Closeable {
+    /**
+     * <p>
+     * The size of the read and write buffers.</p>
+     */
+    private static final int BUFFER_SIZE = 8192;
+    /**
+     * <p>
+     * The bytes before each message: it's header and the length of it's
+     * frame.</p>
+     */
+    private static final int PREFIX = 2 * Integer.BYTES;
+    /**
+     * <p>
+     * The largest read buffer kept for the next message; a buffer grown
+     * beyond this for a large frame is dropped once the frame is
+     * received.</p>
+     */
+    private static final int MAX_RETAINED = 1 << 20;
+
+    /**
+     * <p>
+     * The NetworkLoop this ChannelClient is registered with.</p>
+     */
+    private final NetworkLoop loop;
+    /**
+     * <p>
+     * The SocketChannel this ChannelClient sends and receives on.</p>
+     */
+    private final SocketChannel channel;
+    /**
+     * <p>
+     * The MessageHandler received messages are passed to.</p>
+     */
+    final MessageHandler handler;
+    /**
+     * <p>
+     * The key of 'channel' with the NetworkLoop's Selector, once it has been
+     * registered.</p>
+     */
+    SelectionKey key = null;
+    /**
+     * <p>
+     * Whether this ChannelClient has been closed.</p>
+     */
+    volatile boolean closed = false;
+    /**
+     * <p>
+     * The buffer messages are received into, only used by the NetworkLoop's
+     * Thread.</p>
+     */
+    private ByteBuffer in = ByteBuffer.allocate(BUFFER_SIZE);
+    /**
+     * <p>
+     * The buffer queued bytes are copied into to be written, only used by
+     * the NetworkLoop's Thread.</p>
+     */
+    private final ByteBuffer out = ByteBuffer.allocate(BUFFER_SIZE);
+    /**
+     * <p>
+     * The bytes waiting to be written.</p>
+     */
+    private final ConcurrentLinkedQueue<ByteBuffer> queue = new ConcurrentLinkedQueue<>();
+    /**
+     * <p>
+     * Whether the NetworkLoop has been asked to write the queued bytes.</p>
+     */
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    /**
+     * <p>
+     * The largest frame this ChannelClient will send or receive.</p>
+     */
+    private volatile int maxFrameSize = NetworkClient.DEFAULT_MAX_FRAME_SIZE;
+    public int getMaxFrameSize() {
+        return maxFrameSize;
+    }
+    /**
+     * <p>
+     * Sets the largest frame this ChannelClient will send or receive and
+     * returns the previous maximum.</p>
+     *
+     * @param val The new maximum frame size in bytes.
+     *
+     * @return The previous maximum frame size.
+     */
+    public int setMaxFrameSize(int val) {
+        int m = maxFrameSize;
+        maxFrameSize = val;
+        return m;
+    }
+
+    /**
+     * <p>
+     * An Object attached to this ChannelClient, such as the state of it's
+     * session.</p>
+     */
+    private volatile Object attachment = null;
+    public Object getAttachment() {
+        return attachment;
+    }
+    /**
+     * <p>
+     * Sets the Object attached to this ChannelClient and returns the
+     * previous attachment.</p>
+     *
+     * @param val The new attachment.
+     *
+     * @return The previous attachment.
+     */
+    public Object setAttachment(Object val) {
+        Object a = attachment;
+        attachment = val;
+        return a;
+    }
+
+    ChannelClient(NetworkLoop nLoop, SocketChannel nChannel, MessageHandler nHandler) {
+        loop = nLoop;
+        channel = nChannel;
+        handler = nHandler;
+    }
+
+    public SocketChannel getChannel() {
+        return channel;
+    }
+
+    public NetworkLoop getLoop() {
+        return loop;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * <p>
+     * Queues an int to be sent on this ChannelClient.</p>
+     *
+     * @param header The int to send.
+     *
+     * @throws java.io.IOException Thrown if this ChannelClient is closed.
+     */
+    public void send(int header) throws IOException {
+        ByteBuffer b = ByteBuffer.allocate(Integer.BYTES);
+        b.putInt(header).flip();
+        enqueue(b);
+    }
+
+    /**
+     * <p>
+     * Queues bytes to be sent as a frame on this ChannelClient.</p>
+     *
+     * @param message The bytes to send.
+     *
+     * @throws java.io.IOException Thrown if this ChannelClient is closed or
+     *                             the frame is longer than the maximum frame
+     *                             size.
+     */
+    public void send(byte[] message) throws IOException {
+        send(message, 0, message.length);
+    }
+
+    /**
+     * <p>
+     * Queues 'len' bytes from 'message' starting at 'off' to be sent as a
+     * frame on this ChannelClient. The bytes are copied so 'message' may be
+     * reused as soon as this returns.</p>
+     *
+     * @param message The bytes to send.
+     * @param off     The position of the first byte to send.
+     * @param len     The number of bytes to send.
+     *
+     * @throws java.io.IOException Thrown if this ChannelClient is closed or
+     *                             the frame is longer than the maximum frame
+     *                             size.
+     */
+    public void send(byte[] message, int off, int len) throws IOException {
+        check(len);
+        ByteBuffer b = ByteBuffer.allocate(Integer.BYTES + len);
+        b.putInt(len).put(message, off, len).flip();
+        enqueue(b);
+    }
+
+    /**
+     * <p>
+     * Queues a header and the remaining bytes of 'message' as a frame to be
+     * sent on this ChannelClient, the same as send(header) followed by
+     * send(message).</p>
+     *
+     * @param header  The header to send.
+     * @param message The bytes to send, which are copied.
+     *
+     * @throws java.io.IOException Thrown if this ChannelClient is closed or
+     *                             the frame is longer than the maximum frame
+     *                             size.
+     */
+    public void send(int header, ByteBuffer message) throws IOException {
+        check(message.remaining());
+        ByteBuffer b = ByteBuffer.allocate(PREFIX + message.remaining());
+        b.putInt(header).putInt(message.remaining()).put(message.duplicate()).
+                flip();
+        enqueue(b);
+    }
+
+    private void check(int len) throws ProtocolException {
+        if (len > maxFrameSize) {
+            throw new ProtocolException("A frame of " + len
+                    + " bytes is longer than the maximum of " + maxFrameSize
+                    + ".");
+        }
+    }
+
+    /**
+     * <p>
+     * Queues 'b' and asks the NetworkLoop to write it, unless it has already
+     * been asked.</p>
+     */
+    private void enqueue(ByteBuffer b) throws IOException {
+        if (closed) {
+            throw new ClosedChannelException();
+        }
+        queue.add(b);
+        if (scheduled.compareAndSet(false, true)) {
+            loop.flush(this);
+        }
+    }
+
+    /**
+     * <p>
+     * Closes this ChannelClient on it's NetworkLoop's Thread, discarding any
+     * bytes which have not been written.</p>
+     */
+    @Override
+    public void close() {
+        loop.close(this, null);
+    }
+
+    /**
+     * <p>
+     * Reads the available bytes and passes each complete message to the
+     * MessageHandler. A read buffer grown past MAX_RETAINED for a large frame
+     * is replaced by a smaller one once that frame has been received. Called
+     * by the NetworkLoop's Thread.</p>
+     *
+     * @return False if the peer closed the connection.
+     */
+    boolean read() throws IOException {
+        if (channel.read(in) == -1) {
+            return false;
+        }
+        in.flip();
+        int need = PREFIX; //The number of bytes needed for the next message.
+        while (in.remaining() >= PREFIX) { //Pass on every complete message.
+            int p = in.position();
+            int length = in.getInt(p + Integer.BYTES);
+            if (length < 0 || length > maxFrameSize) { //The frame can't be received.
+                throw new ProtocolException("A frame of " + length
+                        + " bytes is longer than the maximum of " + maxFrameSize
+                        + ".");
+            }
+            need = PREFIX + length;
+            if (in.remaining() < need) { //The frame has not all arrived.
+                break;
+            }
+            ByteBuffer message = in.duplicate();
+            message.position(p + PREFIX).limit(p + need);
+            in.position(p + need);
+            handler.received(this, in.getInt(p), message.slice());
+            if (closed) { //The handler closed this ChannelClient.
+                return true;
+            }
+            need = PREFIX;
+        }
+        if (need > in.capacity()) { //The next message does not fit.
+            ByteBuffer b = ByteBuffer.allocate(Math.max(need, (int) Math.min(
+                    in.capacity() * 2L, PREFIX + (long) maxFrameSize)));
+            b.put(in);
+            in = b;
+        } else if (in.capacity() > MAX_RETAINED && Math.max(need, in.
+                remaining()) <= MAX_RETAINED) { //The large frame has been received.
+            ByteBuffer b = ByteBuffer.allocate(Math.max(BUFFER_SIZE, Math.max(
+                    need, in.remaining())));
+            b.put(in);
+            in = b;
+        } else {
+            in.compact();
+        }
+        return true;
+    }
+
+    /**
+     * <p>
+     * Writes as many of the queued bytes as the SocketChannel will accept.
+     * Called by the NetworkLoop's Thread.</p>
+     *
+     * @return True if every queued byte was written.
+     */
+    boolean write() throws IOException {
+        scheduled.set(false); //Bytes queued from now on need another flush.
+        while (true) {
+            ByteBuffer b;
+            while (out.hasRemaining() && (b = queue.peek()) != null) { //Copy queued bytes into the write buffer.
+                if (b.remaining() <= out.remaining()) {
+                    out.put(b);
+                    queue.poll();
+                } else {
+                    int limit = b.limit();
+                    b.limit(b.position() + out.remaining());
+                    out.put(b);
+                    b.limit(limit);
+                }
+            }
+            out.flip();
+            channel.write(out);
+            boolean written = !out.hasRemaining();
+            out.compact();
+            if (!written) { //The socket's buffer is full.
+                return false;
+            } else if (queue.isEmpty()) {
+                return true;
+            }
+        }
+    }
+}
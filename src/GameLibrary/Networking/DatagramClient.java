@@ -0,0 +1,636 @@
+package GameLibrary.Networking;
+
+import GameLibrary.Serialisation.SerialWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.net.SocketAddress;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * Sends and receives messages with a single peer over UDP, for state which
+ * is out of date as soon as newer state arrives. Unlike NetworkClient a
+ * lost packet never holds up the packets behind it.</p>
+ * <p>
+ * Every packet carries a sequence number and acknowledges the newest packet
+ * received from the peer along with a bitfield of the 32 before it.
+ * Unreliable messages are delivered only if their packet is newer than
+ * every packet received before it, so late and duplicated state is dropped.
+ * Reliable messages are queued and carried by outgoing packets, resent until
+ * a packet carrying them is acknowledged, and delivered once each in the
+ * order they were sent.</p>
+ * <p>
+ * Packets are laid out as:
+ * <pre>
+ * sequence   2 bytes
+ * ack        2 bytes, the newest sequence received
+ * ack bits   4 bytes, bit n set if sequence ack - 1 - n was received
+ * flags      1 byte,  HAS_ACK and HAS_UNRELIABLE
+ * count      1 byte,  the number of reliable messages
+ * reliable   per message: 2 byte id, 2 byte length, bytes
+ * unreliable the rest of the packet, if HAS_UNRELIABLE
+ * </pre>
+ * A DatagramClient is meant to be driven by a single Thread, such as a game
+ * loop calling receive and update every tick, and is not safe for several
+ * Threads to use at once.</p>
+ *
+ * @author Dynisious
+ * @version 0.0.1
+ */
+public final class DatagramClient implements Closeable {
+    /**
+     * <p>
+     * The default largest packet sent, small enough to avoid fragmentation
+     * on most paths.</p>
+     */
+    public static final int DEFAULT_MAX_PACKET_SIZE = 1200;
+    /**
+     * <p>
+     * The largest UDP payload.</p>
+     */
+    private static final int MAX_DATAGRAM = 65507;
+    /**
+     * <p>
+     * The bytes before the messages of a packet.</p>
+     */
+    private static final int HEADER = 10;
+    /**
+     * <p>
+     * The bytes before each reliable message: it's id and length.</p>
+     */
+    private static final int PREFIX = 4;
+    /**
+     * <p>
+     * Set if the ack and ack bits are valid.</p>
+     */
+    private static final int HAS_ACK = 1;
+    /**
+     * <p>
+     * Set if the packet ends with an unreliable message.</p>
+     */
+    private static final int HAS_UNRELIABLE = 2;
+    /**
+     * <p>
+     * The number of sent packets remembered for acknowledgement.</p>
+     */
+    private static final int SENT = 256;
+    /**
+     * <p>
+     * The most reliable messages which may be in flight, and the most which
+     * are held waiting for an earlier message.</p>
+     */
+    private static final int WINDOW = 1024;
+
+    /**
+     * <p>
+     * The DatagramChannel packets are sent and received on.</p>
+     */
+    private final DatagramChannel channel;
+    /**
+     * <p>
+     * The buffer packets are received into.</p>
+     */
+    private final ByteBuffer in = ByteBuffer.allocate(MAX_DATAGRAM);
+    /**
+     * <p>
+     * The buffer packets are built in.</p>
+     */
+    private final ByteBuffer out = ByteBuffer.allocate(MAX_DATAGRAM);
+
+    /**
+     * <p>
+     * The sequence number of the next packet sent.</p>
+     */
+    private int sequence = 0;
+    /**
+     * <p>
+     * The sequence number of each remembered packet, by sequence % SENT, or
+     * -1.</p>
+     */
+    private final int[] sentSequence = new int[SENT];
+    /**
+     * <p>
+     * When each remembered packet was sent, by System.nanoTime.</p>
+     */
+    private final long[] sentTime = new long[SENT];
+    /**
+     * <p>
+     * The reliable messages carried by each remembered packet which has not
+     * been acknowledged.</p>
+     */
+    private final Reliable[][] sentReliable = new Reliable[SENT][];
+    /**
+     * <p>
+     * The reliable messages which have not been acknowledged, oldest
+     * first.</p>
+     */
+    private final ArrayDeque<Reliable> pending = new ArrayDeque<>();
+    /**
+     * <p>
+     * The id of the next reliable message sent.</p>
+     */
+    private int nextId = 0;
+
+    /**
+     * <p>
+     * The newest sequence number received, or -1 before any packet.</p>
+     */
+    private int remote = -1;
+    /**
+     * <p>
+     * Bit n is set if sequence remote - 1 - n was received.</p>
+     */
+    private int remoteBits = 0;
+    /**
+     * <p>
+     * Whether a packet carrying messages has been received since the last
+     * packet was sent, so the peer is owed an acknowledgement.</p>
+     */
+    private boolean owed = false;
+    /**
+     * <p>
+     * The id of the next reliable message to deliver.</p>
+     */
+    private int expectedId = 0;
+    /**
+     * <p>
+     * Reliable messages received before an earlier message, by id %
+     * WINDOW.</p>
+     */
+    private final byte[][] early = new byte[WINDOW][];
+
+    /**
+     * <p>
+     * The smoothed round trip time in nanoseconds, or -1 before any packet
+     * has been acknowledged.</p>
+     */
+    private long roundTrip = -1;
+    /**
+     * <p>
+     * The number of unreliable messages dropped for arriving late.</p>
+     */
+    private long stale = 0;
+
+    /**
+     * <p>
+     * The largest packet this DatagramClient will send.</p>
+     */
+    private int maxPacketSize = DEFAULT_MAX_PACKET_SIZE;
+    public int getMaxPacketSize() {
+        return maxPacketSize;
+    }
+    /**
+     * <p>
+     * Sets the largest packet this DatagramClient will send and returns the
+     * previous maximum.</p>
+     *
+     * @param val The new maximum packet size in bytes.
+     *
+     * @return The previous maximum packet size.
+     */
+    public int setMaxPacketSize(int val) {
+        if (val <= HEADER + PREFIX || val > MAX_DATAGRAM) {
+            throw new IllegalArgumentException("A packet must be between "
+                    + (HEADER + PREFIX + 1) + " and " + MAX_DATAGRAM
+                    + " bytes.");
+        }
+        int m = maxPacketSize;
+        maxPacketSize = val;
+        return m;
+    }
+
+    /**
+     * <p>
+     * How long a reliable message waits for it's packet to be acknowledged
+     * before it is sent again, in nanoseconds.</p>
+     */
+    private long resendDelay = TimeUnit.MILLISECONDS.toNanos(100);
+    public long getResendDelay(TimeUnit unit) {
+        return unit.convert(resendDelay, TimeUnit.NANOSECONDS);
+    }
+    /**
+     * <p>
+     * Sets how long a reliable message waits for it's packet to be
+     * acknowledged before it is sent again and returns the previous
+     * delay.</p>
+     *
+     * @param time The new resend delay.
+     * @param unit The TimeUnit of 'time', and of the returned delay.
+     *
+     * @return The previous resend delay.
+     */
+    public long setResendDelay(long time, TimeUnit unit) {
+        long d = resendDelay;
+        resendDelay = unit.toNanos(time);
+        return unit.convert(d, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * <p>
+     * Creates a new DatagramClient bound to 'local'. It must be connected
+     * to it's peer before it can send.</p>
+     *
+     * @param local The address to bind to, or null for any.
+     *
+     * @throws java.io.IOException Thrown if 'local' could not be bound.
+     */
+    public DatagramClient(SocketAddress local) throws IOException {
+        channel = DatagramChannel.open();
+        try {
+            channel.bind(local);
+            channel.configureBlocking(false);
+        } catch (IOException ex) {
+            channel.close();
+            throw ex;
+        }
+        Arrays.fill(sentSequence, -1);
+    }
+
+    /**
+     * <p>
+     * Connects this DatagramClient to 'remote', so it only sends to and
+     * receives from 'remote'.</p>
+     *
+     * @param remote The address of the peer.
+     *
+     * @throws java.io.IOException Thrown if the DatagramChannel could not be
+     *                             connected.
+     */
+    public void connect(SocketAddress remote) throws IOException {
+        channel.connect(remote);
+    }
+
+    public DatagramChannel getChannel() {
+        return channel;
+    }
+
+    public SocketAddress getLocalAddress() throws IOException {
+        return channel.getLocalAddress();
+    }
+
+    /**
+     * <p>
+     * Returns the smoothed round trip time of acknowledged packets in
+     * 'unit', or -1 if no packet has been acknowledged.</p>
+     *
+     * @param unit The TimeUnit to return the round trip time in.
+     *
+     * @return The round trip time.
+     */
+    public long getRoundTripTime(TimeUnit unit) {
+        return roundTrip < 0 ? -1 : unit.convert(roundTrip,
+                TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * <p>
+     * Returns the number of reliable messages which have not been
+     * acknowledged.</p>
+     *
+     * @return The number of unacknowledged reliable messages.
+     */
+    public int getPendingReliable() {
+        return pending.size();
+    }
+
+    /**
+     * <p>
+     * Returns the number of unreliable messages dropped because a newer
+     * packet had already been received.</p>
+     *
+     * @return The number of stale messages dropped.
+     */
+    public long getStaleDropped() {
+        return stale;
+    }
+
+    /**
+     * <p>
+     * Sends the remaining bytes of 'message' unreliably in a packet of it's
+     * own, together with any reliable messages which are due and fit.</p>
+     *
+     * @param message The bytes to send.
+     *
+     * @throws java.io.IOException Thrown if there was an error sending the
+     *                             packet or 'message' does not fit in a
+     *                             packet.
+     */
+    public void send(ByteBuffer message) throws IOException {
+        if (HEADER + message.remaining() > maxPacketSize) {
+            throw new ProtocolException("A message of " + message.remaining()
+                    + " bytes does not fit in a packet of " + maxPacketSize
+                    + " bytes.");
+        }
+        sendPacket(message);
+    }
+
+    /**
+     * <p>
+     * Sends the bytes written to an in memory SerialWriter unreliably, the
+     * same as send(ByteBuffer).</p>
+     *
+     * @param writer The SerialWriter holding the message.
+     *
+     * @throws java.io.IOException Thrown if there was an error sending the
+     *                             packet or the message does not fit in a
+     *                             packet.
+     */
+    public void send(SerialWriter writer) throws IOException {
+        send(bytes(writer));
+    }
+
+    /**
+     * <p>
+     * Queues the remaining bytes of 'message' to be sent reliably by the
+     * following packets. The bytes are copied so 'message' may be reused as
+     * soon as this returns.</p>
+     *
+     * @param message The bytes to send.
+     *
+     * @throws java.io.ProtocolException Thrown if 'message' does not fit in
+     *                                   a packet.
+     */
+    public void sendReliable(ByteBuffer message) throws ProtocolException {
+        if (HEADER + PREFIX + message.remaining() > maxPacketSize) {
+            throw new ProtocolException("A message of " + message.remaining()
+                    + " bytes does not fit in a packet of " + maxPacketSize
+                    + " bytes.");
+        }
+        byte[] data = new byte[message.remaining()];
+        message.duplicate().get(data);
+        pending.add(new Reliable(nextId, data, System.nanoTime()));
+        nextId = (nextId + 1) & 0xffff;
+    }
+
+    /**
+     * <p>
+     * Queues the bytes written to an in memory SerialWriter to be sent
+     * reliably, the same as sendReliable(ByteBuffer).</p>
+     *
+     * @param writer The SerialWriter holding the message.
+     *
+     * @throws java.io.ProtocolException Thrown if the message does not fit
+     *                                   in a packet.
+     */
+    public void sendReliable(SerialWriter writer) throws ProtocolException {
+        sendReliable(bytes(writer));
+    }
+
+    /**
+     * <p>
+     * Sends a packet carrying the reliable messages which are due, or only
+     * acknowledgements if the peer is owed them. Call this every tick so
+     * reliable messages are sent and resent without waiting for an
+     * unreliable send.</p>
+     *
+     * @throws java.io.IOException Thrown if there was an error sending the
+     *                             packet.
+     */
+    public void update() throws IOException {
+        sendPacket(null);
+    }
+
+    /**
+     * <p>
+     * Receives every packet waiting on the DatagramChannel and passes their
+     * messages to 'handler'. Packets which can't be read are
+     * discarded.</p>
+     *
+     * @param handler The DatagramHandler to pass messages to.
+     *
+     * @return The number of packets received.
+     *
+     * @throws java.io.IOException Thrown if there was an error receiving.
+     */
+    public int receive(DatagramHandler handler) throws IOException {
+        int packets = 0;
+        while (true) {
+            in.clear();
+            if (channel.receive(in) == null) { //There are no more packets.
+                return packets;
+            }
+            in.flip();
+            packets++;
+            try {
+                handle(handler);
+            } catch (BufferUnderflowException ex) { //The packet was cut short.
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Closes the DatagramChannel, discarding any reliable messages which
+     * have not been acknowledged.</p>
+     *
+     * @throws java.io.IOException Thrown if the DatagramChannel could not be
+     *                             closed.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * <p>
+     * Builds and sends a packet, with 'unreliable' if it is not null.
+     * Nothing is sent if there would be nothing in the packet.</p>
+     */
+    private void sendPacket(ByteBuffer unreliable) throws IOException {
+        long now = System.nanoTime();
+        int room = maxPacketSize - HEADER - (unreliable == null ? 0
+                : unreliable.remaining());
+        out.clear();
+        out.position(HEADER);
+        Reliable[] carried = null;
+        int count = 0;
+        int front = pending.isEmpty() ? 0 : pending.peekFirst().id;
+        for (Reliable r : pending) {
+            if (count == 255 || ((r.id - front) & 0xffff) >= WINDOW) { //The packet or the peer's window is full.
+                break;
+            } else if (r.acked || now - r.due < 0 || PREFIX + r.data.length
+                    > room) {
+                continue;
+            }
+            out.putShort((short) r.id).putShort((short) r.data.length).put(
+                    r.data);
+            room -= PREFIX + r.data.length;
+            r.due = now + resendDelay;
+            if (carried == null) {
+                carried = new Reliable[Math.min(pending.size(), 255)];
+            }
+            carried[count++] = r;
+        }
+        if (unreliable == null && count == 0 && !owed) { //There is nothing to send.
+            return;
+        }
+        if (unreliable != null) {
+            out.put(unreliable.duplicate());
+        }
+        out.putShort(0, (short) sequence).putShort(2, (short) remote).putInt(4,
+                remoteBits).put(8, (byte) ((remote < 0 ? 0 : HAS_ACK)
+                | (unreliable == null ? 0 : HAS_UNRELIABLE))).put(9,
+                (byte) count).flip();
+
+        int slot = sequence % SENT;
+        sentSequence[slot] = sequence;
+        sentTime[slot] = now;
+        sentReliable[slot] = carried;
+        sequence = (sequence + 1) & 0xffff;
+        owed = false;
+        channel.write(out); //A packet the socket has no room for is lost like any other.
+    }
+
+    /**
+     * <p>
+     * Reads the packet in 'in', acknowledging the packets it acknowledges
+     * and passing it's messages to 'handler'.</p>
+     */
+    private void handle(DatagramHandler handler) {
+        int seq = in.getShort() & 0xffff;
+        int ack = in.getShort() & 0xffff;
+        int ackBits = in.getInt();
+        int flags = in.get();
+        int count = in.get() & 0xff;
+
+        if ((flags & HAS_ACK) != 0) {
+            acknowledge(ack);
+            for (int i = 0; i < 32; i++) {
+                if ((ackBits & (1 << i)) != 0) {
+                    acknowledge((ack - 1 - i) & 0xffff);
+                }
+            }
+            while (!pending.isEmpty() && pending.peekFirst().acked) {
+                pending.pollFirst();
+            }
+        }
+        boolean newest = remote < 0 || newer(seq, remote);
+        if (remote < 0) {
+            remote = seq;
+        } else if (newest) { //Shift the ack bits along to the new sequence.
+            int shift = (seq - remote) & 0xffff;
+            remoteBits = shift >= 32 ? 0 : remoteBits << shift;
+            if (shift <= 32) {
+                remoteBits |= 1 << (shift - 1);
+            }
+            remote = seq;
+        } else {
+            int behind = (remote - seq) & 0xffff;
+            if (behind >= 1 && behind <= 32) {
+                remoteBits |= 1 << (behind - 1);
+            }
+        }
+        if (count > 0 || (flags & HAS_UNRELIABLE) != 0) { //Messages are acknowledged by the next packet sent.
+            owed = true;
+        }
+
+        for (int i = 0; i < count; i++) {
+            int id = in.getShort() & 0xffff;
+            int length = in.getShort() & 0xffff;
+            if (length > in.remaining()) {
+                throw new BufferUnderflowException();
+            }
+            int ahead = (id - expectedId) & 0xffff;
+            if (ahead == 0) { //Deliver the message and any it was holding up.
+                ByteBuffer message = in.duplicate();
+                message.limit(in.position() + length);
+                handler.received(this, message, true);
+                expectedId = (expectedId + 1) & 0xffff;
+                byte[] next;
+                while ((next = early[expectedId % WINDOW]) != null) {
+                    early[expectedId % WINDOW] = null;
+                    handler.received(this, ByteBuffer.wrap(next), true);
+                    expectedId = (expectedId + 1) & 0xffff;
+                }
+            } else if (ahead < WINDOW && early[id % WINDOW] == null) { //Hold the message until the ones before it arrive.
+                byte[] data = new byte[length];
+                in.duplicate().get(data);
+                early[id % WINDOW] = data;
+            } //Otherwise the message has already been delivered.
+            in.position(in.position() + length);
+        }
+
+        if ((flags & HAS_UNRELIABLE) != 0) {
+            if (newest) {
+                handler.received(this, in, false);
+            } else { //A newer packet has already been received.
+                stale++;
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Marks the packet 'seq' and the reliable messages it carried as
+     * acknowledged, if it is remembered and was not already.</p>
+     */
+    private void acknowledge(int seq) {
+        int slot = seq % SENT;
+        if (sentSequence[slot] != seq) { //The packet is too old to be remembered.
+            return;
+        }
+        sentSequence[slot] = -1;
+        long sample = System.nanoTime() - sentTime[slot];
+        roundTrip = roundTrip < 0 ? sample : roundTrip - (roundTrip >> 3)
+                + (sample >> 3);
+        Reliable[] carried = sentReliable[slot];
+        if (carried != null) {
+            sentReliable[slot] = null;
+            for (Reliable r : carried) {
+                if (r != null) {
+                    r.acked = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Returns true if sequence 'a' is newer than sequence 'b', allowing for
+     * the sequence numbers wrapping.</p>
+     */
+    private static boolean newer(int a, int b) {
+        int d = (a - b) & 0xffff;
+        return d != 0 && d < 0x8000;
+    }
+
+    /**
+     * <p>
+     * Returns the bytes written to an in memory SerialWriter.</p>
+     */
+    private static ByteBuffer bytes(SerialWriter writer) {
+        ByteBuffer b = writer.buffer().duplicate();
+        if (writer.length() > b.position()) {
+            throw new IllegalArgumentException(
+                    "The SerialWriter has streamed some of it's bytes.");
+        }
+        b.limit(b.position()).position(b.position() - writer.length());
+        return b;
+    }
+
+    /**
+     * <p>
+     * A reliable message waiting to be acknowledged.</p>
+     *
+     * @author Dynisious
+     * @version 0.0.1
+     */
+    private static final class Reliable {
+        private final int id;
+        private final byte[] data;
+        private long due; //When the message may next be sent, by System.nanoTime.
+        private boolean acked = false;
+
+        private Reliable(int nId, byte[] nData, long nDue) {
+            id = nId;
+            data = nData;
+            due = nDue;
+        }
+    }
+}
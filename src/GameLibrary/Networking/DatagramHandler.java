@@ -0,0 +1,29 @@
+package GameLibrary.Networking;
+
+import java.nio.ByteBuffer;
+
+/**
+ * <p>
+ * Receives the messages of a DatagramClient. Methods are called on the
+ * Thread calling DatagramClient.receive.</p>
+ *
+ * @author Dynisious
+ * @version 0.0.1
+ */
+@FunctionalInterface
+public interface DatagramHandler {
+
+    /**
+     * <p>
+     * Called for every message received. Reliable messages arrive once each
+     * in the order they were sent; unreliable messages arrive at most once,
+     * and only if they are newer than every packet received before them.
+     * 'message' may share the DatagramClient's receive buffer and is only
+     * valid until this method returns.</p>
+     *
+     * @param client   The DatagramClient the message was received on.
+     * @param message  The message, from it's position to it's limit.
+     * @param reliable Whether the message was sent reliably.
+     */
+    void received(DatagramClient client, ByteBuffer message, boolean reliable);
+}
@@ -0,0 +1,274 @@
+package GameLibrary.Networking;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * Relays datagrams between a client and a target over loopback, losing and
+ * delaying them to imitate a poor network, so DatagramClients can be tested
+ * on one machine. The target is connected to the relay's address and the
+ * client to the same; datagrams from the target go to whichever client
+ * last sent to the relay.</p>
+ * <p>
+ * Each datagram is lost with the loss probability, otherwise it is
+ * forwarded after the latency plus or minus a random jitter. Jitter larger
+ * than the time between datagrams reorders them. The random choices come
+ * from a seeded Random, so a run can be repeated.</p>
+ *
+ * @author Dynisious
+ * @version 0.0.1
+ */
+public final class DatagramRelay implements Closeable {
+    /**
+     * <p>
+     * The number of DatagramRelays created, used to name their
+     * Threads.</p>
+     */
+    private static final AtomicInteger COUNT = new AtomicInteger();
+
+    /**
+     * <p>
+     * The DatagramChannel datagrams are received and forwarded on.</p>
+     */
+    private final DatagramChannel channel;
+    /**
+     * <p>
+     * The address datagrams from the client are forwarded to.</p>
+     */
+    private final SocketAddress target;
+    /**
+     * <p>
+     * Decides which datagrams are lost and how long the rest are delayed.
+     * Only used by the relay's Thread.</p>
+     */
+    private final Random random;
+    /**
+     * <p>
+     * Forwards datagrams once their delay is up.</p>
+     */
+    private final ScheduledExecutorService timer;
+    /**
+     * <p>
+     * The Thread receiving datagrams.</p>
+     */
+    private final Thread thread;
+    /**
+     * <p>
+     * The address datagrams from the target are forwarded to, once the
+     * client has sent one.</p>
+     */
+    private volatile SocketAddress client = null;
+    private final AtomicLong forwarded = new AtomicLong();
+    private final AtomicLong lost = new AtomicLong();
+
+    /**
+     * <p>
+     * The probability each datagram is lost.</p>
+     */
+    private volatile double loss = 0;
+    public double getLoss() {
+        return loss;
+    }
+    /**
+     * <p>
+     * Sets the probability each datagram is lost and returns the previous
+     * probability.</p>
+     *
+     * @param val The new loss probability, from 0 to 1.
+     *
+     * @return The previous loss probability.
+     */
+    public double setLoss(double val) {
+        double l = loss;
+        loss = val;
+        return l;
+    }
+
+    /**
+     * <p>
+     * The time each datagram is delayed in nanoseconds.</p>
+     */
+    private volatile long latency = 0;
+    public long getLatency(TimeUnit unit) {
+        return unit.convert(latency, TimeUnit.NANOSECONDS);
+    }
+    /**
+     * <p>
+     * Sets the time each datagram is delayed and returns the previous
+     * latency.</p>
+     *
+     * @param time The new latency.
+     * @param unit The TimeUnit of 'time', and of the returned latency.
+     *
+     * @return The previous latency.
+     */
+    public long setLatency(long time, TimeUnit unit) {
+        long l = latency;
+        latency = unit.toNanos(time);
+        return unit.convert(l, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * <p>
+     * The most the delay of a datagram varies from the latency in
+     * nanoseconds.</p>
+     */
+    private volatile long jitter = 0;
+    public long getJitter(TimeUnit unit) {
+        return unit.convert(jitter, TimeUnit.NANOSECONDS);
+    }
+    /**
+     * <p>
+     * Sets the most the delay of a datagram varies from the latency and
+     * returns the previous jitter.</p>
+     *
+     * @param time The new jitter.
+     * @param unit The TimeUnit of 'time', and of the returned jitter.
+     *
+     * @return The previous jitter.
+     */
+    public long setJitter(long time, TimeUnit unit) {
+        long j = jitter;
+        jitter = unit.toNanos(time);
+        return unit.convert(j, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * <p>
+     * Creates a new DatagramRelay on a loopback port relaying to 'target',
+     * with a random seed.</p>
+     *
+     * @param target The address datagrams from the client are forwarded to.
+     *
+     * @throws java.io.IOException Thrown if the DatagramChannel could not be
+     *                             bound.
+     */
+    public DatagramRelay(SocketAddress target) throws IOException {
+        this(target, System.nanoTime());
+    }
+
+    /**
+     * <p>
+     * Creates a new DatagramRelay on a loopback port relaying to 'target'.
+     * No datagrams are lost or delayed until the loss and latency are
+     * set.</p>
+     *
+     * @param nTarget The address datagrams from the client are forwarded
+     *                to.
+     * @param seed    The seed of the Random deciding loss and jitter.
+     *
+     * @throws java.io.IOException Thrown if the DatagramChannel could not be
+     *                             bound.
+     */
+    public DatagramRelay(SocketAddress nTarget, long seed) throws IOException {
+        target = nTarget;
+        random = new Random(seed);
+        channel = DatagramChannel.open();
+        try {
+            channel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                    0));
+        } catch (IOException ex) {
+            channel.close();
+            throw ex;
+        }
+        String name = "DatagramRelay-" + COUNT.getAndIncrement();
+        timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, name + "-timer");
+            t.setDaemon(true);
+            return t;
+        });
+        thread = new Thread(this::run, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public SocketAddress getLocalAddress() throws IOException {
+        return channel.getLocalAddress();
+    }
+
+    public long getForwarded() {
+        return forwarded.get();
+    }
+
+    public long getLost() {
+        return lost.get();
+    }
+
+    /**
+     * <p>
+     * Stops relaying, discarding any datagrams still being delayed.</p>
+     */
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException ex) {
+        }
+        timer.shutdownNow();
+        if (Thread.currentThread() != thread) {
+            try {
+                thread.join();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void run() {
+        ByteBuffer buff = ByteBuffer.allocate(65536);
+        try {
+            while (true) {
+                buff.clear();
+                SocketAddress from = channel.receive(buff);
+                SocketAddress to;
+                if (from.equals(target)) {
+                    to = client;
+                } else {
+                    to = target;
+                    client = from;
+                }
+                if (to == null) { //The target sent before the client.
+                    continue;
+                } else if (random.nextDouble() < loss) {
+                    lost.incrementAndGet();
+                    continue;
+                }
+                buff.flip();
+                ByteBuffer datagram = ByteBuffer.allocate(buff.remaining());
+                datagram.put(buff).flip();
+                long j = jitter;
+                long delay = Math.max(0, latency + (j == 0 ? 0 : (long) ((random.
+                        nextDouble() * 2 - 1) * j)));
+                if (delay == 0) {
+                    forward(datagram, to);
+                } else {
+                    timer.schedule(() -> forward(datagram, to), delay,
+                            TimeUnit.NANOSECONDS);
+                }
+            }
+        } catch (IOException ex) { //The DatagramRelay was closed.
+        } catch (RejectedExecutionException ex) { //The timer was shut down while closing.
+        }
+    }
+
+    private void forward(ByteBuffer datagram, SocketAddress to) {
+        try {
+            channel.send(datagram, to);
+            forwarded.incrementAndGet();
+        } catch (IOException ex) { //The datagram is lost.
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package GameLibrary.Networking;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * Decides when the sends batched by a NetworkClient are written to it's
+ * Socket. Batched headers and frames are copied into one buffer and written
+ * together, so many small messages cost a single write. A batch is always
+ * written when it's buffer is full or NetworkClient.flush is called, and
+ * otherwise when either the batch reaches the size threshold or the oldest
+ * batched byte has waited for the maximum latency.</p>
+ *
+ * @author Dynisious
+ * @version 0.0.1
+ */
+public final class FlushPolicy {
+
+    /**
+     * <p>
+     * Every send is written before it returns, the header and frame of a
+     * message together. With asynchronous sends, every message queued while
+     * the writer Thread was writing is written in one batch.</p>
+     */
+    public static final FlushPolicy IMMEDIATE = new FlushPolicy(0, -1);
+    /**
+     * <p>
+     * Sends are only written when the buffer is full or
+     * NetworkClient.flush is called, such as at the end of every tick.</p>
+     */
+    public static final FlushPolicy MANUAL = new FlushPolicy(Integer.MAX_VALUE,
+            -1);
+
+    /**
+     * <p>
+     * Returns a FlushPolicy which writes the batch once it holds 'bytes'
+     * bytes.</p>
+     *
+     * @param bytes The size threshold in bytes.
+     *
+     * @return The FlushPolicy.
+     */
+    public static FlushPolicy size(int bytes) {
+        return new FlushPolicy(bytes, -1);
+    }
+
+    /**
+     * <p>
+     * Returns a FlushPolicy which writes the batch at most 'time' after it's
+     * first byte was sent.</p>
+     *
+     * @param time The maximum latency.
+     * @param unit The TimeUnit of 'time'.
+     *
+     * @return The FlushPolicy.
+     */
+    public static FlushPolicy latency(long time, TimeUnit unit) {
+        return new FlushPolicy(Integer.MAX_VALUE, unit.toNanos(time));
+    }
+
+    /**
+     * <p>
+     * Returns a FlushPolicy which writes the batch once it holds 'bytes'
+     * bytes or at most 'time' after it's first byte was sent, whichever
+     * comes first.</p>
+     *
+     * @param bytes The size threshold in bytes.
+     * @param time  The maximum latency.
+     * @param unit  The TimeUnit of 'time'.
+     *
+     * @return The FlushPolicy.
+     */
+    public static FlushPolicy of(int bytes, long time, TimeUnit unit) {
+        return new FlushPolicy(bytes, unit.toNanos(time));
+    }
+
+    /**
+     * <p>
+     * The number of batched bytes which are written at once.</p>
+     */
+    final int size;
+    /**
+     * <p>
+     * The longest a batched byte waits to be written in nanoseconds, or -1
+     * to wait until the batch is flushed.</p>
+     */
+    final long latency;
+
+    private FlushPolicy(int nSize, long nLatency) {
+        if (nSize < 0) {
+            throw new IllegalArgumentException("The size threshold must not be negative.");
+        }
+        size = nSize;
+        latency = nLatency < 0 ? -1 : nLatency;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * <p>
+     * Returns the maximum latency in 'unit', or -1 if batches wait to be
+     * flushed.</p>
+     *
+     * @param unit The TimeUnit to return the latency in.
+     *
+     * @return The maximum latency.
+     */
+    public long getLatency(TimeUnit unit) {
+        return latency < 0 ? -1 : unit.convert(latency, TimeUnit.NANOSECONDS);
+    }
+}
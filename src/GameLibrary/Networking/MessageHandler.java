@@ -0,0 +1,51 @@
+package GameLibrary.Networking;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * <p>
+ * Receives the events of the ChannelClients on a NetworkLoop. Every method
+ * is called on the NetworkLoop's Thread, so they must not block.</p>
+ *
+ * @author Dynisious
+ * @version 0.0.1
+ */
+@FunctionalInterface
+public interface MessageHandler {
+
+    /**
+     * <p>
+     * Called when a complete message has been received: a header sent with
+     * send(int) followed by a frame sent with send(byte[]). 'message' shares
+     * the ChannelClient's receive buffer and is only valid until this method
+     * returns.</p>
+     *
+     * @param client  The ChannelClient the message was received on.
+     * @param header  The header of the message.
+     * @param message The frame of the message, from position 0 to it's limit.
+     */
+    void received(ChannelClient client, int header, ByteBuffer message);
+
+    /**
+     * <p>
+     * Called when a ChannelClient has been connected or accepted and
+     * registered with a NetworkLoop, before any message is received on
+     * it.</p>
+     *
+     * @param client The connected ChannelClient.
+     */
+    default void connected(ChannelClient client) {
+    }
+
+    /**
+     * <p>
+     * Called once when a ChannelClient has been closed.</p>
+     *
+     * @param client The closed ChannelClient.
+     * @param cause  The exception which closed 'client', or null if it was
+     *               closed by either peer.
+     */
+    default void closed(ChannelClient client, IOException cause) {
+    }
+}
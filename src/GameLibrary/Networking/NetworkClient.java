@@ -1,20 +1,105 @@
 package GameLibrary.Networking;
 
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ProtocolException;
 import java.net.Socket;
+import java.net.SocketException;
 import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * <p>
- * An Object used to send/receive byte[]s using the network. All Sends and
- * receives through this NetworkClient are synchronous and require an
- * identifying message header, This allows multiple Threads to safely send and
- * receive on this NetworkClient.</p>
+ * An Object used to send/receive byte[]s using the network. Every message
+ * has an identifying header and multiple Threads may safely send and receive
+ * on this NetworkClient at once. Receives block until the whole message has
+ * arrived. Sends return once the message is batched, so it's bytes may not
+ * have reached the Socket yet; the batch is written when the FlushPolicy
+ * says or when flush is called.</p>
+ * <p>
+ * Sends and receives are guarded by separate locks, so a Thread blocked
+ * waiting to receive does not stop other Threads sending. With asynchronous
+ * sends enabled, sends are added to a lock-free queue which a single writer
+ * Thread drains and batches, so sending Threads never wait on the
+ * socket.</p>
+ * <p>
+ * The locks are ReentrantLocks rather than monitors, so a virtual Thread
+ * blocked on the Socket while holding one does not pin it's carrier Thread.
+ * A NetworkServer runs a blocking session per connection this way.</p>
+ * <p>
+ * Messages are sent as frames of a 4 byte length followed by the message.
+ * Received bytes are buffered and every receive reads until it's header or
+ * frame is complete, however the bytes arrive. A frame is received into a
+ * buffer which is reused for the next frame, unless it had to grow past
+ * 1MiB, and frames longer than the maximum frame size are rejected before
+ * they are read.</p>
+ * <p>
+ * Sends are copied into a batch buffer and written when the FlushPolicy
+ * says, so a header and it's frame, or every message of a tick, go out in
+ * one write. A frame too large for the buffer is written together with the
+ * batch in one gathering write when the Socket has a SocketChannel.</p>
  *
  * @author Dynisious
- * @version 0.0.2
+ * @version 0.0.3
  */
 public class NetworkClient {
+    /**
+     * <p>
+     * The default maximum number of bytes in a frame, 16MiB.</p>
+     */
+    public static final int DEFAULT_MAX_FRAME_SIZE = 16 << 20;
+    /**
+     * <p>
+     * The size of the buffers bytes are sent and received through.</p>
+     */
+    private static final int BUFFER_SIZE = 8192;
+    /**
+     * <p>
+     * The largest receive buffer kept for the next frame; a buffer grown
+     * beyond this for a large frame is dropped once the frame is
+     * received.</p>
+     */
+    private static final int MAX_RETAINED = 1 << 20;
+    /**
+     * <p>
+     * The size of the buffer sends are batched in.</p>
+     */
+    private static final int BATCH_SIZE = 65536;
+    /**
+     * <p>
+     * Marks a flush in the queue of the writer Thread.</p>
+     */
+    private static final byte[] FLUSH = new byte[0];
+    /**
+     * <p>
+     * Signals the flush of batches whose maximum latency has passed. It
+     * never writes to a Socket itself, so one peer which stops reading can't
+     * delay the flushes of every other NetworkClient.</p>
+     */
+    private static final ScheduledExecutorService TIMER = Executors.
+            newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "NetworkClient-timer");
+                t.setDaemon(true);
+                return t;
+            });
+    /**
+     * <p>
+     * Runs the flushes signalled by TIMER, each on it's own Thread; virtual
+     * Threads where the JVM has them.</p>
+     */
+    private static final ExecutorService FLUSHES = NetworkServer.
+            newSessionExecutor();
+
     /**
      * <p>
      * The socket Object which this NetworkClient will use to send and receive
@@ -27,7 +112,9 @@ public class NetworkClient {
     /**
      * <p>
      * Sets the Socket for this NetworkClient and returns the previous
-     * Socket.</p>
+     * Socket. Any bytes buffered from the previous Socket are discarded,
+     * along with sends batched or queued but not yet written to it, and any
+     * failure to write them.</p>
      *
      * @param val The new Socket that this NetworkClient will send and receive
      *            across.
@@ -35,11 +122,208 @@ public class NetworkClient {
      * @return The previously set Socket.
      */
     public Socket setSocket(Socket val) {
-        Socket s = socket;
-        socket = val;
+        Socket s;
+        asyncLock.lock();
+        try {
+            Writer w = writer.getAndSet(null); //A new writer Thread is started for the new Socket.
+            sendLock.lock();
+            try {
+                s = socket;
+                socket = val;
+                outPos = 0;
+                timed = false; //Cancel any pending timed flush.
+                failure = null;
+                if (w != null) {
+                    w.discard();
+                    writer.set(new Writer());
+                }
+            } finally {
+                sendLock.unlock();
+            }
+        } finally {
+            asyncLock.unlock();
+        }
+        receiveLock.lock();
+        try {
+            inPos = inEnd = 0;
+            if (in.length > MAX_RETAINED) {
+                in = new byte[BUFFER_SIZE];
+            }
+        } finally {
+            receiveLock.unlock();
+        }
         return s;
     }
 
+    /**
+     * <p>
+     * The writer Thread sends are queued for, if sends are asynchronous. A
+     * writer Thread which fails to write removes itself, so later sends are
+     * synchronous and throw the failure until the Socket is replaced.</p>
+     */
+    private final AtomicReference<Writer> writer = new AtomicReference<>();
+    public boolean getAsyncSend() {
+        return writer.get() != null;
+    }
+    /**
+     * <p>
+     * Sets whether sends are asynchronous and returns the previous setting.
+     * Asynchronous sends copy their bytes onto a queue and return at once; a
+     * writer Thread sends them in the order they were queued. If a queued
+     * send fails the exception is thrown by the next send and sends are
+     * synchronous from then on. Turning asynchronous sends off waits for the
+     * queue to be sent, and should not be done while other Threads are
+     * sending.</p>
+     *
+     * @param val Whether sends are asynchronous.
+     *
+     * @return Whether sends were previously asynchronous.
+     */
+    public boolean setAsyncSend(boolean val) {
+        asyncLock.lock();
+        try {
+            Writer w = writer.get();
+            if (val && w == null) {
+                writer.set(new Writer());
+            } else if (!val && w != null) {
+                writer.set(null);
+                w.stop();
+            }
+            return w != null;
+        } finally {
+            asyncLock.unlock();
+        }
+    }
+
+    /**
+     * <p>
+     * The FlushPolicy deciding when batched sends are written.</p>
+     */
+    private volatile FlushPolicy policy = FlushPolicy.IMMEDIATE;
+    public FlushPolicy getFlushPolicy() {
+        return policy;
+    }
+    /**
+     * <p>
+     * Sets the FlushPolicy deciding when batched sends are written and
+     * returns the previous FlushPolicy. Sends already batched are written
+     * under the new policy by the next send or flush.</p>
+     *
+     * @param val The new FlushPolicy.
+     *
+     * @return The previous FlushPolicy.
+     */
+    public FlushPolicy setFlushPolicy(FlushPolicy val) {
+        FlushPolicy p = policy;
+        policy = val;
+        return p;
+    }
+
+    public boolean getTcpNoDelay() throws SocketException {
+        return socket.getTcpNoDelay();
+    }
+    /**
+     * <p>
+     * Sets whether Nagle's algorithm is disabled on the Socket and returns
+     * the previous setting. With a FlushPolicy batching sends there is
+     * little reason to let the Socket delay them further.</p>
+     *
+     * @param val True to send every write straight away.
+     *
+     * @return Whether Nagle's algorithm was previously disabled.
+     *
+     * @throws java.net.SocketException Thrown if the option could not be
+     *                                  set.
+     */
+    public boolean setTcpNoDelay(boolean val) throws SocketException {
+        boolean d = socket.getTcpNoDelay();
+        socket.setTcpNoDelay(val);
+        return d;
+    }
+
+    /**
+     * <p>
+     * The lock held while sending, so that the bytes of each send are not
+     * mixed with another's.</p>
+     */
+    private final ReentrantLock sendLock = new ReentrantLock();
+    /**
+     * <p>
+     * The lock held while receiving, so that each receive reads a whole
+     * header or frame.</p>
+     */
+    private final ReentrantLock receiveLock = new ReentrantLock();
+    /**
+     * <p>
+     * The lock held while asynchronous sends are turned on or off.</p>
+     */
+    private final ReentrantLock asyncLock = new ReentrantLock();
+
+    /**
+     * <p>
+     * The largest frame this NetworkClient will send or receive.</p>
+     */
+    private volatile int maxFrameSize = DEFAULT_MAX_FRAME_SIZE;
+    public int getMaxFrameSize() {
+        return maxFrameSize;
+    }
+    /**
+     * <p>
+     * Sets the largest frame this NetworkClient will send or receive and
+     * returns the previous maximum.</p>
+     *
+     * @param val The new maximum frame size in bytes.
+     *
+     * @return The previous maximum frame size.
+     */
+    public int setMaxFrameSize(int val) {
+        int m = maxFrameSize;
+        maxFrameSize = val;
+        return m;
+    }
+
+    /**
+     * <p>
+     * The buffer received bytes are read into, reused for every frame.</p>
+     */
+    private byte[] in = new byte[BUFFER_SIZE];
+    /**
+     * <p>
+     * The position of the first unread byte in 'in'.</p>
+     */
+    private int inPos = 0;
+    /**
+     * <p>
+     * The position after the last received byte in 'in'.</p>
+     */
+    private int inEnd = 0;
+    /**
+     * <p>
+     * The buffer sends are batched in until they are written.</p>
+     */
+    private final byte[] out = new byte[BATCH_SIZE];
+    /**
+     * <p>
+     * The number of batched bytes in 'out'.</p>
+     */
+    private int outPos = 0;
+    /**
+     * <p>
+     * When the first byte of the batch was added, by System.nanoTime.</p>
+     */
+    private long batched = 0;
+    /**
+     * <p>
+     * Whether TIMER will signal the batch to be flushed.</p>
+     */
+    private boolean timed = false;
+    /**
+     * <p>
+     * Why a batch flushed after it's latency or by the writer Thread failed
+     * to be written, if one did. Cleared when the Socket is replaced.</p>
+     */
+    private volatile IOException failure = null;
+
     /**
      * <p>
      * Creates a new NetworkClient with no Socket
@@ -69,15 +353,26 @@ public class NetworkClient {
      *                             the Socket.
      */
     public void send(int header) throws IOException {
-        synchronized (socket) {
-            socket.getOutputStream().write(
-                    ByteBuffer.allocate(4).putInt(header).array()); //Send the int.
+        Writer w = writer.get();
+        if (w != null) { //Queue the int for the writer Thread.
+            byte[] b = new byte[Integer.BYTES];
+            putInt(b, 0, header);
+            w.enqueue(b);
+            return;
+        }
+        sendLock.lock();
+        try {
+            checkFailure();
+            appendInt(header);
+            sent();
+        } finally {
+            sendLock.unlock();
         }
     }
 
     /**
      * <p>
-     * Sends bytes on the Socket for this NetworkClient.</p>
+     * Sends bytes as a frame on the Socket for this NetworkClient.</p>
      *
      * @param message The bytes to send.
      *
@@ -85,8 +380,209 @@ public class NetworkClient {
      *                             the Socket.
      */
     public void send(byte[] message) throws IOException {
-        synchronized (socket) {
-            socket.getOutputStream().write(message); //Send the bytes.
+        send(message, 0, message.length);
+    }
+
+    /**
+     * <p>
+     * Sends 'len' bytes from 'message' starting at 'off' as a frame on the
+     * Socket for this NetworkClient.</p>
+     *
+     * @param message The bytes to send.
+     * @param off     The position of the first byte to send.
+     * @param len     The number of bytes to send.
+     *
+     * @throws java.io.IOException Thrown if there was an error sending bytes on
+     *                             the Socket or the frame is longer than the
+     *                             maximum frame size.
+     */
+    public void send(byte[] message, int off, int len) throws IOException {
+        check(len);
+        Writer w = writer.get();
+        if (w != null) { //Queue the frame for the writer Thread.
+            byte[] b = new byte[Integer.BYTES + len];
+            putInt(b, 0, len);
+            System.arraycopy(message, off, b, Integer.BYTES, len);
+            w.enqueue(b);
+            return;
+        }
+        sendLock.lock();
+        try {
+            checkFailure();
+            appendInt(len);
+            append(message, off, len);
+            sent();
+        } finally {
+            sendLock.unlock();
+        }
+    }
+
+    /**
+     * <p>
+     * Sends a header followed by 'len' bytes from 'message' starting at 'off'
+     * as a frame, the same as send(header) followed by send(message, off,
+     * len) but always written together.</p>
+     *
+     * @param header  The header to send.
+     * @param message The bytes to send.
+     * @param off     The position of the first byte to send.
+     * @param len     The number of bytes to send.
+     *
+     * @throws java.io.IOException Thrown if there was an error sending bytes on
+     *                             the Socket or the frame is longer than the
+     *                             maximum frame size.
+     */
+    public void send(int header, byte[] message, int off, int len) throws IOException {
+        check(len);
+        Writer w = writer.get();
+        if (w != null) { //Queue the header and frame for the writer Thread.
+            byte[] b = new byte[2 * Integer.BYTES + len];
+            putInt(b, 0, header);
+            putInt(b, Integer.BYTES, len);
+            System.arraycopy(message, off, b, 2 * Integer.BYTES, len);
+            w.enqueue(b);
+            return;
+        }
+        sendLock.lock();
+        try {
+            checkFailure();
+            appendInt(header);
+            appendInt(len);
+            append(message, off, len);
+            sent();
+        } finally {
+            sendLock.unlock();
+        }
+    }
+
+    /**
+     * <p>
+     * Writes every batched send to the Socket. With asynchronous sends the
+     * writer Thread writes them once it has sent everything queued before
+     * this call.</p>
+     *
+     * @throws java.io.IOException Thrown if there was an error sending bytes on
+     *                             the Socket.
+     */
+    public void flush() throws IOException {
+        Writer w = writer.get();
+        if (w != null) {
+            w.enqueue(FLUSH);
+            return;
+        }
+        sendLock.lock();
+        try {
+            checkFailure();
+            flushBatch();
+        } finally {
+            sendLock.unlock();
+        }
+    }
+
+    private void check(int len) throws ProtocolException {
+        if (len > maxFrameSize) {
+            throw new ProtocolException("A frame of " + len
+                    + " bytes is longer than the maximum of " + maxFrameSize
+                    + ".");
+        }
+    }
+
+    /**
+     * <p>
+     * Throws the exception a batch failed to be written with, if one did
+     * since it was batched.</p>
+     */
+    private void checkFailure() throws IOException {
+        if (failure != null) {
+            throw new IOException("A batched send failed.", failure);
+        }
+    }
+
+    /**
+     * <p>
+     * Adds an int to the batch. Called holding sendLock.</p>
+     */
+    private void appendInt(int val) throws IOException {
+        if (out.length - outPos < Integer.BYTES) {
+            flushBatch();
+        }
+        if (outPos == 0) {
+            batched = System.nanoTime();
+        }
+        putInt(out, outPos, val);
+        outPos += Integer.BYTES;
+    }
+
+    /**
+     * <p>
+     * Adds bytes to the batch, writing them together with the batch in a
+     * gathering write if they don't fit. Called holding sendLock.</p>
+     */
+    private void append(byte[] b, int off, int len) throws IOException {
+        if (len <= out.length - outPos) { //Copy the bytes into the batch.
+            System.arraycopy(b, off, out, outPos, len);
+            outPos += len;
+            return;
+        }
+        SocketChannel channel = socket.getChannel();
+        if (channel != null) { //Write the batch and bytes in one call.
+            ByteBuffer[] buffs = {ByteBuffer.wrap(out, 0, outPos), ByteBuffer.
+                wrap(b, off, len)};
+            while (buffs[1].hasRemaining()) {
+                channel.write(buffs);
+            }
+        } else {
+            OutputStream stream = socket.getOutputStream();
+            stream.write(out, 0, outPos);
+            stream.write(b, off, len);
+        }
+        outPos = 0;
+    }
+
+    /**
+     * <p>
+     * Writes the batch if the FlushPolicy says it is due, otherwise makes
+     * sure it will be written once it's latency is up. Called holding
+     * sendLock after each synchronous send.</p>
+     */
+    private void sent() throws IOException {
+        FlushPolicy p = policy;
+        if (outPos >= p.size) {
+            flushBatch();
+        } else if (outPos > 0 && p.latency >= 0 && !timed) { //Flush the batch when it is due.
+            timed = true;
+            TIMER.schedule(() -> FLUSHES.execute(this::timedFlush), p.latency
+                    - (System.nanoTime() - batched), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * <p>
+     * Writes the batch once it's latency is up, on a Thread of FLUSHES.</p>
+     */
+    private void timedFlush() {
+        sendLock.lock();
+        try {
+            if (timed) { //setSocket has not cancelled the flush.
+                timed = false;
+                flushBatch();
+            }
+        } catch (IOException ex) {
+            failure = ex;
+        } finally {
+            sendLock.unlock();
+        }
+    }
+
+    /**
+     * <p>
+     * Writes the batch to the Socket. Called holding sendLock.</p>
+     */
+    private void flushBatch() throws IOException {
+        if (outPos > 0) {
+            int n = outPos;
+            outPos = 0; //The batch is discarded even if writing it fails.
+            socket.getOutputStream().write(out, 0, n);
         }
     }
 
@@ -97,13 +593,19 @@ public class NetworkClient {
      * @return An int received on the Socket.
      *
      * @throws IOException Thrown if there was an error receiving on the Socket.
+     * @throws ReceiveException Thrown if the Socket was closed before the int
+     *                          was received.
      */
-    public int receiveHeader() throws IOException {
-        ByteBuffer buff = ByteBuffer.allocate(4);
-        synchronized (socket) {
-            socket.getInputStream().read(buff.array());
+    public int receiveHeader() throws IOException, ReceiveException {
+        receiveLock.lock();
+        try {
+            fill(Integer.BYTES);
+            int header = getInt(in, inPos);
+            inPos += Integer.BYTES;
+            return header;
+        } finally {
+            receiveLock.unlock();
         }
-        return buff.getInt();
     }
 
     /**
@@ -114,14 +616,210 @@ public class NetworkClient {
      *
      * @throws IOException Thrown if there was an error receiving bytes on the
      *                     Socket.
+     * @throws ReceiveException Thrown if the Socket was closed before the
+     *                          whole frame was received.
+     */
+    public byte[] receive() throws IOException, ReceiveException {
+        receiveLock.lock();
+        try {
+            ByteBuffer frame = receiveFrame();
+            byte[] buff = new byte[frame.remaining()];
+            frame.get(buff);
+            return buff;
+        } finally {
+            receiveLock.unlock();
+        }
+    }
+
+    /**
+     * <p>
+     * Receives a frame on the Socket for this NetworkClient without copying
+     * it. The returned ByteBuffer shares this NetworkClient's receive buffer
+     * and is only valid until the next receive.</p>
+     *
+     * @return The received frame, from position 0 to it's limit.
+     *
+     * @throws IOException Thrown if there was an error receiving bytes on the
+     *                     Socket or the frame is longer than the maximum
+     *                     frame size.
+     * @throws ReceiveException Thrown if the Socket was closed before the
+     *                          whole frame was received.
+     */
+    public ByteBuffer receiveFrame() throws IOException, ReceiveException {
+        receiveLock.lock();
+        try {
+            fill(Integer.BYTES);
+            int length = getInt(in, inPos);
+            if (length < 0 || length > maxFrameSize) { //The frame can't be received.
+                throw new ProtocolException("A frame of " + length
+                        + " bytes is longer than the maximum of "
+                        + maxFrameSize + ".");
+            }
+            inPos += Integer.BYTES;
+            fill(length);
+            ByteBuffer frame = ByteBuffer.wrap(in, inPos, length).slice();
+            inPos += length;
+            return frame;
+        } finally {
+            receiveLock.unlock();
+        }
+    }
+
+    /**
+     * <p>
+     * Reads from the Socket until at least 'n' bytes are buffered, moving
+     * and growing the buffer as needed. A buffer grown past MAX_RETAINED for
+     * a large frame is replaced by a smaller one once that frame has been
+     * received.</p>
      */
-    public byte[] receive() throws IOException {
-        byte[] buff = new byte[4];
-        synchronized (socket) {
-            socket.getInputStream().read(buff);
-            buff = new byte[ByteBuffer.wrap(buff).getInt()];
-            socket.getInputStream().read(buff);
+    private void fill(int n) throws IOException, ReceiveException {
+        if (inEnd - inPos >= n) { //The bytes have already been received.
+            return;
+        }
+        int unread = inEnd - inPos;
+        int size = in.length; //The size of buffer needed.
+        if (n > size) { //The buffer is too small for the bytes.
+            size = Math.max(n, (int) Math.min(size * 2L, maxFrameSize));
+        } else if (size > MAX_RETAINED && Math.max(n, unread) <= MAX_RETAINED) { //The large frame has been received.
+            size = Math.max(BUFFER_SIZE, Math.max(n, unread));
+        }
+        if (size != in.length || in.length - inPos < n) { //There is no room for the bytes after inPos.
+            byte[] dst = size == in.length ? in : new byte[size];
+            System.arraycopy(in, inPos, dst, 0, unread);
+            inEnd -= inPos;
+            inPos = 0;
+            in = dst;
+        }
+        InputStream stream = socket.getInputStream();
+        while (inEnd - inPos < n) { //Read until the bytes have arrived.
+            int read = stream.read(in, inEnd, in.length - inEnd);
+            if (read == -1) { //The Socket was closed part way through.
+                throw new ReceiveException(new EOFException(
+                        "The Socket was closed."), inEnd - inPos, n);
+            }
+            inEnd += read;
         }
-        return buff;
+    }
+
+    /**
+     * <p>
+     * The Thread which sends the bytes queued by asynchronous sends,
+     * batching them as the FlushPolicy allows.</p>
+     *
+     * @author Dynisious
+     * @version 0.0.1
+     */
+    private final class Writer implements Runnable {
+        private final ConcurrentLinkedQueue<byte[]> queue = new ConcurrentLinkedQueue<>(); //The bytes waiting to be sent.
+        private final Thread thread;
+        private volatile boolean running = true; //False once the queue should be drained and the Thread stopped.
+        private volatile boolean waiting = false; //Whether the Thread may be parked waiting for bytes.
+        private volatile boolean discarded = false; //True once the Socket has been replaced and nothing more should be sent.
+
+        private Writer() {
+            thread = new Thread(this, "NetworkClient-writer");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        private void enqueue(byte[] b) throws IOException {
+            checkFailure();
+            queue.add(b);
+            if (waiting) { //Wake the Thread.
+                LockSupport.unpark(thread);
+            }
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                FlushPolicy p = policy;
+                byte[] b = queue.poll();
+                long wait; //How long the batch can wait, -1 to wait for more bytes.
+                sendLock.lock();
+                try {
+                    if (discarded) { //The queue was meant for the previous Socket.
+                        return;
+                    } else if (b == FLUSH) {
+                        flushBatch();
+                        continue;
+                    } else if (b != null) { //Batch the bytes.
+                        if (outPos == 0) {
+                            batched = System.nanoTime();
+                        }
+                        append(b, 0, b.length);
+                        if (outPos >= p.size && p.size > 0) {
+                            flushBatch();
+                        }
+                        continue;
+                    }
+                    wait = outPos == 0 || p.latency < 0 ? -1 : p.latency
+                            - (System.nanoTime() - batched);
+                    if (outPos > 0 && (p.size == 0 || !running || (wait
+                            != -1 && wait <= 0))) { //Everything queued has been batched.
+                        flushBatch();
+                        wait = -1;
+                    }
+                } catch (IOException ex) { //The Socket failed, so this Thread stops.
+                    failure = ex; //Set holding sendLock so setSocket clears it.
+                    queue.clear();
+                    writer.compareAndSet(this, null);
+                    return;
+                } finally {
+                    sendLock.unlock();
+                }
+                if (!running) { //Everything has been sent.
+                    return;
+                }
+                waiting = true;
+                if (queue.isEmpty() && running) { //Checked after waiting is set so a send can't be missed.
+                    if (wait == -1) {
+                        LockSupport.park(this);
+                    } else {
+                        LockSupport.parkNanos(this, wait);
+                    }
+                }
+                waiting = false;
+            }
+        }
+
+        /**
+         * <p>
+         * Stops the Thread without sending anything still queued. Called
+         * holding sendLock, so the Thread stops the next time it takes
+         * it.</p>
+         */
+        private void discard() {
+            discarded = true;
+            running = false;
+            queue.clear();
+            LockSupport.unpark(thread);
+        }
+
+        /**
+         * <p>
+         * Waits for the queued bytes to be sent and stops the Thread.</p>
+         */
+        private void stop() {
+            running = false;
+            LockSupport.unpark(thread);
+            try {
+                thread.join();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static void putInt(byte[] buff, int pos, int val) {
+        buff[pos] = (byte) (val >>> 24);
+        buff[pos + 1] = (byte) (val >>> 16);
+        buff[pos + 2] = (byte) (val >>> 8);
+        buff[pos + 3] = (byte) val;
+    }
+
+    private static int getInt(byte[] buff, int pos) {
+        return (buff[pos] << 24) | ((buff[pos + 1] & 0xff) << 16)
+                | ((buff[pos + 2] & 0xff) << 8) | (buff[pos + 3] & 0xff);
     }
 }
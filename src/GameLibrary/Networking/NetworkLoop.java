@@ -0,0 +1,353 @@
+package GameLibrary.Networking;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ * An event loop which sends and receives on any number of non-blocking
+ * ChannelClients from a single Thread using a Selector. A server can listen
+ * on one NetworkLoop and spread the connections it accepts across several
+ * others, so a few Threads serve thousands of mostly idle
+ * connections.</p>
+ * <p>
+ * Every MessageHandler callback is made on the NetworkLoop's Thread. All
+ * other methods may be called from any Thread.</p>
+ *
+ * @author Dynisious
+ * @version 0.0.1
+ */
+public final class NetworkLoop implements Closeable {
+    /**
+     * <p>
+     * The number of NetworkLoops created, used to name their Threads.</p>
+     */
+    private static final AtomicInteger COUNT = new AtomicInteger();
+
+    /**
+     * <p>
+     * The Selector every channel of this NetworkLoop is registered
+     * with.</p>
+     */
+    private final Selector selector;
+    /**
+     * <p>
+     * The Thread running this NetworkLoop.</p>
+     */
+    private final Thread thread;
+    /**
+     * <p>
+     * The work other Threads have passed to this NetworkLoop's Thread.</p>
+     */
+    private final ConcurrentLinkedQueue<Task> tasks = new ConcurrentLinkedQueue<>();
+    /**
+     * <p>
+     * Whether this NetworkLoop is running.</p>
+     */
+    private volatile boolean running = true;
+
+    /**
+     * <p>
+     * Creates a new NetworkLoop and starts it's daemon Thread.</p>
+     *
+     * @throws java.io.IOException Thrown if the Selector could not be
+     *                             opened.
+     */
+    public NetworkLoop() throws IOException {
+        selector = Selector.open();
+        thread = new Thread(this::run, "NetworkLoop-" + COUNT.
+                getAndIncrement());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * <p>
+     * Connects to 'address' and registers the connection with this
+     * NetworkLoop. The connection is made on the calling Thread.</p>
+     *
+     * @param address The address to connect to.
+     * @param handler The MessageHandler of the connection.
+     *
+     * @return The connected ChannelClient.
+     *
+     * @throws java.io.IOException Thrown if the connection could not be made
+     *                             or this NetworkLoop is closed.
+     */
+    public ChannelClient connect(SocketAddress address, MessageHandler handler) throws IOException {
+        return register(SocketChannel.open(address), handler);
+    }
+
+    /**
+     * <p>
+     * Registers the connected 'channel' with this NetworkLoop, making it
+     * non-blocking.</p>
+     *
+     * @param channel The connected SocketChannel.
+     * @param handler The MessageHandler of the connection.
+     *
+     * @return The ChannelClient of 'channel'.
+     *
+     * @throws java.io.IOException Thrown if this NetworkLoop is closed.
+     */
+    public ChannelClient register(SocketChannel channel, MessageHandler handler) throws IOException {
+        channel.configureBlocking(false);
+        ChannelClient client = new ChannelClient(this, channel, handler);
+        execute(() -> {
+            client.key = channel.register(selector, SelectionKey.OP_READ,
+                    client);
+            handler.connected(client);
+            write(client); //Write anything sent before it was registered.
+        }, client);
+        return client;
+    }
+
+    /**
+     * <p>
+     * Listens for connections on 'address', accepting them on this
+     * NetworkLoop and registering each with the next of 'workers' in
+     * turn.</p>
+     *
+     * @param address The address to listen on.
+     * @param backlog The number of connections which may wait to be
+     *                accepted.
+     * @param handler The MessageHandler of every accepted connection.
+     * @param workers The NetworkLoops accepted connections are registered
+     *                with, this NetworkLoop if there are none.
+     *
+     * @return The ServerSocketChannel being listened on, close it to stop
+     *         listening.
+     *
+     * @throws java.io.IOException Thrown if 'address' could not be bound or
+     *                             this NetworkLoop is closed.
+     */
+    public ServerSocketChannel listen(SocketAddress address, int backlog,
+            MessageHandler handler, NetworkLoop... workers) throws IOException {
+        ServerSocketChannel server = ServerSocketChannel.open();
+        server.bind(address, backlog);
+        server.configureBlocking(false);
+        Acceptor acceptor = new Acceptor(server, handler, workers.length == 0
+                ? new NetworkLoop[]{this} : workers.clone());
+        execute(() -> server.register(selector, SelectionKey.OP_ACCEPT,
+                acceptor), null);
+        return server;
+    }
+
+    /**
+     * <p>
+     * Stops this NetworkLoop, closing every channel registered with it.</p>
+     */
+    @Override
+    public void close() {
+        running = false;
+        selector.wakeup();
+        if (Thread.currentThread() != thread) {
+            try {
+                thread.join();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Writes the bytes queued on 'client', on this NetworkLoop's
+     * Thread.</p>
+     */
+    void flush(ChannelClient client) {
+        if (Thread.currentThread() == thread) { //Write straight away.
+            write(client);
+        } else {
+            tasks.add(() -> write(client));
+            selector.wakeup();
+        }
+    }
+
+    /**
+     * <p>
+     * Closes 'client' on this NetworkLoop's Thread, passing 'cause' to it's
+     * MessageHandler.</p>
+     */
+    void close(ChannelClient client, IOException cause) {
+        if (Thread.currentThread() == thread) {
+            closeNow(client, cause);
+        } else {
+            tasks.add(() -> closeNow(client, cause));
+            selector.wakeup();
+        }
+    }
+
+    /**
+     * <p>
+     * Runs 'task' on this NetworkLoop's Thread, closing 'client' if it
+     * fails.</p>
+     */
+    private void execute(Task task, ChannelClient client) throws IOException {
+        if (!running) {
+            throw new IOException("The NetworkLoop is closed.");
+        }
+        tasks.add(client == null ? task : () -> {
+            try {
+                task.run();
+            } catch (IOException ex) {
+                closeNow(client, ex);
+            } catch (RuntimeException ex) { //The MessageHandler failed.
+                closeNow(client, new IOException(ex));
+            }
+        });
+        selector.wakeup();
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                selector.select();
+                for (Task t; (t = tasks.poll()) != null;) { //Run the work passed from other Threads.
+                    try {
+                        t.run();
+                    } catch (IOException ex) { //Only listening can fail here, and then there is nothing to accept.
+                    }
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (key.isValid()) {
+                        if (key.attachment() instanceof Acceptor) {
+                            ((Acceptor) key.attachment()).accept();
+                        } else {
+                            handle(key, (ChannelClient) key.attachment());
+                        }
+                    }
+                }
+            }
+        } catch (IOException ex) { //The Selector failed, nothing more can be done.
+        } finally {
+            running = false;
+            for (SelectionKey key : selector.keys()) { //Close every channel.
+                if (key.attachment() instanceof ChannelClient) {
+                    closeNow((ChannelClient) key.attachment(), null);
+                } else {
+                    try {
+                        key.channel().close();
+                    } catch (IOException ex) {
+                    }
+                }
+            }
+            try {
+                selector.close();
+            } catch (IOException ex) {
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Reads and writes on 'client' as 'key' is ready to.</p>
+     */
+    private void handle(SelectionKey key, ChannelClient client) {
+        try {
+            if (key.isReadable() && !client.read()) { //The peer closed the connection.
+                closeNow(client, null);
+                return;
+            }
+            if (key.isValid() && key.isWritable()) {
+                write(client);
+            }
+        } catch (IOException ex) {
+            closeNow(client, ex);
+        } catch (RuntimeException ex) { //The MessageHandler failed.
+            closeNow(client, new IOException(ex));
+        }
+    }
+
+    /**
+     * <p>
+     * Writes the bytes queued on 'client', waiting for the socket to be
+     * writable if they don't all fit.</p>
+     */
+    private void write(ChannelClient client) {
+        if (client.closed || client.key == null) { //The client will be written once it is registered.
+            return;
+        }
+        try {
+            client.key.interestOps(client.write() ? SelectionKey.OP_READ
+                    : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        } catch (IOException ex) {
+            closeNow(client, ex);
+        }
+    }
+
+    private void closeNow(ChannelClient client, IOException cause) {
+        if (client.closed) {
+            return;
+        }
+        client.closed = true;
+        if (client.key != null) {
+            client.key.cancel();
+        }
+        try {
+            client.getChannel().close();
+        } catch (IOException ex) {
+        }
+        try {
+            client.handler.closed(client, cause);
+        } catch (RuntimeException ex) { //There is nothing left to close.
+        }
+    }
+
+    /**
+     * <p>
+     * Work passed to the NetworkLoop's Thread.</p>
+     */
+    @FunctionalInterface
+    private interface Task {
+        void run() throws IOException;
+    }
+
+    /**
+     * <p>
+     * Accepts the connections to a ServerSocketChannel and spreads them
+     * across it's workers.</p>
+     *
+     * @author Dynisious
+     * @version 0.0.1
+     */
+    private static final class Acceptor {
+        private final ServerSocketChannel server;
+        private final MessageHandler handler;
+        private final NetworkLoop[] workers;
+        private int next = 0; //The index of the worker the next connection is registered with.
+
+        private Acceptor(ServerSocketChannel nServer, MessageHandler nHandler,
+                NetworkLoop[] nWorkers) {
+            server = nServer;
+            handler = nHandler;
+            workers = nWorkers;
+        }
+
+        private void accept() {
+            SocketChannel channel;
+            try {
+                while ((channel = server.accept()) != null) { //Accept every waiting connection.
+                    try {
+                        workers[next].register(channel, handler);
+                    } catch (IOException ex) { //The worker is closed.
+                        channel.close();
+                    }
+                    next = (next + 1) % workers.length;
+                }
+            } catch (IOException ex) { //The connection failed before it was accepted.
+            }
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package GameLibrary.Networking;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * A blocking server which accepts connections on a ServerSocket and runs a
+ * SessionHandler for each one on a Thread of it's own, with a NetworkClient
+ * to send and receive on. A session is written as plain blocking code rather
+ * than as MessageHandler callbacks on a NetworkLoop.</p>
+ * <p>
+ * By default sessions run on virtual Threads when the JVM has them, so tens
+ * of thousands of sessions blocked in a receive cost little more than their
+ * buffers. Otherwise each session takes a platform Thread from a cached
+ * pool.</p>
+ *
+ * @author Dynisious
+ * @version 0.0.1
+ */
+public final class NetworkServer implements Closeable {
+    /**
+     * <p>
+     * The number of NetworkServers created, used to name their Threads.</p>
+     */
+    private static final AtomicInteger COUNT = new AtomicInteger();
+    /**
+     * <p>
+     * The milliseconds to wait before accepting again after accepting a
+     * connection failed.</p>
+     */
+    private static final long ACCEPT_BACKOFF = 100;
+    /**
+     * <p>
+     * Executors.newVirtualThreadPerTaskExecutor, or null if the JVM has no
+     * virtual Threads.</p>
+     */
+    private static final Method VIRTUAL = virtualExecutor();
+
+    private static Method virtualExecutor() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException ex) { //Virtual Threads were added in Java 21.
+            return null;
+        }
+    }
+
+    /**
+     * <p>
+     * Returns true if sessions run on virtual Threads by default.</p>
+     *
+     * @return Whether the JVM has virtual Threads.
+     */
+    public static boolean hasVirtualThreads() {
+        return VIRTUAL != null;
+    }
+
+    /**
+     * <p>
+     * Returns an ExecutorService which runs every session on a new virtual
+     * Thread, or on a platform Thread if the JVM has no virtual
+     * Threads.</p>
+     *
+     * @return The ExecutorService.
+     */
+    public static ExecutorService newSessionExecutor() {
+        if (VIRTUAL != null) {
+            try {
+                return (ExecutorService) VIRTUAL.invoke(null);
+            } catch (ReflectiveOperationException ex) { //Use platform Threads instead.
+            }
+        }
+        return newPlatformExecutor();
+    }
+
+    /**
+     * <p>
+     * Returns an ExecutorService which runs every session on a daemon
+     * platform Thread, reusing the Threads of ended sessions.</p>
+     *
+     * @return The ExecutorService.
+     */
+    public static ExecutorService newPlatformExecutor() {
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "NetworkServer-session-" + count.
+                    getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * <p>
+     * The ServerSocket connections are accepted on.</p>
+     */
+    private final ServerSocket server;
+    /**
+     * <p>
+     * The SessionHandler run for every accepted connection.</p>
+     */
+    private final SessionHandler handler;
+    /**
+     * <p>
+     * The ExecutorService sessions are run on.</p>
+     */
+    private final ExecutorService executor;
+    /**
+     * <p>
+     * The Thread accepting connections.</p>
+     */
+    private final Thread thread;
+    /**
+     * <p>
+     * The Sockets of the sessions which have not ended.</p>
+     */
+    private final Set<Socket> sockets = ConcurrentHashMap.newKeySet();
+    /**
+     * <p>
+     * Whether this NetworkServer is accepting connections.</p>
+     */
+    private volatile boolean running = true;
+    /**
+     * <p>
+     * The number of times accepting a connection failed while this
+     * NetworkServer was running.</p>
+     */
+    private final AtomicLong acceptFailures = new AtomicLong();
+
+    /**
+     * <p>
+     * Creates a new NetworkServer listening on 'address' which runs it's
+     * sessions on the ExecutorService from newSessionExecutor.</p>
+     *
+     * @param address The address to listen on.
+     * @param backlog The number of connections which may wait to be
+     *                accepted.
+     * @param handler The SessionHandler of every accepted connection.
+     *
+     * @throws java.io.IOException Thrown if 'address' could not be bound.
+     */
+    public NetworkServer(SocketAddress address, int backlog,
+            SessionHandler handler) throws IOException {
+        this(address, backlog, handler, newSessionExecutor());
+    }
+
+    /**
+     * <p>
+     * Creates a new NetworkServer listening on 'address' which runs it's
+     * sessions on 'executor'. 'executor' must start a session straight away
+     * rather than queue it, and is shut down when this NetworkServer is
+     * closed.</p>
+     *
+     * @param address   The address to listen on.
+     * @param backlog   The number of connections which may wait to be
+     *                  accepted.
+     * @param nHandler  The SessionHandler of every accepted connection.
+     * @param nExecutor The ExecutorService sessions are run on.
+     *
+     * @throws java.io.IOException Thrown if 'address' could not be bound.
+     */
+    public NetworkServer(SocketAddress address, int backlog,
+            SessionHandler nHandler, ExecutorService nExecutor) throws IOException {
+        server = new ServerSocket();
+        try {
+            server.bind(address, backlog);
+        } catch (IOException ex) {
+            server.close();
+            throw ex;
+        }
+        handler = nHandler;
+        executor = nExecutor;
+        thread = new Thread(this::run, "NetworkServer-" + COUNT.
+                getAndIncrement());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public SocketAddress getLocalAddress() {
+        return server.getLocalSocketAddress();
+    }
+
+    /**
+     * <p>
+     * Returns the number of sessions which have not ended.</p>
+     *
+     * @return The number of open sessions.
+     */
+    public int getSessions() {
+        return sockets.size();
+    }
+
+    /**
+     * <p>
+     * Returns the number of times accepting a connection failed while this
+     * NetworkServer was running, such as when the process ran out of file
+     * descriptors. The NetworkServer waits briefly and keeps accepting after
+     * each failure.</p>
+     *
+     * @return The number of failed accepts.
+     */
+    public long getAcceptFailures() {
+        return acceptFailures.get();
+    }
+
+    /**
+     * <p>
+     * Stops accepting connections and closes the connection of every
+     * session, which ends them with an exception from their next send or
+     * receive.</p>
+     */
+    @Override
+    public void close() {
+        running = false;
+        closeQuietly(server);
+        for (Socket s : sockets) {
+            closeQuietly(s);
+        }
+        executor.shutdown();
+        if (Thread.currentThread() != thread) {
+            try {
+                thread.join();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void run() {
+        while (running) {
+            Socket socket;
+            try {
+                socket = server.accept();
+            } catch (IOException ex) {
+                if (!running || server.isClosed()) { //The ServerSocket was closed.
+                    return;
+                }
+                acceptFailures.incrementAndGet(); //Such as running out of file descriptors, which passes as sessions end.
+                try {
+                    Thread.sleep(ACCEPT_BACKOFF);
+                } catch (InterruptedException ie) {
+                    return;
+                }
+                continue;
+            }
+            sockets.add(socket);
+            if (!running) { //The NetworkServer was closed while accepting.
+                sockets.remove(socket);
+                closeQuietly(socket);
+                return;
+            }
+            try {
+                executor.execute(() -> session(socket));
+            } catch (RejectedExecutionException ex) { //The executor has been shut down.
+                sockets.remove(socket);
+                closeQuietly(socket);
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Runs the session of 'socket' and closes it once the session ends. A
+     * RuntimeException from the SessionHandler is a bug rather than a lost
+     * connection, so it is rethrown once the Socket is closed for the
+     * session Thread's uncaught exception handler to report.</p>
+     */
+    private void session(Socket socket) {
+        try {
+            handler.session(new NetworkClient(socket));
+        } catch (IOException ex) { //The session ended with it's connection.
+        } finally {
+            sockets.remove(socket);
+            closeQuietly(socket);
+        }
+    }
+
+    private static void closeQuietly(Closeable c) {
+        try {
+            c.close();
+        } catch (IOException ex) {
+        }
+    }
+}
@@ -1,12 +1,14 @@
 package GameLibrary.Networking;
 
+import java.io.IOException;
+
 /**
- * An {@code Exception} {@code Object} thrown when one of {@code Networking.Client}'s
- * receives fail
+ * An {@code IOException} {@code Object} thrown when one of {@code NetworkClient}'s
+ * receives ends before all of it's bytes were received
  * 
  * @author Dynisious
  */
-public final class ReceiveException extends Exception {
+public final class ReceiveException extends IOException {
 
     /**
      * Creates a new {@code ReceiveException} {@code Object}
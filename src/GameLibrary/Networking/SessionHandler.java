@@ -0,0 +1,31 @@
+package GameLibrary.Networking;
+
+import java.io.IOException;
+
+/**
+ * <p>
+ * Runs a session with a connection accepted by a NetworkServer. Each session
+ * has a Thread of it's own, so it may block on the NetworkClient's receives
+ * for as long as the connection is open.</p>
+ *
+ * @author Dynisious
+ * @version 0.0.1
+ */
+@FunctionalInterface
+public interface SessionHandler {
+
+    /**
+     * <p>
+     * Sends and receives on 'client' for the life of the session. The
+     * connection is closed once this method returns or throws. An
+     * IOException ends the session quietly; any other exception is passed on
+     * to the uncaught exception handler of the session's Thread.</p>
+     *
+     * @param client The NetworkClient of the accepted connection.
+     *
+     * @throws java.io.IOException Thrown if sending or receiving failed,
+     *                             including with a ReceiveException when the
+     *                             peer closes the connection.
+     */
+    void session(NetworkClient client) throws IOException;
+}
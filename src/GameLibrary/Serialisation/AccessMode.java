@@ -0,0 +1,31 @@
+package GameLibrary.Serialisation;
+
+/**
+ * <p>
+ * The ways in which Serialiser can read and write the fields of Objects.</p>
+ *
+ * @author Dynisious
+ * @version 0.0.1
+ */
+public enum AccessMode {
+    /**
+     * <p>
+     * Fields are accessed through java.lang.reflect.Field, this performs an
+     * access check and boxes values on every Object field read.</p>
+     */
+    REFLECTION,
+    /**
+     * <p>
+     * Fields are accessed through MethodHandles bound once per field as
+     * constants of a generated class, which skips the access checks and lets
+     * the JIT inline the access.</p>
+     */
+    METHOD_HANDLE,
+    /**
+     * <p>
+     * A dedicated Codec class is generated for each Class the first time it
+     * is serialised, reading and writing every field with straight-line code
+     * and creating new instances without Class.newInstance.</p>
+     */
+    GENERATED
+}
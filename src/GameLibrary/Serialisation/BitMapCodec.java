@@ -0,0 +1,39 @@
+package GameLibrary.Serialisation;
+
+import GameLibrary.GameObjects.BitMap;
+
+/**
+ * <p>
+ * Serialises a BitMap as packed bits in the same form as a boolean[] of
+ * length 'BitMap.length()'.</p>
+ *
+ * @author Dynisious
+ * @version 0.0.1
+ */
+final class BitMapCodec implements Codec<BitMap> {
+
+    @Override
+    public Class<BitMap> type() {
+        return BitMap.class;
+    }
+
+    @Override
+    public int size(BitMap obj) {
+        return Serialiser.BooleanArraySize(obj.length());
+    }
+
+    @Override
+    public void write(SerialWriter w, BitMap obj) {
+        w.writeBitMap(obj);
+    }
+
+    @Override
+    public BitMap read(SerialReader r, BitMap obj) {
+        BitMap val = r.readBitMap();
+        if (obj == null || obj.length() != val.length()) { //The bits can't be copied into obj.
+            return val;
+        }
+        System.arraycopy(val.words(), 0, obj.words(), 0, val.words().length);
+        return obj;
+    }
+}
@@ -0,0 +1,40 @@
+package GameLibrary.Serialisation;
+
+import java.util.BitSet;
+
+/**
+ * <p>
+ * Serialises a BitSet as packed bits in the same form as a boolean[] of
+ * length 'BitSet.length()'.</p>
+ *
+ * @author Dynisious
+ * @version 0.0.1
+ */
+final class BitSetCodec implements Codec<BitSet> {
+
+    @Override
+    public Class<BitSet> type() {
+        return BitSet.class;
+    }
+
+    @Override
+    public int size(BitSet obj) {
+        return Serialiser.BooleanArraySize(obj.length());
+    }
+
+    @Override
+    public void write(SerialWriter w, BitSet obj) {
+        w.writeBitSet(obj);
+    }
+
+    @Override
+    public BitSet read(SerialReader r, BitSet obj) {
+        BitSet val = r.readBitSet();
+        if (obj == null) {
+            return val;
+        }
+        obj.clear(); //Replace the bits of obj.
+        obj.or(val);
+        return obj;
+    }
+}
@@ -0,0 +1,104 @@
+package GameLibrary.Serialisation;
+
+/**
+ * <p>
+ * Serialises a boxed primitive the same way as a field of the primitive
+ * type, so an Integer follows the IntEncoding.</p>
+ *
+ * @author Dynisious
+ * @version 0.0.1
+ */
+final class BoxCodec implements Codec<Object> {
+
+    /**
+     * <p>
+     * The boxed Class this Codec serialises.</p>
+     */
+    private final Class type;
+    /**
+     * <p>
+     * The ClassPlan type code of the primitive.</p>
+     */
+    private final int code;
+
+    BoxCodec(Class nType, int nCode) {
+        type = nType;
+        code = nCode;
+    }
+
+    @Override
+    public Class<Object> type() {
+        return type;
+    }
+
+    @Override
+    public int size(Object obj) {
+        switch (code) {
+            case ClassPlan.INT:
+                return Serialiser.IntSize((Integer) obj);
+            case ClassPlan.LONG:
+                return Serialiser.LongSize((Long) obj);
+            case ClassPlan.DOUBLE:
+                return Double.BYTES;
+            case ClassPlan.FLOAT:
+                return Float.BYTES;
+            case ClassPlan.SHORT:
+                return Short.BYTES;
+            case ClassPlan.CHAR:
+                return Character.BYTES;
+            default:
+                return Byte.BYTES;
+        }
+    }
+
+    @Override
+    public void write(SerialWriter w, Object obj) {
+        switch (code) {
+            case ClassPlan.INT:
+                w.writeInt((Integer) obj);
+                break;
+            case ClassPlan.LONG:
+                w.writeLong((Long) obj);
+                break;
+            case ClassPlan.DOUBLE:
+                w.putDouble((Double) obj);
+                break;
+            case ClassPlan.FLOAT:
+                w.putFloat((Float) obj);
+                break;
+            case ClassPlan.BOOLEAN:
+                w.putBoolean((Boolean) obj);
+                break;
+            case ClassPlan.BYTE:
+                w.putByte((Byte) obj);
+                break;
+            case ClassPlan.SHORT:
+                w.putShort((Short) obj);
+                break;
+            default:
+                w.putChar((Character) obj);
+        }
+    }
+
+    @Override
+    public Object read(SerialReader r, Object obj) {
+        switch (code) {
+            case ClassPlan.INT:
+                return r.readInt();
+            case ClassPlan.LONG:
+                return r.readLong();
+            case ClassPlan.DOUBLE:
+                return r.getDouble();
+            case ClassPlan.FLOAT:
+                return r.getFloat();
+            case ClassPlan.BOOLEAN:
+                return r.getBoolean();
+            case ClassPlan.BYTE:
+                return r.getByte();
+            case ClassPlan.SHORT:
+                return r.getShort();
+            default:
+                return r.getChar();
+        }
+    }
+}
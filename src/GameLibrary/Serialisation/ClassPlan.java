@@ -0,0 +1,290 @@
+package GameLibrary.Serialisation;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field; //Used to interact with the fields of Objects during serialisation.
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <p>
+ * The cached serialisation plan for a single Class. A ClassPlan holds every
+ * serialised field of the Class, including those inherited from it's
+ * superClasses, in the order Serialiser reads and writes them along with a
+ * type code for each field.</p>
+ * <p>
+ * A Class's own fields are sorted by name and followed by the fields of it's
+ * superClass, so every JVM and the SerialisableProcessor agree on the
+ * order.</p>
+ * <p>
+ * Plans are built once per Class and cached so that Serialiser does not need
+ * to reflect over the Class on every call.</p>
+ *
+ * @author Dynisious
+ * @version 0.0.1
+ */
+final class ClassPlan {
+
+    static final int ARRAY = 0; //The field holds an Array.
+    static final int STRING = 1; //The field holds a String.
+    static final int INT = 2; //The field holds an int.
+    static final int LONG = 3; //The field holds a long.
+    static final int DOUBLE = 4; //The field holds a double.
+    static final int FLOAT = 5; //The field holds a float.
+    static final int BOOLEAN = 6; //The field holds a boolean.
+    static final int BYTE = 7; //The field holds a byte.
+    static final int SHORT = 8; //The field holds a short.
+    static final int OBJECT = 9; //The field holds any other Object.
+    static final int VAR_INT = 10; //The field holds an int marked with Varint.
+    static final int VAR_LONG = 11; //The field holds a long marked with Varint.
+    static final int CHAR = 12; //The field holds a char.
+    static final int LIST = 13; //The field holds a Collection of one Class, deserialised as an ArrayList.
+    static final int MAP = 14; //The field holds a Map from one Class to another, deserialised as a HashMap.
+    static final int ENUM_SET = 15; //The field holds a Set of an enum, deserialised as an EnumSet.
+
+    /**
+     * <p>
+     * The caches of ClassPlans, one per AccessMode and Class.</p>
+     */
+    private static final ClassValue<ClassPlan>[] PLANS = new ClassValue[AccessMode.
+            values().length];
+
+    static {
+        for (final AccessMode mode : AccessMode.values()) { //Create a cache for each AccessMode.
+            PLANS[mode.ordinal()] = new ClassValue<ClassPlan>() {
+                @Override
+                protected ClassPlan computeValue(Class<?> type) {
+                    return new ClassPlan(type, mode);
+                }
+            };
+        }
+    }
+
+    /**
+     * <p>
+     * Returns the ClassPlan for 'cls' using the AccessMode currently set on
+     * Serialiser, building it if this is the first time 'cls' has been
+     * serialised in that mode.</p>
+     *
+     * @param cls The Class to get the plan for.
+     *
+     * @return The ClassPlan for 'cls'.
+     */
+    static ClassPlan of(Class cls) {
+        return of(cls, Serialiser.getAccessMode());
+    }
+
+    /**
+     * <p>
+     * Returns the ClassPlan for 'cls' using 'mode' to access it's fields.</p>
+     *
+     * @param cls  The Class to get the plan for.
+     * @param mode The AccessMode the plan's fields use.
+     *
+     * @return The ClassPlan for 'cls'.
+     */
+    static ClassPlan of(Class cls, AccessMode mode) {
+        return PLANS[mode.ordinal()].get(cls);
+    }
+
+    /**
+     * <p>
+     * The Class this plan serialises.</p>
+     */
+    final Class type;
+    /**
+     * <p>
+     * The fields of 'type' in serialisation order.</p>
+     */
+    final FieldPlan[] fields;
+    /**
+     * <p>
+     * A MethodHandle of type ()Object creating a new instance of 'type'
+     * through it's nullary constructor, even if the constructor is private.
+     * If there is no such constructor it throws when invoked.</p>
+     */
+    final MethodHandle create;
+
+    private ClassPlan(Class<?> cls, AccessMode mode) {
+        type = cls;
+        create = constructor(cls);
+        ArrayList<FieldPlan> list = new ArrayList<>(); //The fields in serialisation order.
+        Field[] declared = cls.getDeclaredFields(); //The JVM does not promise any order for these.
+        Arrays.sort(declared, (a, b) -> a.getName().compareTo(b.getName())); //So sort them by name.
+        ArrayList<Field> state = new ArrayList<>(); //The fields declared by cls which are serialised.
+        for (Field f : declared) { //Loop through every field declared by cls.
+            if (!Modifier.isStatic(f.getModifiers()) && !f.isSynthetic()) { //This field is part of the state of an instance.
+                f.setAccessible(true);
+                state.add(f);
+            }
+        }
+        Field[] own = state.toArray(new Field[state.size()]);
+        FieldAccess[] access = FieldAccess.create(own, mode); //Bind cls's fields together.
+        for (int i = 0; i < own.length; i++) {
+            list.add(new FieldPlan(own[i], access[i])); //Add the field to the plan.
+        }
+        if (cls.getSuperclass() != null) { //There is a superClass.
+            for (FieldPlan f : of(cls.getSuperclass(), mode).fields) { //Loop through the superClass's fields.
+                list.add(f); //The superClass's fields follow cls's own fields.
+            }
+        } //Interfaces can only declare static fields so they add nothing to the plan.
+        fields = list.toArray(new FieldPlan[list.size()]);
+    }
+
+    /**
+     * <p>
+     * Binds a MethodHandle creating a new instance of 'cls' through it's
+     * nullary constructor. A Class which cannot be instantiated gets a
+     * MethodHandle which throws, so only reading one fails.</p>
+     */
+    private static MethodHandle constructor(Class<?> cls) {
+        ReflectiveOperationException fail;
+        if (Modifier.isAbstract(cls.getModifiers())) { //There can be no instance of an abstract Class or interface.
+            fail = new InstantiationException(cls
+                    + " is abstract and cannot be instantiated.");
+        } else {
+            try {
+                Constructor<?> ctor = cls.getDeclaredConstructor(); //Get the nullary constructor.
+                ctor.setAccessible(true);
+                return MethodHandles.lookup().unreflectConstructor(ctor).asType(
+                        MethodType.methodType(Object.class));
+            } catch (NoSuchMethodException ex) {
+                fail = new InstantiationException(
+                        "The passed class does not have a contructor with no parameters.");
+            } catch (IllegalAccessException ex) {
+                fail = ex;
+            } catch (RuntimeException ex) { //The constructor is in a module which is not open to this one.
+                fail = new IllegalAccessException(ex.getMessage());
+            }
+        }
+        return MethodHandles.throwException(Object.class, fail.getClass()).
+                bindTo(fail);
+    }
+
+    /**
+     * <p>
+     * Returns the type code used to serialise a field of type 'cls'.</p>
+     *
+     * @param cls The type of the field.
+     *
+     * @return The type code for 'cls'.
+     */
+    static int codeOf(Class cls) {
+        if (cls.isArray()) { //This field contains an Array.
+            return ARRAY;
+        } else if (cls == String.class) { //It's a String.
+            return STRING;
+        } else if (cls == int.class) { //It's an int.
+            return INT;
+        } else if (cls == long.class) { //It's a long.
+            return LONG;
+        } else if (cls == double.class) { //It's a double.
+            return DOUBLE;
+        } else if (cls == float.class) { //It's a float.
+            return FLOAT;
+        } else if (cls == boolean.class) { //It's a boolean.
+            return BOOLEAN;
+        } else if (cls == byte.class) { //It's a byte.
+            return BYTE;
+        } else if (cls == short.class) { //It's a short.
+            return SHORT;
+        } else if (cls == char.class) { //It's a char.
+            return CHAR;
+        } else { //It's an Object.
+            return OBJECT;
+        }
+    }
+
+    /**
+     * <p>
+     * A single field inside of a ClassPlan.</p>
+     *
+     * @author Dynisious
+     * @version 0.0.1
+     */
+    static final class FieldPlan {
+        final Field field; //The accessible field.
+        final Class type; //The declared type of the field.
+        final int code; //The type code of the field.
+        final FieldAccess access; //Reads and writes the field's value.
+        final Class[] args; //The element Classes of a LIST, MAP or ENUM_SET field.
+
+        /**
+         * <p>
+         * Creates a FieldPlan that is not bound to a field, used to skip the
+         * value of a field only a peer's schema has.</p>
+         */
+        FieldPlan(Class nType, int nCode, Class[] nArgs) {
+            field = null;
+            type = nType;
+            code = nCode;
+            access = null;
+            args = nArgs;
+        }
+
+        FieldPlan(Field f, FieldAccess nAccess) {
+            field = f;
+            type = f.getType();
+            int c = codeOf(type);
+            if (f.isAnnotationPresent(Varint.class)) { //The field is always a varint.
+                c = c == INT ? VAR_INT : c == LONG ? VAR_LONG : c;
+            }
+            args = typeArguments(f);
+            if (c == OBJECT && args != null) { //Check for a supported collection.
+                c = collectionCode(type, args);
+            }
+            code = c;
+            access = nAccess;
+        }
+    }
+
+    /**
+     * <p>
+     * Returns the type arguments of the field 'f' if they are all Classes,
+     * otherwise null.</p>
+     */
+    private static Class[] typeArguments(Field f) {
+        if (!(f.getGenericType() instanceof ParameterizedType)) { //The field is not generic.
+            return null;
+        }
+        Type[] types = ((ParameterizedType) f.getGenericType()).
+                getActualTypeArguments();
+        Class[] args = new Class[types.length];
+        for (int i = 0; i < types.length; i++) {
+            if (!(types[i] instanceof Class)) { //Wildcards, type variables and nested generics are not known.
+                return null;
+            }
+            args[i] = (Class) types[i];
+        }
+        return args;
+    }
+
+    /**
+     * <p>
+     * Returns the type code of a field of type 'cls' with the type arguments
+     * 'args', OBJECT if it is not a supported collection.</p>
+     */
+    private static int collectionCode(Class cls, Class[] args) {
+        if ((cls == EnumSet.class || cls == Set.class) && args.length == 1
+                && args[0].isEnum()) { //It's a Set of an enum.
+            return ENUM_SET;
+        } else if (Collection.class.isAssignableFrom(cls) && cls.
+                isAssignableFrom(ArrayList.class) && args.length == 1) { //An ArrayList can be stored in it.
+            return LIST;
+        } else if (Map.class.isAssignableFrom(cls) && cls.isAssignableFrom(
+                HashMap.class) && args.length == 2) { //A HashMap can be stored in it.
+            return MAP;
+        }
+        return OBJECT;
+    }
+}
@@ -0,0 +1,442 @@
+package GameLibrary.Serialisation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * <p>
+ * Maps Classes to small integer IDs so that a field may hold an instance of
+ * a subClass of it's declared type. When a SerialWriter using a registry
+ * writes an Object whose Class is not the declared Class it writes the byte
+ * 3 followed by the Object's class ID in a varint in place of the byte 1;
+ * Objects of the declared Class cost nothing extra.</p>
+ * <p>
+ * Every registered Class also has a schema hash of the names, types and
+ * order of it's serialised fields. Two peers compare their registries'
+ * hashes once, when they connect, and only if they differ exchange their
+ * schemas with writeSchema and readSchema. A SerialReader using a registry
+ * which has read a peer's schema deserialises each Class whose fields
+ * differ in the peer's order, skipping fields the local Class no longer has
+ * and leaving fields the peer does not have at their default values. The
+ * messages themselves never carry schema information. The indexed and delta
+ * layouts are always read with the local fields.</p>
+ * <p>
+ * Classes are registered before the registry is used, after which it may
+ * be shared by any number of Threads. A registry holds the schemas of a
+ * single peer, so a server with many peers creates a copy for each.</p>
+ *
+ * @author Dynisious
+ * @version 0.0.1
+ */
+public final class ClassRegistry {
+
+    /**
+     * <p>
+     * The ID of every registered Class.</p>
+     */
+    private final HashMap<Class, Integer> ids = new HashMap<>();
+    /**
+     * <p>
+     * The registered Classes by ID, null for unused IDs.</p>
+     */
+    private final ArrayList<Class> classes = new ArrayList<>();
+    /**
+     * <p>
+     * How the fields of the peer's version of each registered Class map to
+     * the local version, for only the Classes which differ.</p>
+     */
+    private final HashMap<Class, Translation> translations = new HashMap<>();
+
+    /**
+     * <p>
+     * Creates a new, empty ClassRegistry.</p>
+     */
+    public ClassRegistry() {
+    }
+
+    /**
+     * <p>
+     * Creates a new ClassRegistry with the same Classes and IDs as 'other',
+     * but without any peer's schema.</p>
+     *
+     * @param other The registry to copy.
+     */
+    public ClassRegistry(ClassRegistry other) {
+        ids.putAll(other.ids);
+        classes.addAll(other.classes);
+    }
+
+    /**
+     * <p>
+     * Registers 'cls' with the lowest unused ID, unless it is already
+     * registered.</p>
+     *
+     * @param cls The Class to register.
+     *
+     * @return The ID of 'cls'.
+     */
+    public int register(Class cls) {
+        Integer id = ids.get(cls);
+        if (id != null) {
+            return id;
+        }
+        int next = classes.indexOf(null);
+        register(cls, next == -1 ? classes.size() : next);
+        return ids.get(cls);
+    }
+
+    /**
+     * <p>
+     * Registers 'cls' with the ID 'id'. Both peers must register the same
+     * Classes with the same IDs.</p>
+     *
+     * @param cls The Class to register.
+     * @param id  The ID of 'cls'.
+     *
+     * @throws java.lang.IllegalArgumentException Thrown if 'id' is negative
+     *                                            or either 'cls' or 'id' is
+     *                                            already registered.
+     */
+    public void register(Class cls, int id) throws IllegalArgumentException {
+        if (id < 0) {
+            throw new IllegalArgumentException("Class IDs must not be negative.");
+        } else if (ids.containsKey(cls)) {
+            throw new IllegalArgumentException(cls.getName()
+                    + " is already registered.");
+        } else if (classOf(id) != null) {
+            throw new IllegalArgumentException("The ID " + id
+                    + " is already registered to " + classOf(id).getName() + ".");
+        }
+        while (classes.size() <= id) { //Make room for id.
+            classes.add(null);
+        }
+        classes.set(id, cls);
+        ids.put(cls, id);
+    }
+
+    /**
+     * <p>
+     * Returns the ID of 'cls', or -1 if it is not registered.</p>
+     *
+     * @param cls The Class to find.
+     *
+     * @return The ID of 'cls'.
+     */
+    public int idOf(Class cls) {
+        Integer id = ids.get(cls);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * <p>
+     * Returns the Class registered with the ID 'id', or null if there is
+     * none.</p>
+     *
+     * @param id The ID to find.
+     *
+     * @return The Class with the ID 'id'.
+     */
+    public Class classOf(int id) {
+        return id >= 0 && id < classes.size() ? classes.get(id) : null;
+    }
+
+    /**
+     * <p>
+     * Returns a hash of the registered Classes, their IDs and their schema
+     * hashes. Peers with equal hashes can exchange messages without
+     * exchanging their schemas.</p>
+     *
+     * @return The hash of this registry.
+     */
+    public long hash() {
+        long h = FNV_OFFSET;
+        for (int i = 0; i < classes.size(); i++) {
+            if (classes.get(i) != null) {
+                h = fnv(fnv(h, i), schemaHash(classes.get(i)));
+            }
+        }
+        return h;
+    }
+
+    /**
+     * <p>
+     * Returns a 64 bit hash of the name of 'cls' and the declaring Classes,
+     * names, types and order of it's serialised fields. Adding, removing,
+     * renaming, retyping or moving a field changes the hash.</p>
+     *
+     * @param cls The Class to hash.
+     *
+     * @return The schema hash of 'cls'.
+     */
+    public static long schemaHash(Class cls) {
+        long h = fnv(FNV_OFFSET, cls.getName());
+        for (ClassPlan.FieldPlan f : ClassPlan.of(cls).fields) {
+            h = fnv(fnv(fnv(fnv(h, f.field.getDeclaringClass().getName()), f.field.
+                    getName()), f.code), f.type.getName());
+            if (f.args != null) {
+                for (Class a : f.args) {
+                    h = fnv(h, a.getName());
+                }
+            }
+        }
+        return h;
+    }
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L; //The FNV-1a offset basis.
+    private static final long FNV_PRIME = 0x100000001b3L; //The FNV-1a prime.
+
+    private static long fnv(long h, long val) {
+        for (int i = 0; i < Long.BYTES; i++, val >>>= Byte.SIZE) {
+            h = (h ^ (val & 0xff)) * FNV_PRIME;
+        }
+        return h;
+    }
+
+    private static long fnv(long h, String val) {
+        for (int i = 0; i < val.length(); i++) {
+            h = fnv(h, val.charAt(i));
+        }
+        return fnv(h, val.length()); //Keeps "ab" + "c" apart from "a" + "bc".
+    }
+
+    /**
+     * <p>
+     * Serialises the schema of every registered Class: it's ID and name
+     * followed by the declaring Class, name, type code, type and type
+     * arguments of each of it's fields.</p>
+     *
+     * @param w The SerialWriter to write to.
+     */
+    public void writeSchema(SerialWriter w) {
+        int count = 0;
+        for (Class c : classes) {
+            count += c == null ? 0 : 1;
+        }
+        w.putVarInt(count);
+        for (int i = 0; i < classes.size(); i++) {
+            Class c = classes.get(i);
+            if (c == null) {
+                continue;
+            }
+            w.putVarInt(i);
+            w.writeString(c.getName());
+            ClassPlan.FieldPlan[] fields = ClassPlan.of(c).fields;
+            w.putVarInt(fields.length);
+            for (ClassPlan.FieldPlan f : fields) {
+                w.writeString(f.field.getDeclaringClass().getName());
+                w.writeString(f.field.getName());
+                w.putByte((byte) f.code);
+                w.writeString(f.type.getName());
+                w.putVarInt(f.args == null ? 0 : f.args.length);
+                if (f.args != null) {
+                    for (Class a : f.args) {
+                        w.writeString(a.getName());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Deserialises a peer's schema written by writeSchema, replacing any
+     * schema read before. Classes the peer registered which this registry
+     * does not are ignored. The types of the peer's fields are only loaded
+     * if a message has a value of one to skip, so the peer may have fields
+     * of types this side no longer has.</p>
+     *
+     * @param r The SerialReader to read from.
+     *
+     * @throws java.lang.IllegalArgumentException Thrown if the peer
+     *                                            registered a different Class
+     *                                            with an ID.
+     */
+    public void readSchema(SerialReader r) throws IllegalArgumentException {
+        translations.clear();
+        for (int count = r.getVarInt(); count > 0; count--) {
+            int id = r.getVarInt();
+            String name = r.readString();
+            Class cls = classOf(id);
+            if (cls != null && !cls.getName().equals(name)) {
+                throw new IllegalArgumentException("The peer registered "
+                        + name + " with the ID " + id + " not " + cls.getName()
+                        + ".");
+            }
+            int length = r.getVarInt();
+            String[][] remote = new String[length][]; //The declaring Class, name, type and type arguments of each field.
+            int[] codes = new int[length];
+            for (int i = 0; i < length; i++) {
+                String owner = r.readString();
+                String field = r.readString();
+                codes[i] = r.getByte();
+                String type = r.readString();
+                String[] f = new String[3 + r.getVarInt()];
+                f[0] = owner;
+                f[1] = field;
+                f[2] = type;
+                for (int j = 3; j < f.length; j++) {
+                    f[j] = r.readString();
+                }
+                remote[i] = f;
+            }
+            if (cls != null) {
+                Translation t = new Translation(this, cls, remote, codes);
+                if (t.local != null) {
+                    translations.put(cls, t);
+                }
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Loads the Class named 'name', including primitive types and the
+     * registered Classes.</p>
+     */
+    private Class load(String name, ClassLoader loader) throws ClassNotFoundException {
+        switch (name) {
+            case "int":
+                return int.class;
+            case "long":
+                return long.class;
+            case "double":
+                return double.class;
+            case "float":
+                return float.class;
+            case "boolean":
+                return boolean.class;
+            case "byte":
+                return byte.class;
+            case "short":
+                return short.class;
+            case "char":
+                return char.class;
+            default:
+                for (Class c : classes) {
+                    if (c != null && c.getName().equals(name)) {
+                        return c;
+                    }
+                }
+                return Class.forName(name, false, loader);
+        }
+    }
+
+    /**
+     * <p>
+     * Returns how to read the peer's version of 'cls', or null if it is the
+     * same as the local version.</p>
+     */
+    Translation translation(Class cls) {
+        return translations.isEmpty() ? null : translations.get(cls);
+    }
+
+    /**
+     * <p>
+     * The fields of the peer's version of a Class, in the peer's order, and
+     * the index of the matching local field of each. A field matches if it
+     * has the same declaring Class, name, type code, type and type
+     * arguments, compared by name so the peer's types are not loaded.</p>
+     *
+     * @author Dynisious
+     * @version 0.0.1
+     */
+    static final class Translation {
+        private final ClassRegistry registry; //Loads the types of the peer's fields.
+        private final ClassLoader loader; //The ClassLoader of the local Class.
+        private final String[][] names; //The declaring Class, name, type and type arguments of the peer's fields.
+        private final int[] codes; //The type codes of the peer's fields.
+        private final ClassPlan.FieldPlan[] remote; //The peer's fields, created when first skipped.
+        final int[] local; //The index of the local field each of the peer's is read into, -1 to skip it; null if the Classes match.
+
+        private Translation(ClassRegistry nRegistry, Class cls,
+                String[][] nNames, int[] nCodes) {
+            registry = nRegistry;
+            loader = cls.getClassLoader();
+            names = nNames;
+            codes = nCodes;
+            remote = new ClassPlan.FieldPlan[names.length];
+            ClassPlan.FieldPlan[] fields = ClassPlan.of(cls).fields;
+            int[] map = new int[names.length];
+            boolean same = names.length == fields.length;
+            for (int i = 0; i < names.length; i++) {
+                map[i] = -1;
+                for (int j = 0; j < fields.length; j++) { //Find the local field with the same declaring Class, name and type.
+                    if (matches(fields[j], names[i], codes[i])) {
+                        map[i] = j;
+                        break;
+                    }
+                }
+                same &= map[i] == i;
+            }
+            local = same ? null : map;
+        }
+
+        private static boolean matches(ClassPlan.FieldPlan f, String[] name,
+                int code) {
+            int args = f.args == null ? 0 : f.args.length;
+            if (f.code != code || name.length != 3 + args
+                    || !f.field.getDeclaringClass().getName().equals(name[0])
+                    || !f.field.getName().equals(name[1])
+                    || !f.type.getName().equals(name[2])) {
+                return false;
+            }
+            for (int a = 0; a < args; a++) {
+                if (!f.args[a].getName().equals(name[3 + a])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        int length() {
+            return names.length;
+        }
+
+        int code(int i) {
+            return codes[i];
+        }
+
+        /**
+         * <p>
+         * Returns the peer's field 'i', loading it's type if this is the
+         * first time it has been skipped. Primitive and String values are
+         * skipped by their type code alone.</p>
+         *
+         * @throws java.lang.IllegalStateException Thrown if the type can't
+         *                                         be loaded, so the value
+         *                                         can't be skipped.
+         */
+        ClassPlan.FieldPlan remote(int i) throws IllegalStateException {
+            ClassPlan.FieldPlan f = remote[i];
+            if (f != null) {
+                return f;
+            }
+            String[] name = names[i];
+            Class type;
+            Class[] args = name.length == 3 ? null : new Class[name.length - 3];
+            if (codes[i] == ClassPlan.STRING) {
+                type = String.class;
+            } else if (codes[i] != ClassPlan.ARRAY && codes[i] != ClassPlan.OBJECT
+                    && codes[i] != ClassPlan.LIST && codes[i] != ClassPlan.MAP
+                    && codes[i] != ClassPlan.ENUM_SET) { //The code is of a primitive type.
+                type = null;
+            } else {
+                String missing = name[2];
+                try {
+                    type = registry.load(name[2], loader);
+                    for (int a = 0; a < name.length - 3; a++) {
+                        missing = name[3 + a];
+                        args[a] = registry.load(name[3 + a], loader);
+                    }
+                } catch (ClassNotFoundException ex) {
+                    throw new IllegalStateException("The peer's field "
+                            + name[0] + "." + name[1] + " can't be skipped as "
+                            + missing + " can't be loaded.", ex);
+                }
+            }
+            remote[i] = f = new ClassPlan.FieldPlan(type, codes[i], args);
+            return f;
+        }
+    }
+}
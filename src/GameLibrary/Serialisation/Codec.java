@@ -0,0 +1,67 @@
+package GameLibrary.Serialisation;
+
+/**
+ * <p>
+ * Serialises and deserialises the fields of one Class using the same layout
+ * as Serialiser.ObjectToBytes, without the leading byte which marks whether
+ * the Object is null.</p>
+ *
+ * @author Dynisious
+ * @param <T> The type of Object this Codec serialises.
+ *
+ * @version 0.0.1
+ */
+public interface Codec<T> {
+
+    /**
+     * <p>
+     * Returns the Class this Codec serialises.</p>
+     *
+     * @return The Class this Codec serialises.
+     */
+    Class<T> type();
+
+    /**
+     * <p>
+     * Returns the size in bytes of the fields of 'obj' after they have been
+     * serialised using write.</p>
+     *
+     * @param obj The Object to get the size of.
+     *
+     * @return An int representing the size of 'obj' in bytes.
+     *
+     * @throws java.lang.IllegalAccessException Thrown if a field of 'obj'
+     *                                          cannot be serialised.
+     */
+    int size(T obj) throws IllegalAccessException;
+
+    /**
+     * <p>
+     * Serialises the fields of 'obj' using 'w'.</p>
+     *
+     * @param w   The SerialWriter to serialise with.
+     * @param obj The Object to serialise.
+     *
+     * @throws java.lang.IllegalAccessException Thrown if a field of 'obj'
+     *                                          cannot be serialised.
+     */
+    void write(SerialWriter w, T obj) throws IllegalAccessException;
+
+    /**
+     * <p>
+     * Deserialises the fields of an Object from 'r' at it's current
+     * position.</p>
+     *
+     * @param r   The SerialReader to deserialise from.
+     * @param obj The Object to deserialise values into, if null a new instance
+     *            will be created.
+     *
+     * @return The deserialised Object.
+     *
+     * @throws java.lang.InstantiationException Thrown if a new instance could
+     *                                          not be created.
+     * @throws java.lang.IllegalAccessException Thrown if a field of the Object
+     *                                          cannot be deserialised.
+     */
+    T read(SerialReader r, T obj) throws InstantiationException, IllegalAccessException;
+}
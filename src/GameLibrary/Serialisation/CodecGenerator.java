@@ -0,0 +1,936 @@
+package GameLibrary.Serialisation;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle; //Used to access fields and helpers from the generated code.
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * <p>
+ * Generates a dedicated Codec class for a Class the first time it is
+ * serialised with AccessMode.GENERATED.</p>
+ * <p>
+ * The generated class reads and writes every field of the Class with one
+ * straight-line call per field. Field access and construction go through
+ * MethodHandles held in static final fields of the generated class, which
+ * the JIT treats as constants and inlines. The generated class only refers
+ * to public types so it is defined by it's own ClassLoader, which also hands
+ * it the MethodHandles when it is initialised.</p>
+ * <p>
+ * The same class file writer generates the FieldAccesses of each Class for
+ * AccessMode.METHOD_HANDLE, as a hidden class holding the MethodHandles of
+ * it's fields as constants.</p>
+ *
+ * @author Dynisious
+ * @version 0.0.1
+ */
+final class CodecGenerator {
+
+    /**
+     * <p>
+     * The cache of generated Codecs, one per Class.</p>
+     */
+    private static final ClassValue<Codec> CODECS = new ClassValue<Codec>() {
+        @Override
+        protected Codec computeValue(Class<?> type) {
+            return generate(type);
+        }
+    };
+
+    /**
+     * <p>
+     * Returns the generated Codec for 'cls', generating it if this is the
+     * first time 'cls' has been serialised.</p>
+     *
+     * @param cls The Class to get the Codec for.
+     *
+     * @return The Codec for 'cls'.
+     */
+    static Codec of(Class cls) {
+        return CODECS.get(cls);
+    }
+
+    private CodecGenerator() {
+    }
+
+    private static final String CODEC = "GameLibrary/Serialisation/Codec";
+    private static final String BOUND = "GameLibrary/Serialisation/FieldAccess$Bound";
+    private static final String READER = "GameLibrary/Serialisation/SerialReader";
+    private static final String SERIALISER = "GameLibrary/Serialisation/Serialiser";
+    private static final String WRITER = "GameLibrary/Serialisation/SerialWriter";
+    private static final String HANDLE = "java/lang/invoke/MethodHandle";
+    private static final String OBJECT = "java/lang/Object";
+    private static final String L_READER = "LGameLibrary/Serialisation/SerialReader;";
+    private static final String L_WRITER = "LGameLibrary/Serialisation/SerialWriter;";
+    private static final String L_HANDLE = "Ljava/lang/invoke/MethodHandle;";
+    private static final String L_OBJECT = "Ljava/lang/Object;";
+
+    /**
+     * <p>
+     * Generates, defines and instantiates the Codec class for 'cls'.</p>
+     *
+     * @param cls The Class to generate a Codec for.
+     *
+     * @return The new Codec.
+     */
+    private static Codec generate(Class<?> cls) {
+        ClassPlan plan = ClassPlan.of(cls, AccessMode.GENERATED); //Get the fields in serialisation order.
+        String name = "GameLibrary/Serialisation/Generated/" + cls.getName().
+                replace('.', '_').replace('$', '_') + "Codec"; //The internal name of the generated class.
+        ClassFile cf = new ClassFile(name, OBJECT, CODEC, "()V", false);
+        ArrayList<Object> data = new ArrayList<>(); //The constants handed to the generated class.
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try {
+            String type = cf.constant(data, "Ljava/lang/Class;", cls); //The Class being serialised.
+            String init = cf.constant(data, L_HANDLE, instantiator(plan)); //Returns the passed Object or a new instance.
+
+            Code size = new Code(cf);
+            Code write = new Code(cf);
+            Code read = new Code(cf);
+            int fixed = 0; //The total size of the fields which always serialise to the same number of bytes.
+            size.op(0x03, 1); //iconst_0 Start the running total.
+            read.getstatic(name, init, L_HANDLE);
+            read.op(0x2c, 1); //aload_2 obj
+            read.invokeHandle("(Ljava/lang/Object;)Ljava/lang/Object;");
+            read.op(0x4d, -1); //astore_2 obj
+            for (ClassPlan.FieldPlan f : plan.fields) { //Emit the code for every field in the plan.
+                MethodHandle get = lookup.unreflectGetter(f.field);
+                MethodHandle set = lookup.unreflectSetter(f.field);
+                String prim = primitive(f.code); //The descriptor of the field, if it's a primitive.
+                if (prim != null) { //The field is read and written directly by the cursors.
+                    String getter = cf.constant(data, L_HANDLE, get.asType(
+                            MethodType.methodType(f.type, Object.class)));
+                    String setter = cf.constant(data, L_HANDLE, set.asType(
+                            MethodType.methodType(void.class, Object.class,
+                                    f.type)));
+                    String sizer = sizer(f.code); //The Serialiser method which sizes the field, if it's size varies.
+                    if (sizer == null) { //The field always serialises to the same number of bytes.
+                        fixed += bytes(f.code);
+                    } else {
+                        size.getstatic(name, getter, L_HANDLE);
+                        size.op(0x2b, 1); //aload_1 obj
+                        size.invokeHandle("(Ljava/lang/Object;)" + prim);
+                        size.invoke(0xb8, SERIALISER, sizer, "(" + prim + ")I");
+                        size.op(0x60, -1); //iadd
+                    }
+
+                    write.op(0x2b, 1); //aload_1 w
+                    write.getstatic(name, getter, L_HANDLE);
+                    write.op(0x2c, 1); //aload_2 obj
+                    write.invokeHandle("(Ljava/lang/Object;)" + prim);
+                    write.invoke(0xb6, WRITER, writer(f.code), "(" + prim
+                            + ")V");
+
+                    read.getstatic(name, setter, L_HANDLE);
+                    read.op(0x2c, 1); //aload_2 obj
+                    read.op(0x2b, 1); //aload_1 r
+                    read.invoke(0xb6, READER, reader(f.code), "()" + prim);
+                    read.invokeHandle("(Ljava/lang/Object;" + prim + ")V");
+                } else { //The field is serialised by a helper for it's type.
+                    String getter = cf.constant(data, L_HANDLE, get.asType(
+                            MethodType.methodType(Object.class, Object.class)));
+                    String setter = cf.constant(data, L_HANDLE, set.asType(
+                            MethodType.methodType(void.class, Object.class,
+                                    Object.class)));
+                    String sizer = cf.constant(data, L_HANDLE, helper(lookup,
+                            f, "size"));
+                    String writer = cf.constant(data, L_HANDLE, helper(lookup,
+                            f, "write"));
+                    String reader = cf.constant(data, L_HANDLE, helper(lookup,
+                            f, "read"));
+
+                    size.getstatic(name, sizer, L_HANDLE);
+                    size.getstatic(name, getter, L_HANDLE);
+                    size.op(0x2b, 1); //aload_1 obj
+                    size.invokeHandle("(Ljava/lang/Object;)Ljava/lang/Object;");
+                    size.invokeHandle("(Ljava/lang/Object;)I");
+                    size.op(0x60, -1); //iadd
+
+                    write.getstatic(name, writer, L_HANDLE);
+                    write.op(0x2b, 1); //aload_1 w
+                    write.getstatic(name, getter, L_HANDLE);
+                    write.op(0x2c, 1); //aload_2 obj
+                    write.invokeHandle("(Ljava/lang/Object;)Ljava/lang/Object;");
+                    write.invokeHandle("(" + L_WRITER + L_OBJECT + ")V");
+
+                    read.getstatic(name, setter, L_HANDLE);
+                    read.op(0x2c, 1); //aload_2 obj
+                    read.getstatic(name, reader, L_HANDLE);
+                    read.op(0x2b, 1); //aload_1 r
+                    read.getstatic(name, getter, L_HANDLE);
+                    read.op(0x2c, 1); //aload_2 obj
+                    read.invokeHandle("(Ljava/lang/Object;)Ljava/lang/Object;"); //The field's current value, which may be reused.
+                    read.invokeHandle("(" + L_READER + L_OBJECT
+                            + ")Ljava/lang/Object;");
+                    read.invokeHandle("(Ljava/lang/Object;Ljava/lang/Object;)V");
+                }
+            }
+            size.ldc(cf.integer(fixed)); //Add the size of the fixed size fields.
+            size.op(0x60, -1); //iadd
+            size.op(0xac, -1); //ireturn
+            write.op(0xb1, 0); //return
+            read.op(0x2c, 1); //aload_2 obj
+            read.op(0xb0, -1); //areturn
+
+            Code typeOf = new Code(cf);
+            typeOf.getstatic(name, type, "Ljava/lang/Class;");
+            typeOf.op(0xb0, -1); //areturn
+
+            cf.method("type", "()Ljava/lang/Class;", typeOf, 1);
+            cf.method("size", "(Ljava/lang/Object;)I", size, 2);
+            cf.method("write", "(" + L_WRITER + L_OBJECT + ")V", write, 3);
+            cf.method("read", "(" + L_READER + L_OBJECT + ")" + L_OBJECT, read,
+                    3);
+            CodecLoader loader = new CodecLoader(data.toArray());
+            return (Codec) loader.define(name, cf.toBytes()).
+                    getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException(
+                    "A Codec could not be generated for " + cls + ".", ex);
+        }
+    }
+
+    /**
+     * <p>
+     * Generates, defines and instantiates the FieldAccesses for the
+     * accessible fields 'fields', all declared by one Class. A single hidden
+     * class binds every field, so the serialisation loops calling the
+     * accessors of a Class only ever see one receiver class; it is defined in
+     * this package so it can extend FieldAccess.Bound and it's getter and
+     * setter MethodHandles are static finals handed to it as class data. Each
+     * instance switches on it's index to the field's constants.</p>
+     *
+     * @param fields The accessible fields to read and write.
+     *
+     * @return The FieldAccess of each field, in the same order.
+     */
+    static FieldAccess[] accessors(Field[] fields) {
+        FieldAccess[] access = new FieldAccess[fields.length];
+        if (fields.length == 0) { //There is nothing to bind.
+            return access;
+        }
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        String name = "GameLibrary/Serialisation/BoundAccess";
+        ClassFile cf = new ClassFile(name, BOUND, null, "(I)V", true);
+        ArrayList<Object> data = new ArrayList<>(); //The constants handed to the generated class.
+        String[] getters = new String[fields.length];
+        String[] setters = new String[fields.length];
+        try {
+            for (int i = 0; i < fields.length; i++) {
+                Class<?> arg = fields[i].getType().isPrimitive() ? fields[i].
+                        getType() : Object.class; //References are passed as Object.
+                getters[i] = cf.constant(data, L_HANDLE, lookup.unreflectGetter(
+                        fields[i]).asType(MethodType.methodType(arg,
+                                Object.class)));
+                setters[i] = cf.constant(data, L_HANDLE, lookup.
+                        unreflectSetter(fields[i]).asType(MethodType.methodType(
+                        void.class, Object.class, arg)));
+            }
+        } catch (IllegalAccessException ex) {
+            throw new IllegalStateException("The fields of " + fields[0].
+                    getDeclaringClass() + " could not be accessed.", ex);
+        }
+        for (Class<?> type : new Class<?>[]{Object.class, int.class, long.class,
+            double.class, float.class, boolean.class, byte.class, short.class,
+            char.class}) { //Generate the pair of methods for each type of field.
+            ArrayList<Integer> cases = new ArrayList<>(); //The indexes of the fields of this type.
+            for (int i = 0; i < fields.length; i++) {
+                if ((fields[i].getType().isPrimitive() ? fields[i].getType()
+                        : Object.class) == type) {
+                    cases.add(i);
+                }
+            }
+            if (!cases.isEmpty()) { //Fields of other types keep Bound's methods.
+                accessors(cf, name, type, cases, getters, setters);
+            }
+        }
+        try {
+            Constructor<?> ctor = lookup.defineHiddenClassWithClassData(cf.
+                    toBytes(), data.toArray(), true).lookupClass().
+                    getDeclaredConstructor(int.class);
+            for (int i = 0; i < fields.length; i++) {
+                access[i] = (FieldAccess) ctor.newInstance(i);
+            }
+            return access;
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException("The fields of " + fields[0].
+                    getDeclaringClass() + " could not be bound.", ex);
+        }
+    }
+
+    /**
+     * <p>
+     * Adds the getter and setter of the fields of 'type' at 'cases' to the
+     * generated FieldAccess class. Each method loads it's index and switches
+     * to a straight-line call of that field's constant MethodHandle; any
+     * other index is a field of another type and throws.</p>
+     */
+    private static void accessors(ClassFile cf, String name, Class<?> type,
+            ArrayList<Integer> cases, String[] getters, String[] setters) {
+        String desc = descriptor(type);
+        String suffix = type.isPrimitive() ? Character.toUpperCase(type.
+                getName().charAt(0)) + type.getName().substring(1) : ""; //Object fields use get and set.
+        int load; //The opcode loading the value argument from slot 2.
+        int ret; //The opcode returning the value.
+        switch (desc) {
+            case "J":
+                load = 0x20; //lload_2
+                ret = 0xad; //lreturn
+                break;
+            case "F":
+                load = 0x24; //fload_2
+                ret = 0xae; //freturn
+                break;
+            case "D":
+                load = 0x28; //dload_2
+                ret = 0xaf; //dreturn
+                break;
+            case L_OBJECT:
+                load = 0x2c; //aload_2
+                ret = 0xb0; //areturn
+                break;
+            default: //int, boolean, byte, short and char are all ints.
+                load = 0x1c; //iload_2
+                ret = 0xac; //ireturn
+        }
+        int width = desc.equals("J") || desc.equals("D") ? 2 : 1; //The slots the value takes.
+
+        Code get = new Code(cf);
+        get.tableswitch(cases, 8);
+        for (int i : cases) {
+            get.frame();
+            get.getstatic(name, getters[i], L_HANDLE);
+            get.op(0x2b, 1); //aload_1 obj
+            get.invokeHandle("(Ljava/lang/Object;)" + desc);
+            get.op(ret, -width);
+        }
+        cf.method(0x0000, "get" + suffix, "(Ljava/lang/Object;)" + desc, get,
+                2);
+
+        Code set = new Code(cf);
+        set.tableswitch(cases, 9);
+        for (int i : cases) {
+            set.frame();
+            set.getstatic(name, setters[i], L_HANDLE);
+            set.op(0x2b, 1); //aload_1 obj
+            set.op(load, width);
+            set.invokeHandle("(Ljava/lang/Object;" + desc + ")V");
+            set.op(0xb1, 0); //return
+        }
+        cf.method(0x0000, "set" + suffix, "(Ljava/lang/Object;" + desc + ")V",
+                set, 2 + width);
+    }
+
+    /**
+     * <p>
+     * Returns the descriptor of a primitive type, or of Object.</p>
+     */
+    private static String descriptor(Class<?> type) {
+        return type == int.class ? "I" : type == long.class ? "J"
+                : type == double.class ? "D" : type == float.class ? "F"
+                : type == boolean.class ? "Z" : type == byte.class ? "B"
+                : type == short.class ? "S" : type == char.class ? "C"
+                : L_OBJECT;
+    }
+
+    /**
+     * <p>
+     * Returns a MethodHandle of type (Object)Object which returns it's
+     * argument, or a new instance of the planned Class created through the
+     * plan's constructor handle if the argument is null.</p>
+     */
+    private static MethodHandle instantiator(ClassPlan plan) throws IllegalAccessException, NoSuchMethodException {
+        MethodHandle isNull = MethodHandles.lookup().findStatic(Objects.class,
+                "isNull", MethodType.methodType(boolean.class, Object.class));
+        return MethodHandles.guardWithTest(isNull, MethodHandles.
+                dropArguments(plan.create, 0, Object.class), MethodHandles.
+                identity(Object.class));
+    }
+
+    /**
+     * <p>
+     * Returns a MethodHandle which performs 'op' ("size", "write" or "read")
+     * for the value of the non primitive field 'f'.</p>
+     */
+    private static MethodHandle helper(MethodHandles.Lookup lookup,
+            ClassPlan.FieldPlan f, String op) throws IllegalAccessException, NoSuchMethodException {
+        boolean value = f.code == ClassPlan.LIST || f.code == ClassPlan.MAP
+                || f.code == ClassPlan.ENUM_SET; //Collections need their element Classes so the FieldPlan is bound.
+        String kind = f.code == ClassPlan.STRING ? "String"
+                : f.code == ClassPlan.ARRAY ? "Array" : value ? "Value"
+                                : "Object"; //The helper family for this field.
+        Class bound = value ? ClassPlan.FieldPlan.class : Class.class; //The type of the bound argument.
+        MethodType type = op.equals("size") ? MethodType.methodType(int.class,
+                bound, Object.class)
+                : op.equals("write") ? MethodType.methodType(void.class,
+                                bound, SerialWriter.class, Object.class)
+                        : MethodType.methodType(Object.class, bound,
+                                SerialReader.class, Object.class);
+        return MethodHandles.insertArguments(lookup.findStatic(
+                CodecGenerator.class, op + kind, type), 0, value ? f : f.type); //Bind the field's type to the helper.
+    }
+
+    static int sizeString(Class cls, Object val) {
+        return Serialiser.StringSize((String) val);
+    }
+
+    static void writeString(Class cls, SerialWriter w, Object val) {
+        w.writeString((String) val);
+    }
+
+    static Object readString(Class cls, SerialReader r, Object old) {
+        return r.readString();
+    }
+
+    static int sizeArray(Class cls, Object val) throws IllegalAccessException {
+        return Serialiser.ArraySize(cls, val);
+    }
+
+    static void writeArray(Class cls, SerialWriter w, Object val) throws IllegalAccessException {
+        w.writeArray(cls, val);
+    }
+
+    static Object readArray(Class cls, SerialReader r, Object old) throws InstantiationException, IllegalAccessException {
+        return r.readArray(cls, r.getReuse() ? old : null);
+    }
+
+    static int sizeObject(Class cls, Object val) throws IllegalAccessException {
+        return Serialiser.ObjectSize(cls, val, true);
+    }
+
+    static void writeObject(Class cls, SerialWriter w, Object val) throws IllegalAccessException {
+        w.writeObject(cls, val);
+    }
+
+    static Object readObject(Class cls, SerialReader r, Object old) throws InstantiationException, IllegalAccessException {
+        return r.readObject(cls, r.getReuse() ? old : null);
+    }
+
+    static int sizeValue(ClassPlan.FieldPlan f, Object val) throws IllegalAccessException {
+        return Serialiser.ValueSize(f, val);
+    }
+
+    static void writeValue(ClassPlan.FieldPlan f, SerialWriter w, Object val) throws IllegalAccessException {
+        w.writeValue(f, val);
+    }
+
+    static Object readValue(ClassPlan.FieldPlan f, SerialReader r, Object old) throws InstantiationException, IllegalAccessException {
+        return r.readValue(f, r.getReuse() ? old : null);
+    }
+
+    /**
+     * <p>
+     * Returns the descriptor of a primitive type code, or null if the code is
+     * not for a primitive.</p>
+     */
+    private static String primitive(int code) {
+        switch (code) {
+            case ClassPlan.INT:
+            case ClassPlan.VAR_INT:
+                return "I";
+            case ClassPlan.LONG:
+            case ClassPlan.VAR_LONG:
+                return "J";
+            case ClassPlan.DOUBLE:
+                return "D";
+            case ClassPlan.FLOAT:
+                return "F";
+            case ClassPlan.BOOLEAN:
+                return "Z";
+            case ClassPlan.BYTE:
+                return "B";
+            case ClassPlan.SHORT:
+                return "S";
+            case ClassPlan.CHAR:
+                return "C";
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * <p>
+     * Returns the name of the SerialWriter method which writes a primitive
+     * type code.</p>
+     */
+    private static String writer(int code) {
+        switch (code) {
+            case ClassPlan.INT:
+                return "writeInt";
+            case ClassPlan.LONG:
+                return "writeLong";
+            case ClassPlan.VAR_INT:
+            case ClassPlan.VAR_LONG:
+                return "putZigZag";
+            case ClassPlan.DOUBLE:
+                return "putDouble";
+            case ClassPlan.FLOAT:
+                return "putFloat";
+            case ClassPlan.BOOLEAN:
+                return "putBoolean";
+            case ClassPlan.BYTE:
+                return "putByte";
+            case ClassPlan.CHAR:
+                return "putChar";
+            default:
+                return "putShort";
+        }
+    }
+
+    /**
+     * <p>
+     * Returns the name of the SerialReader method which reads a primitive
+     * type code.</p>
+     */
+    private static String reader(int code) {
+        switch (code) {
+            case ClassPlan.INT:
+                return "readInt";
+            case ClassPlan.LONG:
+                return "readLong";
+            case ClassPlan.VAR_INT:
+                return "getZigZagInt";
+            case ClassPlan.VAR_LONG:
+                return "getZigZagLong";
+            case ClassPlan.DOUBLE:
+                return "getDouble";
+            case ClassPlan.FLOAT:
+                return "getFloat";
+            case ClassPlan.BOOLEAN:
+                return "getBoolean";
+            case ClassPlan.BYTE:
+                return "getByte";
+            case ClassPlan.CHAR:
+                return "getChar";
+            default:
+                return "getShort";
+        }
+    }
+
+    /**
+     * <p>
+     * Returns the name of the Serialiser method which returns the size of a
+     * primitive type code, or null if it always has the same size.</p>
+     */
+    private static String sizer(int code) {
+        switch (code) {
+            case ClassPlan.INT:
+                return "IntSize";
+            case ClassPlan.LONG:
+                return "LongSize";
+            case ClassPlan.VAR_INT:
+            case ClassPlan.VAR_LONG:
+                return "ZigZagSize";
+            default:
+                return null;
+        }
+    }
+
+    private static int bytes(int code) {
+        switch (code) {
+            case ClassPlan.FLOAT:
+                return Float.BYTES;
+            case ClassPlan.DOUBLE:
+                return Double.BYTES;
+            case ClassPlan.SHORT:
+                return Short.BYTES;
+            case ClassPlan.CHAR:
+                return Character.BYTES;
+            default:
+                return Byte.BYTES;
+        }
+    }
+
+    /**
+     * <p>
+     * Returns the number of stack slots taken by the arguments of a method
+     * descriptor, or it's return value if 'ret' is true.</p>
+     */
+    private static int slots(String desc, boolean ret) {
+        int end = desc.indexOf(')');
+        if (ret) { //Count the return value.
+            char c = desc.charAt(end + 1);
+            return c == 'V' ? 0 : (c == 'J' || c == 'D') ? 2 : 1;
+        }
+        int n = 0;
+        for (int i = 1; i < end; i++) { //Loop through each argument.
+            char c = desc.charAt(i);
+            if (c == 'J' || c == 'D') { //Wide primitives take two slots.
+                n += 2;
+            } else {
+                n++;
+                if (c == 'L') { //Skip the class name.
+                    i = desc.indexOf(';', i);
+                } else if (c == '[') { //Skip the component type.
+                    while (desc.charAt(i) == '[') {
+                        i++;
+                    }
+                    if (desc.charAt(i) == 'L') {
+                        i = desc.indexOf(';', i);
+                    }
+                }
+            }
+        }
+        return n;
+    }
+
+    /**
+     * <p>
+     * Defines a single generated class and hands it it's constants.</p>
+     */
+    private static final class CodecLoader extends ClassLoader implements Supplier<Object> {
+        private final Object[] data;
+
+        CodecLoader(Object[] nData) {
+            super(Codec.class.getClassLoader());
+            data = nData;
+        }
+
+        Class<?> define(String name, byte[] bytes) {
+            return defineClass(name.replace('/', '.'), bytes, 0, bytes.length);
+        }
+
+        @Override
+        public Object get() {
+            return data;
+        }
+    }
+
+    /**
+     * <p>
+     * The bytecode of a single method. The generated code only branches
+     * through a tableswitch to blocks which each start and end with an empty
+     * stack, so the maximum stack depth is tracked as instructions are added
+     * and every branch target shares the method's entry frame.</p>
+     */
+    private static final class Code {
+        private final ClassFile cf;
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        private final ArrayList<Integer> frames = new ArrayList<>(); //The offsets of the branch targets.
+        private int stack = 0;
+        private int maxStack = 0;
+
+        Code(ClassFile nCf) {
+            cf = nCf;
+        }
+
+        void op(int opcode, int delta) {
+            out.write(opcode);
+            stack(delta);
+        }
+
+        void stack(int delta) {
+            stack += delta;
+            maxStack = Math.max(maxStack, stack);
+        }
+
+        void u2(int val) {
+            out.write(val >>> 8);
+            out.write(val);
+        }
+
+        void getstatic(String owner, String name, String desc) {
+            op(0xb2, desc.equals("J") || desc.equals("D") ? 2 : 1);
+            u2(cf.member(9, owner, name, desc));
+        }
+
+        void putstatic(String owner, String name, String desc) {
+            op(0xb3, -1);
+            u2(cf.member(9, owner, name, desc));
+        }
+
+        void ldc(int index) {
+            op(0x13, 1); //ldc_w
+            u2(index);
+        }
+
+        void invoke(int opcode, String owner, String name, String desc) {
+            op(opcode, slots(desc, true) - slots(desc, false) - (opcode == 0xb8
+                    ? 0 : 1));
+            u2(cf.member(opcode == 0xb9 ? 11 : 10, owner, name, desc));
+            if (opcode == 0xb9) { //invokeinterface also takes the argument count.
+                out.write(slots(desc, false) + 1);
+                out.write(0);
+            }
+        }
+
+        void invokeHandle(String desc) {
+            invoke(0xb6, HANDLE, "invokeExact", desc);
+        }
+
+        /**
+         * <p>
+         * Loads the index of the bound FieldAccess and switches on it to the
+         * blocks which follow, one per index in 'cases' and each 'block'
+         * bytes long. Any other index throws Bound's type mismatch.</p>
+         */
+        void tableswitch(ArrayList<Integer> cases, int block) {
+            op(0x2a, 1); //aload_0
+            op(0xb4, 0); //getfield index
+            u2(cf.member(9, BOUND, "index", "I"));
+            int start = out.size();
+            op(0xaa, -1); //tableswitch
+            while (out.size() % 4 != 0) { //The operands are aligned to 4 bytes.
+                out.write(0);
+            }
+            int low = cases.get(0);
+            int high = cases.get(cases.size() - 1);
+            int fallback = out.size() + 12 + (high - low + 1) * 4 - start; //The default block follows the table.
+            u4(fallback);
+            u4(low);
+            u4(high);
+            for (int i = low, c = 0; i <= high; i++) {
+                if (cases.get(c) == i) { //This index is a field of this type.
+                    u4(fallback + 4 + c++ * block);
+                } else {
+                    u4(fallback);
+                }
+            }
+            frame();
+            invoke(0xb8, BOUND, "mismatch",
+                    "()Ljava/lang/IllegalStateException;");
+            op(0xbf, -1); //athrow
+        }
+
+        void u4(int val) {
+            u2(val >>> 16);
+            u2(val);
+        }
+
+        /**
+         * <p>
+         * Marks the next instruction as a branch target, reached with the
+         * method's arguments as it's locals and an empty stack.</p>
+         */
+        void frame() {
+            frames.add(out.size());
+        }
+    }
+
+    /**
+     * <p>
+     * A minimal class file writer for the generated Codec and FieldAccess
+     * classes.</p>
+     */
+    private static final class ClassFile {
+        private final String name;
+        private final String superName;
+        private final String iface; //The interface implemented, if any.
+        private final String ctorDesc; //The descriptor of the constructor, ()V or (I)V.
+        private final ByteArrayOutputStream pool = new ByteArrayOutputStream();
+        private final DataOutputStream poolOut = new DataOutputStream(pool);
+        private final HashMap<String, Integer> entries = new HashMap<>();
+        private int count = 1; //The next constant pool index.
+        private final ByteArrayOutputStream fields = new ByteArrayOutputStream();
+        private final DataOutputStream fieldsOut = new DataOutputStream(fields);
+        private int fieldCount = 0;
+        private final ByteArrayOutputStream methods = new ByteArrayOutputStream();
+        private final DataOutputStream methodsOut = new DataOutputStream(methods);
+        private int methodCount = 0;
+        private final Code clinit;
+
+        /**
+         * <p>
+         * Starts a class named 'nName' extending 'nSuper', whose constructor
+         * passes it's arguments to the super constructor. A hidden class
+         * takes it's constants from it's class data, any other class from
+         * it's CodecLoader.</p>
+         */
+        ClassFile(String nName, String nSuper, String nIface, String nCtor,
+                boolean hidden) {
+            name = nName;
+            superName = nSuper;
+            iface = nIface;
+            ctorDesc = nCtor;
+            clinit = new Code(this);
+            if (hidden) {
+                clinit.invoke(0xb8, "java/lang/invoke/MethodHandles", "lookup",
+                        "()Ljava/lang/invoke/MethodHandles$Lookup;");
+                clinit.ldc(string("_"));
+                clinit.ldc(cls("[Ljava/lang/Object;"));
+                clinit.invoke(0xb8, "java/lang/invoke/MethodHandles",
+                        "classData",
+                        "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/Class;)"
+                        + L_OBJECT);
+            } else {
+                clinit.ldc(cls(name));
+                clinit.invoke(0xb6, "java/lang/Class", "getClassLoader",
+                        "()Ljava/lang/ClassLoader;");
+                clinit.op(0xc0, 0); //checkcast Supplier
+                clinit.u2(cls("java/util/function/Supplier"));
+                clinit.invoke(0xb9, "java/util/function/Supplier", "get", "()"
+                        + L_OBJECT);
+            }
+            clinit.op(0xc0, 0); //checkcast Object[]
+            clinit.u2(cls("[Ljava/lang/Object;"));
+            clinit.op(0x4b, -1); //astore_0
+        }
+
+        private int entry(String key, int tag, Object... parts) {
+            Integer index = entries.get(key);
+            if (index == null) { //This constant needs to be added to the pool.
+                try {
+                    poolOut.writeByte(tag);
+                    for (Object p : parts) {
+                        if (p instanceof String) {
+                            poolOut.writeUTF((String) p);
+                        } else if (tag == 3) {
+                            poolOut.writeInt((Integer) p);
+                        } else {
+                            poolOut.writeShort((Integer) p);
+                        }
+                    }
+                } catch (IOException ex) {
+                    throw new IllegalStateException(ex);
+                }
+                index = count++;
+                entries.put(key, index);
+            }
+            return index;
+        }
+
+        int utf8(String s) {
+            return entry("U" + s, 1, s);
+        }
+
+        int integer(int val) {
+            return entry("I" + val, 3, val);
+        }
+
+        int string(String s) {
+            int n = utf8(s);
+            return entry("S" + s, 8, n);
+        }
+
+        int cls(String internal) {
+            int n = utf8(internal);
+            return entry("C" + internal, 7, n);
+        }
+
+        int member(int tag, String owner, String name, String desc) {
+            int c = cls(owner);
+            int n = utf8(name);
+            int d = utf8(desc);
+            int nt = entry("N" + name + ' ' + desc, 12, n, d);
+            return entry(tag + owner + '.' + name + ' ' + desc, tag, c, nt);
+        }
+
+        /**
+         * <p>
+         * Adds a static final field initialised to 'val' and returns it's
+         * name.</p>
+         */
+        String constant(ArrayList<Object> data, String desc, Object val) {
+            String field = "C" + data.size();
+            try {
+                fieldsOut.writeShort(0x0002 | 0x0008 | 0x0010); //private static final
+                fieldsOut.writeShort(utf8(field));
+                fieldsOut.writeShort(utf8(desc));
+                fieldsOut.writeShort(0);
+            } catch (IOException ex) {
+                throw new IllegalStateException(ex);
+            }
+            fieldCount++;
+            clinit.op(0x2a, 1); //aload_0
+            clinit.op(0x11, 1); //sipush
+            clinit.u2(data.size());
+            clinit.op(0x32, -1); //aaload
+            clinit.op(0xc0, 0); //checkcast
+            clinit.u2(cls(desc.substring(1, desc.length() - 1)));
+            clinit.putstatic(name, field, desc);
+            data.add(val);
+            return field;
+        }
+
+        void method(String mName, String desc, Code code, int locals) {
+            method(0x0001, mName, desc, code, locals); //public
+        }
+
+        private void method(int access, String mName, String desc, Code code,
+                int locals) {
+            try {
+                byte[] body = code.out.toByteArray();
+                methodsOut.writeShort(access);
+                methodsOut.writeShort(utf8(mName));
+                methodsOut.writeShort(utf8(desc));
+                methodsOut.writeShort(1); //One attribute; Code.
+                methodsOut.writeShort(utf8("Code"));
+                int table = code.frames.isEmpty() ? 0 : 8 + code.frames.size()
+                        * 3; //The length of the StackMapTable attribute.
+                methodsOut.writeInt(12 + body.length + table);
+                methodsOut.writeShort(code.maxStack);
+                methodsOut.writeShort(locals);
+                methodsOut.writeInt(body.length);
+                methodsOut.write(body);
+                methodsOut.writeShort(0); //No exception table.
+                if (code.frames.isEmpty()) { //Straight-line code needs no StackMapTable.
+                    methodsOut.writeShort(0);
+                } else {
+                    methodsOut.writeShort(1);
+                    methodsOut.writeShort(utf8("StackMapTable"));
+                    methodsOut.writeInt(table - 6);
+                    methodsOut.writeShort(code.frames.size());
+                    int last = -1;
+                    for (int offset : code.frames) { //Each target has the same locals as the entry.
+                        methodsOut.writeByte(251); //same_frame_extended
+                        methodsOut.writeShort(offset - last - 1);
+                        last = offset;
+                    }
+                }
+            } catch (IOException ex) {
+                throw new IllegalStateException(ex);
+            }
+            methodCount++;
+        }
+
+        byte[] toBytes() {
+            Code ctor = new Code(this);
+            ctor.op(0x2a, 1); //aload_0
+            if (ctorDesc.equals("(I)V")) {
+                ctor.op(0x1b, 1); //iload_1
+            }
+            ctor.invoke(0xb7, superName, "<init>", ctorDesc);
+            ctor.op(0xb1, 0); //return
+            method("<init>", ctorDesc, ctor, ctorDesc.equals("(I)V") ? 2 : 1);
+            clinit.op(0xb1, 0); //return
+            method(0x0008, "<clinit>", "()V", clinit, 1); //static
+            int thisIndex = cls(name);
+            int superIndex = cls(superName);
+            int ifaceIndex = iface == null ? 0 : cls(iface);
+            try {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                DataOutputStream out = new DataOutputStream(bytes);
+                out.writeInt(0xCAFEBABE);
+                out.writeShort(0); //Minor version.
+                out.writeShort(52); //Java 8.
+                out.writeShort(count);
+                out.write(pool.toByteArray());
+                out.writeShort(0x0001 | 0x0010 | 0x0020); //public final super
+                out.writeShort(thisIndex);
+                out.writeShort(superIndex);
+                if (iface == null) {
+                    out.writeShort(0);
+                } else {
+                    out.writeShort(1);
+                    out.writeShort(ifaceIndex);
+                }
+                out.writeShort(fieldCount);
+                out.write(fields.toByteArray());
+                out.writeShort(methodCount);
+                out.write(methods.toByteArray());
+                out.writeShort(0); //No class attributes.
+                return bytes.toByteArray();
+            } catch (IOException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package GameLibrary.Serialisation;
+
+import GameLibrary.GameObjects.BitMap;
+import java.util.BitSet;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>
+ * Finds the Codec Serialiser should use for a Class, if any.</p>
+ * <p>
+ * BitSet and BitMap always use their built in Codecs, which pack their
+ * bits. Strings held as Objects are serialised the same as String fields,
+ * boxed primitives as their primitive and enums as their ordinal. Codecs
+ * registered through Serialiser.setCodec replace the built in Codecs.
+ * Codecs generated at compile time by SerialisableProcessor are listed in
+ * META-INF/services/GameLibrary.Serialisation.Codec and are loaded once,
+ * the first time Serialiser looks for a Codec. They are used regardless of
+ * the AccessMode. Otherwise, when the AccessMode is GENERATED, a Codec is
+ * generated at runtime by CodecGenerator.</p>
+ *
+ * @author Dynisious
+ * @version 0.0.1
+ */
+final class CodecRegistry {
+
+    /**
+     * <p>
+     * The built in Codecs and the Codecs generated at compile time, by the
+     * Class they serialise.</p>
+     */
+    private static final ConcurrentHashMap<Class, Codec> COMPILED = new ConcurrentHashMap<>();
+
+    static {
+        COMPILED.put(BitSet.class, new BitSetCodec()); //Bits are always packed.
+        COMPILED.put(BitMap.class, new BitMapCodec());
+        COMPILED.put(String.class, new StringCodec());
+        COMPILED.put(Integer.class, new BoxCodec(Integer.class, ClassPlan.INT)); //Boxed primitives are written as the primitive.
+        COMPILED.put(Long.class, new BoxCodec(Long.class, ClassPlan.LONG));
+        COMPILED.put(Double.class, new BoxCodec(Double.class, ClassPlan.DOUBLE));
+        COMPILED.put(Float.class, new BoxCodec(Float.class, ClassPlan.FLOAT));
+        COMPILED.put(Boolean.class, new BoxCodec(Boolean.class,
+                ClassPlan.BOOLEAN));
+        COMPILED.put(Byte.class, new BoxCodec(Byte.class, ClassPlan.BYTE));
+        COMPILED.put(Short.class, new BoxCodec(Short.class, ClassPlan.SHORT));
+        COMPILED.put(Character.class, new BoxCodec(Character.class,
+                ClassPlan.CHAR));
+        for (Codec c : ServiceLoader.load(Codec.class)) { //Load every registered Codec.
+            COMPILED.put(c.type(), c);
+        }
+    }
+
+    /**
+     * <p>
+     * The cache of compiled Codecs, one per Class; null if 'cls' has no
+     * compiled Codec.</p>
+     */
+    private static final ClassValue<Codec> CODECS = new ClassValue<Codec>() {
+        @Override
+        protected Codec computeValue(Class<?> type) {
+            Codec c = COMPILED.get(type);
+            if (c == null && type.isEnum()) { //Enums are written as their ordinal.
+                c = new EnumCodec(type);
+            }
+            return c;
+        }
+    };
+
+    private CodecRegistry() {
+    }
+
+    /**
+     * <p>
+     * Returns the Codec to use for 'cls', or null if 'cls' should be
+     * serialised through it's ClassPlan.</p>
+     *
+     * @param cls The Class to get the Codec for.
+     *
+     * @return The Codec for 'cls' or null.
+     */
+    static Codec of(Class cls) {
+        Codec c = CODECS.get(cls);
+        if (c == null && Serialiser.getAccessMode() == AccessMode.GENERATED) { //Generate a Codec at runtime.
+            c = CodecGenerator.of(cls);
+        }
+        return c;
+    }
+
+    /**
+     * <p>
+     * Returns the built in, compiled or registered Codec for 'cls', or null
+     * if 'cls' is serialised by it's fields, including through a Codec
+     * generated at runtime.</p>
+     *
+     * @param cls The Class to get the Codec for.
+     *
+     * @return The Codec for 'cls' or null.
+     */
+    static Codec compiled(Class cls) {
+        return CODECS.get(cls);
+    }
+
+    /**
+     * <p>
+     * Sets the Codec used for 'cls', replacing any built in or compiled
+     * Codec, and returns the previous Codec.</p>
+     *
+     * @param cls   The Class to set the Codec of.
+     * @param codec The new Codec or null to remove it.
+     *
+     * @return The previously set Codec or null.
+     */
+    static Codec register(Class cls, Codec codec) {
+        Codec old = CODECS.get(cls);
+        if (codec == null) {
+            COMPILED.remove(cls);
+        } else {
+            COMPILED.put(cls, codec);
+        }
+        CODECS.remove(cls); //Look the Codec up again the next time it's needed.
+        return old;
+    }
+}
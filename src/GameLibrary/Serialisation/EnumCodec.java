@@ -0,0 +1,48 @@
+package GameLibrary.Serialisation;
+
+/**
+ * <p>
+ * Serialises an enum constant as it's ordinal in an unsigned varint.</p>
+ *
+ * @author Dynisious
+ * @version 0.0.1
+ * @param <E> The enum this Codec serialises.
+ */
+final class EnumCodec<E extends Enum<E>> implements Codec<E> {
+
+    /**
+     * <p>
+     * The enum this Codec serialises.</p>
+     */
+    private final Class<E> type;
+    /**
+     * <p>
+     * The constants of 'type' by ordinal.</p>
+     */
+    private final E[] constants;
+
+    EnumCodec(Class<E> nType) {
+        type = nType;
+        constants = nType.getEnumConstants();
+    }
+
+    @Override
+    public Class<E> type() {
+        return type;
+    }
+
+    @Override
+    public int size(E obj) {
+        return Serialiser.VarIntSize(obj.ordinal());
+    }
+
+    @Override
+    public void write(SerialWriter w, E obj) {
+        w.putVarInt(obj.ordinal());
+    }
+
+    @Override
+    public E read(SerialReader r, E obj) {
+        return constants[r.getVarInt()];
+    }
+}
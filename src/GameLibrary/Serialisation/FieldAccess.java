@@ -0,0 +1,286 @@
+package GameLibrary.Serialisation;
+
+import java.lang.reflect.Field; //Used to interact with the fields of Objects during serialisation.
+
+/**
+ * <p>
+ * Reads and writes the value of a single field of an Object during
+ * serialisation. Each AccessMode provides it's own implementation.</p>
+ *
+ * @author Dynisious
+ * @version 0.0.1
+ */
+abstract class FieldAccess {
+
+    /**
+     * <p>
+     * Creates a FieldAccess for each of the fields declared by one Class
+     * using the passed AccessMode.</p>
+     *
+     * @param fields The accessible fields to read and write.
+     * @param mode   The AccessMode to use.
+     *
+     * @return The FieldAccess of each field, in the same order.
+     */
+    static FieldAccess[] create(Field[] fields, AccessMode mode) {
+        if (mode == AccessMode.REFLECTION) { //Use the Fields directly.
+            FieldAccess[] access = new FieldAccess[fields.length];
+            for (int i = 0; i < fields.length; i++) {
+                access[i] = new Reflective(fields[i]);
+            }
+            return access;
+        } else { //Generate a class binding MethodHandles to the fields.
+            return CodecGenerator.accessors(fields);
+        }
+    }
+
+    abstract Object get(Object obj) throws IllegalAccessException;
+
+    abstract void set(Object obj, Object val) throws IllegalAccessException;
+
+    abstract int getInt(Object obj) throws IllegalAccessException;
+
+    abstract void setInt(Object obj, int val) throws IllegalAccessException;
+
+    abstract long getLong(Object obj) throws IllegalAccessException;
+
+    abstract void setLong(Object obj, long val) throws IllegalAccessException;
+
+    abstract double getDouble(Object obj) throws IllegalAccessException;
+
+    abstract void setDouble(Object obj, double val) throws IllegalAccessException;
+
+    abstract float getFloat(Object obj) throws IllegalAccessException;
+
+    abstract void setFloat(Object obj, float val) throws IllegalAccessException;
+
+    abstract boolean getBoolean(Object obj) throws IllegalAccessException;
+
+    abstract void setBoolean(Object obj, boolean val) throws IllegalAccessException;
+
+    abstract byte getByte(Object obj) throws IllegalAccessException;
+
+    abstract void setByte(Object obj, byte val) throws IllegalAccessException;
+
+    abstract short getShort(Object obj) throws IllegalAccessException;
+
+    abstract void setShort(Object obj, short val) throws IllegalAccessException;
+
+    abstract char getChar(Object obj) throws IllegalAccessException;
+
+    abstract void setChar(Object obj, char val) throws IllegalAccessException;
+
+    /**
+     * <p>
+     * Accesses a field through java.lang.reflect.Field.</p>
+     */
+    private static final class Reflective extends FieldAccess {
+        private final Field field;
+
+        Reflective(Field f) {
+            field = f;
+        }
+
+        @Override
+        Object get(Object obj) throws IllegalAccessException {
+            return field.get(obj);
+        }
+
+        @Override
+        void set(Object obj, Object val) throws IllegalAccessException {
+            field.set(obj, val);
+        }
+
+        @Override
+        int getInt(Object obj) throws IllegalAccessException {
+            return field.getInt(obj);
+        }
+
+        @Override
+        void setInt(Object obj, int val) throws IllegalAccessException {
+            field.setInt(obj, val);
+        }
+
+        @Override
+        long getLong(Object obj) throws IllegalAccessException {
+            return field.getLong(obj);
+        }
+
+        @Override
+        void setLong(Object obj, long val) throws IllegalAccessException {
+            field.setLong(obj, val);
+        }
+
+        @Override
+        double getDouble(Object obj) throws IllegalAccessException {
+            return field.getDouble(obj);
+        }
+
+        @Override
+        void setDouble(Object obj, double val) throws IllegalAccessException {
+            field.setDouble(obj, val);
+        }
+
+        @Override
+        float getFloat(Object obj) throws IllegalAccessException {
+            return field.getFloat(obj);
+        }
+
+        @Override
+        void setFloat(Object obj, float val) throws IllegalAccessException {
+            field.setFloat(obj, val);
+        }
+
+        @Override
+        boolean getBoolean(Object obj) throws IllegalAccessException {
+            return field.getBoolean(obj);
+        }
+
+        @Override
+        void setBoolean(Object obj, boolean val) throws IllegalAccessException {
+            field.setBoolean(obj, val);
+        }
+
+        @Override
+        byte getByte(Object obj) throws IllegalAccessException {
+            return field.getByte(obj);
+        }
+
+        @Override
+        void setByte(Object obj, byte val) throws IllegalAccessException {
+            field.setByte(obj, val);
+        }
+
+        @Override
+        short getShort(Object obj) throws IllegalAccessException {
+            return field.getShort(obj);
+        }
+
+        @Override
+        void setShort(Object obj, short val) throws IllegalAccessException {
+            field.setShort(obj, val);
+        }
+
+        @Override
+        char getChar(Object obj) throws IllegalAccessException {
+            return field.getChar(obj);
+        }
+
+        @Override
+        void setChar(Object obj, char val) throws IllegalAccessException {
+            field.setChar(obj, val);
+        }
+    }
+
+    /**
+     * <p>
+     * The base of the FieldAccess classes generated for AccessMode
+     * METHOD_HANDLE. One class is generated for the fields declared by each
+     * Class, holding their getter and setter MethodHandles as static finals
+     * which the JIT treats as constants and inlines; each instance switches
+     * on it's index to the MethodHandles of it's field. Only the methods
+     * matching the types of the fields are overridden.</p>
+     */
+    abstract static class Bound extends FieldAccess {
+        final int index; //The position of the field in the generated class.
+
+        Bound(int nIndex) {
+            index = nIndex;
+        }
+
+        static IllegalStateException mismatch() {
+            return new IllegalStateException(
+                    "The field was accessed as the wrong type.");
+        }
+
+        @Override
+        Object get(Object obj) {
+            throw mismatch();
+        }
+
+        @Override
+        void set(Object obj, Object val) {
+            throw mismatch();
+        }
+
+        @Override
+        int getInt(Object obj) {
+            throw mismatch();
+        }
+
+        @Override
+        void setInt(Object obj, int val) {
+            throw mismatch();
+        }
+
+        @Override
+        long getLong(Object obj) {
+            throw mismatch();
+        }
+
+        @Override
+        void setLong(Object obj, long val) {
+            throw mismatch();
+        }
+
+        @Override
+        double getDouble(Object obj) {
+            throw mismatch();
+        }
+
+        @Override
+        void setDouble(Object obj, double val) {
+            throw mismatch();
+        }
+
+        @Override
+        float getFloat(Object obj) {
+            throw mismatch();
+        }
+
+        @Override
+        void setFloat(Object obj, float val) {
+            throw mismatch();
+        }
+
+        @Override
+        boolean getBoolean(Object obj) {
+            throw mismatch();
+        }
+
+        @Override
+        void setBoolean(Object obj, boolean val) {
+            throw mismatch();
+        }
+
+        @Override
+        byte getByte(Object obj) {
+            throw mismatch();
+        }
+
+        @Override
+        void setByte(Object obj, byte val) {
+            throw mismatch();
+        }
+
+        @Override
+        short getShort(Object obj) {
+            throw mismatch();
+        }
+
+        @Override
+        void setShort(Object obj, short val) {
+            throw mismatch();
+        }
+
+        @Override
+        char getChar(Object obj) {
+            throw mismatch();
+        }
+
+        @Override
+        void setChar(Object obj, char val) {
+            throw mismatch();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package GameLibrary.Serialisation;
+
+/**
+ * <p>
+ * The ways in which Serialiser can encode int and long fields and the
+ * lengths of Strings and Arrays. A SerialReader must use the same
+ * IntEncoding as the SerialWriter which wrote the bytes.</p>
+ *
+ * @author Dynisious
+ * @version 0.0.1
+ */
+public enum IntEncoding {
+    /**
+     * <p>
+     * ints are serialised as 4 bytes and longs as 8 bytes. This is the
+     * original encoding.</p>
+     */
+    FIXED,
+    /**
+     * <p>
+     * int and long fields are zigzag encoded and serialised as LEB128
+     * varints, so small positive and negative values take a single byte.
+     * Lengths are serialised as unsigned varints. The elements of int[] and
+     * long[] are still serialised as fixed size values so they can be copied
+     * in bulk.</p>
+     */
+    VARINT
+}
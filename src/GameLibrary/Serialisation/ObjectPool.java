@@ -0,0 +1,34 @@
+package GameLibrary.Serialisation;
+
+/**
+ * <p>
+ * A pool of reusable instances of a Class, registered with
+ * Serialiser.setPool. When a SerialReader reusing instances needs a new
+ * instance of the Class it takes one from the pool, only calling the
+ * nullary constructor if the pool is empty.</p>
+ * <p>
+ * Instances taken from a pool are overwritten field by field so they do
+ * not need to be cleared before being released.</p>
+ *
+ * @author Dynisious
+ * @version 0.0.1
+ * @param <T> The type of the pooled instances.
+ */
+public interface ObjectPool<T> {
+
+    /**
+     * <p>
+     * Removes and returns an instance from this pool.</p>
+     *
+     * @return A pooled instance or null if this pool is empty.
+     */
+    T acquire();
+
+    /**
+     * <p>
+     * Returns 'obj' to this pool once it is no longer used.</p>
+     *
+     * @param obj The instance to pool.
+     */
+    void release(T obj);
+}
@@ -0,0 +1,1126 @@
+package GameLibrary.Serialisation;
+
+import GameLibrary.GameObjects.BitMap;
+import java.nio.ByteBuffer; //Used to deserialise the Object from arrays of bytes.
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <p>
+ * Deserialises Objects which were serialised by SerialWriter or
+ * Serialiser.ObjectToBytes.</p>
+ * <p>
+ * A SerialReader is a cursor over a buffer; every read returns the value
+ * directly and advances the cursor, so a whole Object graph is deserialised
+ * without allocating anything but the deserialised values. A SerialReader
+ * can be pointed at a new buffer with reset and reused.</p>
+ * <p>
+ * A SerialReader can read from a byte[] or any ByteBuffer, including direct
+ * and memory mapped buffers. Values are read big endian unless the byte
+ * order is changed with setOrder to match the SerialWriter.</p>
+ *
+ * @author Dynisious
+ * @version 0.0.1
+ */
+public final class SerialReader {
+
+    /**
+     * <p>
+     * The buffer bytes are deserialised from.</p>
+     */
+    private ByteBuffer buff;
+    /**
+     * <p>
+     * The StringEncoding Strings are read with.</p>
+     */
+    private StringEncoding encoding = Serialiser.getStringEncoding();
+    /**
+     * <p>
+     * Every String read since this SerialReader was created or last reset,
+     * if Strings are being interned.</p>
+     */
+    private ArrayList<String> interned = null;
+    /**
+     * <p>
+     * Every Object read since this SerialReader was created or last reset,
+     * by handle, if references are being tracked.</p>
+     */
+    private ArrayList<Object> tracked = null;
+    /**
+     * <p>
+     * The ClassRegistry the Classes of class IDs and the peer's schemas are
+     * taken from, if any.</p>
+     */
+    private ClassRegistry registry = Serialiser.getRegistry();
+    /**
+     * <p>
+     * The IntEncoding int and long fields and lengths are read with.</p>
+     */
+    private IntEncoding ints = Serialiser.getIntEncoding();
+    /**
+     * <p>
+     * Whether the Objects and Arrays already held by fields are deserialised
+     * into instead of being replaced.</p>
+     */
+    private boolean reuse = Serialiser.getReuse();
+
+    /**
+     * <p>
+     * Creates a new SerialReader which deserialises from 'buff' starting at
+     * 'pos'.</p>
+     *
+     * @param buff The byte[] to deserialise from.
+     * @param pos  The starting position in buff.
+     */
+    public SerialReader(byte[] buff, int pos) {
+        reset(buff, pos);
+    }
+
+    /**
+     * <p>
+     * Creates a new SerialReader which deserialises from 'buff' starting at
+     * it's current position, using it's byte order. The position of 'buff'
+     * is advanced as bytes are read.</p>
+     *
+     * @param buff The ByteBuffer to deserialise from.
+     */
+    public SerialReader(ByteBuffer buff) {
+        reset(buff);
+    }
+
+    /**
+     * <p>
+     * Points this SerialReader at 'buff' starting at 'pos', keeping the
+     * current byte order.</p>
+     *
+     * @param nBuff The byte[] to deserialise from.
+     * @param pos   The starting position in nBuff.
+     */
+    public void reset(byte[] nBuff, int pos) {
+        if (buff != null && buff.hasArray() && buff.array() == nBuff) { //Reuse the existing ByteBuffer.
+            buff.clear().position(pos);
+        } else {
+            ByteOrder order = buff == null ? ByteOrder.BIG_ENDIAN : buff.order();
+            buff = ((ByteBuffer) ByteBuffer.wrap(nBuff).position(pos)).order(
+                    order);
+        }
+        if (interned != null) { //Strings from the last message can't be referenced.
+            interned.clear();
+        }
+        if (tracked != null) { //Nor can Objects.
+            tracked.clear();
+        }
+    }
+
+    /**
+     * <p>
+     * Points this SerialReader at 'nBuff' starting at it's current position,
+     * using it's byte order.</p>
+     *
+     * @param nBuff The ByteBuffer to deserialise from.
+     */
+    public void reset(ByteBuffer nBuff) {
+        buff = nBuff;
+        if (interned != null) { //Strings from the last message can't be referenced.
+            interned.clear();
+        }
+        if (tracked != null) { //Nor can Objects.
+            tracked.clear();
+        }
+    }
+
+    public StringEncoding getStringEncoding() {
+        return encoding;
+    }
+
+    /**
+     * <p>
+     * Sets the StringEncoding Strings are read with.</p>
+     *
+     * @param val The new StringEncoding.
+     *
+     * @return The previous StringEncoding.
+     */
+    public StringEncoding setStringEncoding(StringEncoding val) {
+        StringEncoding old = encoding;
+        encoding = val;
+        return old;
+    }
+
+    public IntEncoding getIntEncoding() {
+        return ints;
+    }
+
+    /**
+     * <p>
+     * Sets the IntEncoding int and long fields and lengths are read
+     * with.</p>
+     *
+     * @param val The new IntEncoding.
+     *
+     * @return The previous IntEncoding.
+     */
+    public IntEncoding setIntEncoding(IntEncoding val) {
+        IntEncoding old = ints;
+        ints = val;
+        return old;
+    }
+
+    public boolean getInterning() {
+        return interned != null;
+    }
+
+    /**
+     * <p>
+     * Sets whether Strings are interned, which must match the
+     * SerialWriter.</p>
+     *
+     * @param val Whether Strings are interned.
+     *
+     * @return Whether Strings were previously interned.
+     */
+    public boolean setInterning(boolean val) {
+        boolean old = interned != null;
+        interned = val ? (old ? interned : new ArrayList<>()) : null;
+        return old;
+    }
+
+    public boolean getTracking() {
+        return tracked != null;
+    }
+
+    /**
+     * <p>
+     * Sets whether references are tracked, which must match the
+     * SerialWriter. Shared Objects are deserialised once and every reference
+     * to them is set to the same instance. A cycle is rebuilt when it passes
+     * through a Class serialised by it's fields; Objects with a built in,
+     * registered or compiled Codec are only known once they have been
+     * read.</p>
+     *
+     * @param val Whether references are tracked.
+     *
+     * @return Whether references were previously tracked.
+     */
+    public boolean setTracking(boolean val) {
+        boolean old = tracked != null;
+        tracked = val ? (old ? tracked : new ArrayList<>()) : null;
+        return old;
+    }
+
+    public ClassRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * <p>
+     * Sets the ClassRegistry used to read Objects written with a class ID
+     * and to read Classes whose fields differ from the peer's, see
+     * ClassRegistry.</p>
+     *
+     * @param val The new ClassRegistry, null to read every Object as it's
+     *            declared Class.
+     *
+     * @return The previous ClassRegistry.
+     */
+    public ClassRegistry setRegistry(ClassRegistry val) {
+        ClassRegistry old = registry;
+        registry = val;
+        return old;
+    }
+
+    public boolean getReuse() {
+        return reuse;
+    }
+
+    /**
+     * <p>
+     * Sets whether Objects and Arrays are reused. When reusing, an Object
+     * held by a field is deserialised into in place and an Array held by a
+     * field, or passed to readArray, is overwritten if it has the right
+     * length. New instances are taken from the ObjectPool registered with
+     * Serialiser.setPool for their Class, if there is one.</p>
+     *
+     * @param val Whether to reuse Objects and Arrays.
+     *
+     * @return Whether Objects and Arrays were previously reused.
+     */
+    public boolean setReuse(boolean val) {
+        boolean old = reuse;
+        reuse = val;
+        return old;
+    }
+
+    /**
+     * <p>
+     * Returns the buffer this SerialReader is deserialising from, positioned
+     * after the last byte read.</p>
+     *
+     * @return The buffer being deserialised from.
+     */
+    public ByteBuffer buffer() {
+        return buff;
+    }
+
+    /**
+     * <p>
+     * Returns the byte order values are read in.</p>
+     *
+     * @return The byte order values are read in.
+     */
+    public ByteOrder getOrder() {
+        return buff.order();
+    }
+
+    /**
+     * <p>
+     * Sets the byte order values are read in.</p>
+     *
+     * @param val The new byte order.
+     *
+     * @return The previous byte order.
+     */
+    public ByteOrder setOrder(ByteOrder val) {
+        ByteOrder old = buff.order();
+        buff.order(val);
+        return old;
+    }
+
+    /**
+     * <p>
+     * Returns the position of the next byte to be read.</p>
+     *
+     * @return The position of the next byte to be read.
+     */
+    public int position() {
+        return buff.position();
+    }
+
+    /**
+     * <p>
+     * Reads an unsigned LEB128 varint written by SerialWriter.putVarInt.</p>
+     *
+     * @return The int read.
+     */
+    public int getVarInt() {
+        int val = 0;
+        for (int shift = 0;; shift += 7) {
+            byte b = buff.get();
+            val |= (b & 0x7F) << shift;
+            if (b >= 0) { //This is the last byte.
+                return val;
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Reads an unsigned LEB128 varint written by SerialWriter.putVarLong.</p>
+     *
+     * @return The long read.
+     */
+    public long getVarLong() {
+        long val = 0;
+        for (int shift = 0;; shift += 7) {
+            byte b = buff.get();
+            val |= (long) (b & 0x7F) << shift;
+            if (b >= 0) { //This is the last byte.
+                return val;
+            }
+        }
+    }
+
+    public int getZigZagInt() {
+        int val = getVarInt();
+        return (val >>> 1) ^ -(val & 1);
+    }
+
+    public long getZigZagLong() {
+        long val = getVarLong();
+        return (val >>> 1) ^ -(val & 1);
+    }
+
+    /**
+     * <p>
+     * Reads an int field using this SerialReader's IntEncoding.</p>
+     *
+     * @return The int read.
+     */
+    public int readInt() {
+        return ints == IntEncoding.VARINT ? getZigZagInt() : buff.getInt();
+    }
+
+    /**
+     * <p>
+     * Reads a long field using this SerialReader's IntEncoding.</p>
+     *
+     * @return The long read.
+     */
+    public long readLong() {
+        return ints == IntEncoding.VARINT ? getZigZagLong() : buff.getLong();
+    }
+
+    /**
+     * <p>
+     * Reads the length of a String or Array using this SerialReader's
+     * IntEncoding.</p>
+     *
+     * @return The length read.
+     */
+    public int getLength() {
+        return ints == IntEncoding.VARINT ? getVarInt() : buff.getInt();
+    }
+
+    public byte getByte() {
+        return buff.get();
+    }
+
+    public boolean getBoolean() {
+        return buff.get() == 1;
+    }
+
+    public short getShort() {
+        return buff.getShort();
+    }
+
+    public char getChar() {
+        return buff.getChar();
+    }
+
+    public int getInt() {
+        return buff.getInt();
+    }
+
+    public long getLong() {
+        return buff.getLong();
+    }
+
+    public float getFloat() {
+        return buff.getFloat();
+    }
+
+    public double getDouble() {
+        return buff.getDouble();
+    }
+
+    /**
+     * <p>
+     * Reads 'len' bytes into 'dst' starting at 'off'.</p>
+     *
+     * @param dst The byte[] to read into.
+     * @param off The position in 'dst' to start at.
+     * @param len The number of bytes to read.
+     */
+    public void getBytes(byte[] dst, int off, int len) {
+        buff.get(dst, off, len);
+    }
+
+    /**
+     * <p>
+     * Deserialises a String using this SerialReader's StringEncoding.</p>
+     *
+     * @return The deserialised String.
+     */
+    public String readString() {
+        if (interned != null) { //Check for a reference to an earlier String.
+            int index = getVarInt();
+            if (index != 0) {
+                return interned.get(index - 1);
+            }
+        }
+        String str;
+        switch (encoding) {
+            case UTF8:
+                str = readEncoded(getVarInt(), StandardCharsets.UTF_8);
+                break;
+            case LATIN1:
+                str = readEncoded(getVarInt(), StandardCharsets.ISO_8859_1);
+                break;
+            default: {
+                char[] chrs = new char[getLength()]; //Create a char[] the length of the String to hold the characters of the String.
+                buff.asCharBuffer().get(chrs); //Copy every char at once.
+                buff.position(buff.position() + chrs.length * Character.BYTES);
+                str = String.valueOf(chrs);
+            }
+        }
+        if (interned != null) {
+            interned.add(str);
+        }
+        return str;
+    }
+
+    /**
+     * <p>
+     * Decodes 'len' bytes as a String in the Charset 'cs', straight from the
+     * backing array if there is one.</p>
+     */
+    private String readEncoded(int len, Charset cs) {
+        if (buff.hasArray()) { //Decode without copying the bytes.
+            String str = new String(buff.array(), buff.arrayOffset() + buff.
+                    position(), len, cs);
+            buff.position(buff.position() + len);
+            return str;
+        }
+        byte[] bytes = new byte[len];
+        buff.get(bytes);
+        return new String(bytes, cs);
+    }
+
+    /**
+     * <p>
+     * Deserialises an Array of type 'cls' serialised in the form 'Array
+     * length, value bytes'.</p>
+     *
+     * @param cls The type of Array to deserialise.
+     *
+     * @return The deserialised Array.
+     *
+     * @throws java.lang.InstantiationException Thrown if the component type
+     *                                          of 'cls' does not have a
+     *                                          nullary constructor.
+     * @throws java.lang.IllegalAccessException Thrown if the component type
+     *                                          of 'cls' or it's nullary
+     *                                          constructor cannot be
+     *                                          accessed.
+     */
+    public Object readArray(Class cls) throws InstantiationException, IllegalAccessException {
+        return readArray(cls, null);
+    }
+
+    /**
+     * <p>
+     * Deserialises an Array of type 'cls' serialised in the form 'Array
+     * length, value bytes' into 'old' if it has the same length, otherwise
+     * into a new Array. When reusing Objects the elements of an Object[] are
+     * deserialised into the elements of 'old'.</p>
+     *
+     * @param cls The type of Array to deserialise.
+     * @param old The Array to overwrite or null.
+     *
+     * @return The deserialised Array.
+     *
+     * @throws java.lang.InstantiationException Thrown if the component type
+     *                                          of 'cls' does not have a
+     *                                          nullary constructor.
+     * @throws java.lang.IllegalAccessException Thrown if the component type
+     *                                          of 'cls' or it's nullary
+     *                                          constructor cannot be
+     *                                          accessed.
+     */
+    public Object readArray(Class cls, Object old) throws InstantiationException, IllegalAccessException {
+        if (cls == boolean[].class) { //It's a boolean[].
+            return readBooleans((boolean[]) old);
+        }
+        int length = getLength(); //The length of the Array.
+        if (!cls.isInstance(old) || java.lang.reflect.Array.getLength(old)
+                != length) { //old cannot be overwritten.
+            old = null;
+        }
+        if (cls == String[].class) { //It's a String[].
+            String[] val = old == null ? new String[length] : (String[]) old; //Create a String[] to hold each String.
+            for (int i = 0; i < val.length; i++) { //Loop through each String.
+                val[i] = readString();
+            }
+            return val;
+        } else if (cls == int[].class) { //It's an int[].
+            int[] val = old == null ? new int[length] : (int[]) old; //Create an int[] to hold each int.
+            buff.asIntBuffer().get(val); //Copy every int at once.
+            buff.position(buff.position() + val.length * Integer.BYTES);
+            return val;
+        } else if (cls == long[].class) { //It's a long[].
+            long[] val = old == null ? new long[length] : (long[]) old; //Create a long[] to hold each long.
+            buff.asLongBuffer().get(val); //Copy every long at once.
+            buff.position(buff.position() + val.length * Long.BYTES);
+            return val;
+        } else if (cls == double[].class) { //It's a double[].
+            double[] val = old == null ? new double[length] : (double[]) old; //Create a double[] to hold each double.
+            buff.asDoubleBuffer().get(val); //Copy every double at once.
+            buff.position(buff.position() + val.length * Double.BYTES);
+            return val;
+        } else if (cls == float[].class) { //It's a float[].
+            float[] val = old == null ? new float[length] : (float[]) old; //Create a float[] to hold each float.
+            buff.asFloatBuffer().get(val); //Copy every float at once.
+            buff.position(buff.position() + val.length * Float.BYTES);
+            return val;
+        } else if (cls == byte[].class) { //It's a byte[].
+            byte[] val = old == null ? new byte[length] : (byte[]) old; //Create a byte[] to store each byte.
+            buff.get(val, 0, val.length);
+            return val;
+        } else if (cls == short[].class) { //It's a short[].
+            short[] val = old == null ? new short[length] : (short[]) old; //Create a short[] to hold each short.
+            buff.asShortBuffer().get(val); //Copy every short at once.
+            buff.position(buff.position() + val.length * Short.BYTES);
+            return val;
+        } else if (cls == char[].class) { //It's a char[].
+            char[] val = old == null ? new char[length] : (char[]) old; //Create a char[] to hold each char.
+            buff.asCharBuffer().get(val); //Copy every char at once.
+            buff.position(buff.position() + val.length * Character.BYTES);
+            return val;
+        } else { //It's an Object[].
+            Object[] val = old == null ? (Object[]) java.lang.reflect.Array.
+                    newInstance(cls.getComponentType(), length) : (Object[]) old; //Create an Array to store each Object.
+            for (int i = 0; i < val.length; i++) { //Loop through each Object.
+                val[i] = readObject(cls.getComponentType(), reuse ? val[i]
+                        : null);
+            }
+            return val;
+        }
+    }
+
+    /**
+     * <p>
+     * Deserialises a boolean[] serialised as single bits with 8 booleans
+     * being stored in a single byte.</p>
+     *
+     * @return The deserialised boolean[].
+     */
+    public boolean[] readBooleans() {
+        return readBooleans(null);
+    }
+
+    /**
+     * <p>
+     * Deserialises a boolean[] serialised as single bits into 'old' if it
+     * has the same length, otherwise into a new boolean[].</p>
+     *
+     * @param old The boolean[] to overwrite or null.
+     *
+     * @return The deserialised boolean[].
+     */
+    public boolean[] readBooleans(boolean[] old) {
+        int length = getLength(); //The number of booleans.
+        boolean[] bool = old != null && old.length == length ? old
+                : new boolean[length]; //Create a boolean[] to store all the booleans that need to be deserialised.
+        for (int i = 0; i < bool.length; i += Long.SIZE) { //Loop through each group of 64 booleans.
+            int bits = Math.min(Long.SIZE, bool.length - i); //The number of booleans in this group.
+            long word = getWord(bits); //The booleans packed into a long.
+            for (int b = 0; b < bits; b++) { //Unpack each boolean.
+                bool[i + b] = ((word >>> b) & 1) != 0;
+            }
+        }
+        return bool;
+    }
+
+    /**
+     * <p>
+     * Deserialises a BitSet serialised in the same form as a
+     * boolean[].</p>
+     *
+     * @return The deserialised BitSet.
+     */
+    public BitSet readBitSet() {
+        return BitSet.valueOf(readWords(getLength()));
+    }
+
+    /**
+     * <p>
+     * Deserialises a BitMap serialised in the same form as a
+     * boolean[].</p>
+     *
+     * @return The deserialised BitMap.
+     */
+    public BitMap readBitMap() {
+        int length = getLength(); //The number of bits.
+        return new BitMap(readWords(length), length);
+    }
+
+    /**
+     * <p>
+     * Reads 'length' packed bits into a long[], 64 to a long.</p>
+     */
+    private long[] readWords(int length) {
+        long[] words = new long[(length + Long.SIZE - 1) / Long.SIZE];
+        for (int i = 0; i < words.length; i++) { //Loop through each word.
+            words[i] = getWord(Math.min(Long.SIZE, length - i * Long.SIZE));
+        }
+        return words;
+    }
+
+    /**
+     * <p>
+     * Reads 'bits' bits from 'ceil(bits / 8)' bytes, the lowest byte
+     * first.</p>
+     */
+    private long getWord(int bits) {
+        if (bits == Long.SIZE) { //Read the whole word at once.
+            long word = buff.getLong();
+            return buff.order() == ByteOrder.LITTLE_ENDIAN ? word : Long.
+                    reverseBytes(word);
+        }
+        long word = 0;
+        for (int b = 0; b < bits; b += Byte.SIZE) { //Read each byte holding bits.
+            word |= (buff.get() & 0xFFL) << b;
+        }
+        return word;
+    }
+
+    /**
+     * <p>
+     * Deserialises a new instance of 'cls', preceded by a byte marking
+     * whether it is null.</p>
+     *
+     * @param cls The Class type to deserialise.
+     *
+     * @return The deserialised Object or null.
+     *
+     * @throws java.lang.InstantiationException Thrown if 'cls' does not have
+     *                                          a nullary constructor.
+     * @throws java.lang.IllegalAccessException Thrown if 'cls' or it's
+     *                                          nullary constructor cannot be
+     *                                          accessed.
+     */
+    public Object readObject(Class cls) throws InstantiationException, IllegalAccessException {
+        return readObject(cls, null);
+    }
+
+    /**
+     * <p>
+     * Deserialises an instance of 'cls', preceded by a byte marking whether
+     * it is null, into 'obj'.</p>
+     *
+     * @param cls The Class type to deserialise.
+     * @param obj The Object to deserialise values into, if null a new
+     *            instance of 'cls' will be created.
+     *
+     * @return The deserialised Object or null.
+     *
+     * @throws java.lang.InstantiationException Thrown if 'cls' does not have
+     *                                          a nullary constructor.
+     * @throws java.lang.IllegalAccessException Thrown if 'cls' or it's
+     *                                          nullary constructor cannot be
+     *                                          accessed.
+     * @throws java.lang.ClassCastException     Thrown if 'obj' is not an
+     *                                          instance of 'cls'.
+     * @throws java.lang.IllegalStateException  Thrown if the value is a
+     *                                          reference or class ID and this
+     *                                          SerialReader is not tracking
+     *                                          references or has no
+     *                                          ClassRegistry.
+     */
+    public Object readObject(Class cls, Object obj) throws InstantiationException, IllegalAccessException, ClassCastException {
+        if (cls.isArray()) { //This is an Array type.
+            return readArray(cls, reuse ? obj : null);
+        }
+        byte flag = buff.get(); //Whether this is null, a new Object or a reference.
+        if (flag == 2 && tracked != null) { //This is a reference to an earlier Object.
+            Object val = tracked.get(getVarInt());
+            if (val != null && !cls.isInstance(val)) {
+                throw new ClassCastException(
+                        "The referenced Object is not an instance of the passed Class.");
+            }
+            return val;
+        } else if (flag == 3 && registry != null) { //This is an instance of a subClass of cls.
+            Class actual = registry.classOf(getVarInt());
+            if (actual == null || !cls.isAssignableFrom(actual)) {
+                throw new ClassCastException(
+                        "The class ID is not a registered subClass of the passed Class.");
+            }
+            cls = actual;
+            obj = obj != null && obj.getClass() == cls ? obj : null; //obj can only be reused if it is the same Class.
+        } else if (flag == 2) { //The handle can't be resolved, or even skipped, without tracking.
+            throw new IllegalStateException(
+                    "The SerialWriter tracked references; call setTracking(true) on this SerialReader.");
+        } else if (flag == 3) { //The class ID can't be resolved without the registry.
+            throw new IllegalStateException(
+                    "The SerialWriter wrote a registered class ID; set a ClassRegistry on this SerialReader.");
+        } else if (flag != 1) { //This is a null value.
+            return null;
+        } else if (obj != null && !cls.isInstance(obj)) { //obj is not an instance of cls.
+            throw new ClassCastException(
+                    "The passed Object is not an instance of the passed Class.");
+        }
+        if (tracked == null) {
+            return readFields(cls, obj);
+        }
+        int handle = tracked.size(); //The handle the SerialWriter gave this Object.
+        if (obj == null && CodecRegistry.compiled(cls) == null) { //Create the instance first so cycles can refer back to it.
+            obj = reuse ? pooled(cls) : null;
+            if (obj == null) {
+                obj = create(cls);
+            }
+        }
+        tracked.add(obj);
+        obj = readFields(cls, obj);
+        tracked.set(handle, obj); //A Codec may have returned a different instance.
+        return obj;
+    }
+
+    /**
+     * <p>
+     * Deserialises a Collection serialised by SerialWriter.writeList as an
+     * ArrayList. If 'old' is an ArrayList it's elements are replaced and it
+     * is returned; when reusing Objects the elements of 'old' are
+     * deserialised into as well.</p>
+     *
+     * @param <E>  The type of the elements.
+     * @param elem The Class type of the elements.
+     * @param old  The Collection to reuse or null.
+     *
+     * @return The deserialised ArrayList or null.
+     *
+     * @throws java.lang.InstantiationException Thrown if 'elem' does not have
+     *                                          a nullary constructor.
+     * @throws java.lang.IllegalAccessException Thrown if 'elem' or it's
+     *                                          nullary constructor cannot be
+     *                                          accessed.
+     */
+    public <E> ArrayList<E> readList(Class<E> elem, Collection<E> old) throws InstantiationException, IllegalAccessException {
+        if (buff.get() != 1) { //This is a null value.
+            return null;
+        }
+        int length = getLength(); //The number of elements.
+        ArrayList<E> val = old instanceof ArrayList ? (ArrayList<E>) old
+                : new ArrayList<>(length);
+        int reused = Math.min(val.size(), length); //The number of elements which replace an existing element.
+        for (int i = 0; i < reused; i++) {
+            val.set(i, (E) readObject(elem, reuse ? val.get(i) : null));
+        }
+        val.subList(reused, val.size()).clear(); //Remove the extra elements.
+        for (int i = reused; i < length; i++) {
+            val.add((E) readObject(elem));
+        }
+        return val;
+    }
+
+    /**
+     * <p>
+     * Deserialises a Map serialised by SerialWriter.writeMap as a HashMap. If
+     * 'old' is a HashMap it is cleared, filled and returned.</p>
+     *
+     * @param <K>   The type of the keys.
+     * @param <V>   The type of the values.
+     * @param key   The Class type of the keys.
+     * @param value The Class type of the values.
+     * @param old   The Map to reuse or null.
+     *
+     * @return The deserialised HashMap or null.
+     *
+     * @throws java.lang.InstantiationException Thrown if 'key' or 'value'
+     *                                          does not have a nullary
+     *                                          constructor.
+     * @throws java.lang.IllegalAccessException Thrown if 'key', 'value' or
+     *                                          their nullary constructors
+     *                                          cannot be accessed.
+     */
+    public <K, V> HashMap<K, V> readMap(Class<K> key, Class<V> value,
+            Map<K, V> old) throws InstantiationException, IllegalAccessException {
+        if (buff.get() != 1) { //This is a null value.
+            return null;
+        }
+        int length = getLength(); //The number of entries.
+        HashMap<K, V> val;
+        if (old instanceof HashMap) {
+            val = (HashMap<K, V>) old;
+            val.clear();
+        } else {
+            val = new HashMap<>((int) (length / 0.75f) + 1); //Size the table so it never resizes.
+        }
+        for (int i = 0; i < length; i++) { //Read each entry.
+            K k = (K) readObject(key);
+            val.put(k, (V) readObject(value));
+        }
+        return val;
+    }
+
+    /**
+     * <p>
+     * Deserialises a Set serialised by SerialWriter.writeEnumSet as an
+     * EnumSet. If 'old' is an EnumSet it's elements are replaced and it is
+     * returned.</p>
+     *
+     * @param <E>  The enum type of the elements.
+     * @param elem The enum Class of the elements.
+     * @param old  The Set to reuse or null.
+     *
+     * @return The deserialised EnumSet or null.
+     */
+    public <E extends Enum<E>> EnumSet<E> readEnumSet(Class<E> elem,
+            Set<E> old) {
+        if (buff.get() != 1) { //This is a null value.
+            return null;
+        }
+        E[] constants = elem.getEnumConstants();
+        long[] words = readWords(constants.length); //A bit for each constant.
+        EnumSet<E> val;
+        if (old instanceof EnumSet) {
+            val = (EnumSet<E>) old;
+            val.clear();
+        } else {
+            val = EnumSet.noneOf(elem);
+        }
+        for (int i = 0; i < constants.length; i++) { //Add each constant whose bit is set.
+            if ((words[i >>> 6] & (1L << i)) != 0) {
+                val.add(constants[i]);
+            }
+        }
+        return val;
+    }
+
+    /**
+     * <p>
+     * Deserialises the fields of an instance of 'cls' into 'obj', without
+     * the byte marking whether it is null.</p>
+     *
+     * @param cls The Class type to deserialise.
+     * @param obj The Object to deserialise values into, if null a new
+     *            instance of 'cls' will be created.
+     *
+     * @return The deserialised Object.
+     *
+     * @throws java.lang.InstantiationException Thrown if 'cls' does not have
+     *                                          a nullary constructor.
+     * @throws java.lang.IllegalAccessException Thrown if 'cls' or it's
+     *                                          nullary constructor cannot be
+     *                                          accessed.
+     */
+    Object readFields(Class cls, Object obj) throws InstantiationException, IllegalAccessException {
+        if (obj == null && reuse) { //Take an instance from cls's pool.
+            obj = pooled(cls);
+        }
+        ClassRegistry.Translation t = registry == null ? null : registry.
+                translation(cls); //How to read the peer's version of cls, if it differs.
+        Codec codec = t == null ? CodecRegistry.of(cls) : null; //The Codec for cls, if there is one.
+        if (codec != null) { //The Codec creates the instance if needed.
+            return codec.read(this, obj);
+        }
+        if (obj == null) { //obj needs to have a value to be deserialised to.
+            obj = create(cls);
+        }
+        ClassPlan.FieldPlan[] fields = ClassPlan.of(cls).fields;
+        if (t != null) { //Read the peer's fields in the peer's order.
+            for (int i = 0; i < t.length(); i++) {
+                if (t.local[i] == -1 && nullObject(t.code(i))) { //A null needs no type to skip, which may no longer exist.
+                    buff.get();
+                } else if (t.local[i] == -1) { //cls no longer has this field.
+                    skipField(t.remote(i));
+                } else {
+                    readField(fields[t.local[i]], obj);
+                }
+            }
+            return obj;
+        }
+        for (ClassPlan.FieldPlan f : fields) { //Loop through every field in the cached plan.
+            readField(f, obj);
+        }
+        return obj;
+    }
+
+    /**
+     * <p>
+     * Returns true if the next value, of the type code 'code', is an Object
+     * or collection written as null.</p>
+     */
+    private boolean nullObject(int code) {
+        return (code == ClassPlan.OBJECT || code == ClassPlan.LIST || code
+                == ClassPlan.MAP || code == ClassPlan.ENUM_SET) && buff.get(
+                        buff.position()) == 0;
+    }
+
+    /**
+     * <p>
+     * Reads past the value of the field 'f', without setting it.</p>
+     */
+    void skipField(ClassPlan.FieldPlan f) throws InstantiationException, IllegalAccessException {
+        switch (f.code) {
+            case ClassPlan.INT: //It's an int.
+                readInt();
+                break;
+            case ClassPlan.LONG: //It's a long.
+                readLong();
+                break;
+            case ClassPlan.VAR_INT: //It's an int which is always a varint.
+            case ClassPlan.VAR_LONG: //It's a long which is always a varint.
+                getVarLong();
+                break;
+            case ClassPlan.DOUBLE: //It's a double.
+                buff.position(buff.position() + Double.BYTES);
+                break;
+            case ClassPlan.FLOAT: //It's a float.
+                buff.position(buff.position() + Float.BYTES);
+                break;
+            case ClassPlan.BOOLEAN: //It's a boolean.
+            case ClassPlan.BYTE: //It's a byte.
+                buff.position(buff.position() + Byte.BYTES);
+                break;
+            case ClassPlan.SHORT: //It's a short.
+            case ClassPlan.CHAR: //It's a char.
+                buff.position(buff.position() + Short.BYTES);
+                break;
+            default: //It's an Object.
+                readValue(f, null);
+        }
+    }
+
+    /**
+     * <p>
+     * Deserialises an instance of 'cls' serialised by
+     * SerialWriter.writeIndexed into 'obj', skipping the offset table.</p>
+     *
+     * @param cls The Class type to deserialise.
+     * @param obj The Object to deserialise values into, if null a new
+     *            instance of 'cls' will be created.
+     *
+     * @return The deserialised Object or null.
+     *
+     * @throws java.lang.InstantiationException Thrown if 'cls' does not have
+     *                                          a nullary constructor.
+     * @throws java.lang.IllegalAccessException Thrown if 'cls' or it's
+     *                                          nullary constructor cannot be
+     *                                          accessed.
+     * @throws java.lang.ClassCastException     Thrown if 'obj' is not an
+     *                                          instance of 'cls'.
+     */
+    public Object readIndexed(Class cls, Object obj) throws InstantiationException, IllegalAccessException, ClassCastException {
+        if (buff.get() != 1) { //This is a null value.
+            return null;
+        } else if (obj != null && !cls.isInstance(obj)) { //obj is not an instance of cls.
+            throw new ClassCastException(
+                    "The passed Object is not an instance of the passed Class.");
+        }
+        SerialView.Layout layout = SerialView.Layout.of(cls, ints);
+        buff.position(buff.position() + layout.vars * Integer.BYTES); //The fields are read in order so the offsets are not needed.
+        if (obj == null && reuse) { //Take an instance from cls's pool.
+            obj = pooled(cls);
+        }
+        if (obj == null) {
+            obj = create(cls);
+        }
+        for (ClassPlan.FieldPlan f : ClassPlan.of(cls).fields) { //Loop through every field in the cached plan.
+            readField(f, obj);
+        }
+        return obj;
+    }
+
+    /**
+     * <p>
+     * Returns an instance of 'cls' from it's ObjectPool, or null if there is
+     * none.</p>
+     */
+    private static Object pooled(Class cls) {
+        ObjectPool pool = Serialiser.getPool(cls);
+        return pool == null ? null : pool.acquire();
+    }
+
+    /**
+     * <p>
+     * Creates a new instance of 'cls' through it's nullary constructor, using
+     * the same constructor handle as it's ClassPlan and generated Codec so
+     * private constructors work in every mode.</p>
+     */
+    private static Object create(Class cls) throws InstantiationException, IllegalAccessException {
+        try {
+            return (Object) ClassPlan.of(cls).create.invokeExact(); //Create a new Instance of cls to deserialise values to.
+        } catch (InstantiationException | IllegalAccessException | RuntimeException | Error ex) {
+            throw ex;
+        } catch (Throwable ex) { //The constructor threw a checked exception.
+            throw (InstantiationException) new InstantiationException(
+                    "The constructor of the passed class threw an exception.").
+                    initCause(ex);
+        }
+    }
+
+    /**
+     * <p>
+     * Deserialises the value of the field 'f' into 'obj'.</p>
+     */
+    private void readField(ClassPlan.FieldPlan f, Object obj) throws InstantiationException, IllegalAccessException {
+        switch (f.code) {
+            case ClassPlan.STRING: //It's a String.
+                f.access.set(obj, readString());
+                break;
+            case ClassPlan.INT: //It's an int.
+                f.access.setInt(obj, readInt());
+                break;
+            case ClassPlan.LONG: //It's a long.
+                f.access.setLong(obj, readLong());
+                break;
+            case ClassPlan.VAR_INT: //It's an int which is always a varint.
+                f.access.setInt(obj, getZigZagInt());
+                break;
+            case ClassPlan.VAR_LONG: //It's a long which is always a varint.
+                f.access.setLong(obj, getZigZagLong());
+                break;
+            case ClassPlan.DOUBLE: //It's a double.
+                f.access.setDouble(obj, buff.getDouble());
+                break;
+            case ClassPlan.FLOAT: //It's a float.
+                f.access.setFloat(obj, buff.getFloat());
+                break;
+            case ClassPlan.BOOLEAN: //It's a boolean.
+                f.access.setBoolean(obj, buff.get() == 1);
+                break;
+            case ClassPlan.BYTE: //It's a byte.
+                f.access.setByte(obj, buff.get());
+                break;
+            case ClassPlan.SHORT: //It's a short.
+                f.access.setShort(obj, buff.getShort());
+                break;
+            case ClassPlan.CHAR: //It's a char.
+                f.access.setChar(obj, buff.getChar());
+                break;
+            default: //It's an Object.
+                f.access.set(obj, readValue(f, reuse ? f.access.get(obj)
+                        : null));
+        }
+    }
+
+    /**
+     * <p>
+     * Deserialises the value of the non primitive field 'f', into 'old' if
+     * it can be reused.</p>
+     */
+    Object readValue(ClassPlan.FieldPlan f, Object old) throws InstantiationException, IllegalAccessException {
+        switch (f.code) {
+            case ClassPlan.ARRAY: //This field contains an Array.
+                return readArray(f.type, old);
+            case ClassPlan.STRING: //It's a String.
+                return readString();
+            case ClassPlan.LIST: //It's a Collection.
+                return readList(f.args[0], (Collection) old);
+            case ClassPlan.MAP: //It's a Map.
+                return readMap(f.args[0], f.args[1], (Map) old);
+            case ClassPlan.ENUM_SET: //It's a Set of an enum.
+                return readEnumSet(f.args[0], (Set) old);
+            default: //It's an Object.
+                return readObject(f.type, old);
+        }
+    }
+
+    /**
+     * <p>
+     * Applies a delta written by SerialWriter.writeDelta to 'base', an
+     * instance of 'cls', setting only the fields marked as changed.</p>
+     *
+     * @param cls  The Class type of 'base'.
+     * @param base The previous state the delta is applied to.
+     *
+     * @return 'base', updated to the current state.
+     *
+     * @throws java.lang.InstantiationException Thrown if a changed field
+     *                                          could not be deserialised.
+     * @throws java.lang.IllegalAccessException Thrown if 'base' is not an
+     *                                          instance of 'cls'.
+     */
+    public Object readDelta(Class cls, Object base) throws InstantiationException, IllegalAccessException {
+        if (!cls.isInstance(base)) {
+            throw new IllegalAccessException(
+                    "The passed Object is not an instance of the passed Class.");
+        }
+        ClassPlan.FieldPlan[] fields = ClassPlan.of(cls).fields;
+        long[] mask = readWords(fields.length); //The bitmask of changed fields.
+        for (int i = 0; i < fields.length; i++) { //Read each changed field.
+            if ((mask[i >>> 6] & (1L << i)) != 0) {
+                readField(fields[i], base);
+            }
+        }
+        return base;
+    }
+}
@@ -0,0 +1,420 @@
+package GameLibrary.Serialisation;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * <p>
+ * A flyweight over an Object serialised by SerialWriter.writeIndexed which
+ * deserialises fields only when they are accessed. Reading one field of a
+ * large message, for example an ID to route it by, does not deserialise the
+ * rest of the message.</p>
+ * <p>
+ * The indexed layout is a byte marking whether the Object is null, an
+ * offset table holding the end of every variable length field as an int,
+ * and then the fields in the same order ObjectToBytes serialises them. The
+ * position of any field is found from the offset table and the sizes of
+ * the fixed length fields without scanning the fields before it.</p>
+ * <p>
+ * A SerialView can be pointed at a new message with reset and reused. The
+ * StringEncoding, IntEncoding and byte order must match the SerialWriter;
+ * Strings are never interned in the indexed layout.</p>
+ *
+ * @author Dynisious
+ * @version 0.0.1
+ */
+public final class SerialView {
+
+    /**
+     * <p>
+     * The Layouts of every Class viewed, one for each IntEncoding.</p>
+     */
+    private static final ClassValue<Layout[]> LAYOUTS = new ClassValue<Layout[]>() {
+        @Override
+        protected Layout[] computeValue(Class<?> type) {
+            return new Layout[]{new Layout(type, IntEncoding.FIXED),
+                new Layout(type, IntEncoding.VARINT)};
+        }
+    };
+
+    /**
+     * <p>
+     * The Class of the viewed Object.</p>
+     */
+    private final Class cls;
+    /**
+     * <p>
+     * The SerialReader fields are deserialised with.</p>
+     */
+    private final SerialReader reader;
+    /**
+     * <p>
+     * The Layout of 'cls' for the reader's IntEncoding.</p>
+     */
+    private Layout layout;
+    /**
+     * <p>
+     * The buffer holding the viewed Object.</p>
+     */
+    private ByteBuffer buff;
+    /**
+     * <p>
+     * The position of the byte marking whether the Object is null.</p>
+     */
+    private int begin;
+
+    /**
+     * <p>
+     * Creates a new SerialView of the instance of 'cls' in 'buff' starting
+     * at it's current position. 'buff' is not modified.</p>
+     *
+     * @param nCls  The Class of the viewed Object.
+     * @param nBuff The buffer holding the Object.
+     */
+    public SerialView(Class nCls, ByteBuffer nBuff) {
+        cls = nCls;
+        reader = new SerialReader(nBuff);
+        reset(nBuff);
+    }
+
+    /**
+     * <p>
+     * Creates a new SerialView of the instance of 'cls' in 'buff' starting
+     * at 'pos'.</p>
+     *
+     * @param nCls  The Class of the viewed Object.
+     * @param nBuff The byte[] holding the Object.
+     * @param pos   The starting position in nBuff.
+     */
+    public SerialView(Class nCls, byte[] nBuff, int pos) {
+        this(nCls, ByteBuffer.wrap(nBuff, pos, nBuff.length - pos));
+    }
+
+    /**
+     * <p>
+     * Points this SerialView at the instance of it's Class in 'nBuff'
+     * starting at it's current position, using it's byte order.</p>
+     *
+     * @param nBuff The buffer holding the Object.
+     */
+    public void reset(ByteBuffer nBuff) {
+        buff = nBuff.duplicate().order(nBuff.order()); //Keep a private cursor so nBuff is never moved.
+        begin = nBuff.position();
+        reader.reset(buff);
+        layout = Layout.of(cls, reader.getIntEncoding());
+    }
+
+    public StringEncoding getStringEncoding() {
+        return reader.getStringEncoding();
+    }
+
+    /**
+     * <p>
+     * Sets the StringEncoding Strings are read with, which must match the
+     * SerialWriter.</p>
+     *
+     * @param val The new StringEncoding.
+     *
+     * @return The previous StringEncoding.
+     */
+    public StringEncoding setStringEncoding(StringEncoding val) {
+        return reader.setStringEncoding(val);
+    }
+
+    public IntEncoding getIntEncoding() {
+        return reader.getIntEncoding();
+    }
+
+    /**
+     * <p>
+     * Sets the IntEncoding int and long fields and lengths are read with,
+     * which must match the SerialWriter.</p>
+     *
+     * @param val The new IntEncoding.
+     *
+     * @return The previous IntEncoding.
+     */
+    public IntEncoding setIntEncoding(IntEncoding val) {
+        IntEncoding old = reader.setIntEncoding(val);
+        layout = Layout.of(cls, val);
+        return old;
+    }
+
+    public ByteOrder getOrder() {
+        return buff.order();
+    }
+
+    /**
+     * <p>
+     * Sets the byte order values are read in, which must match the
+     * SerialWriter.</p>
+     *
+     * @param val The new byte order.
+     *
+     * @return The previous byte order.
+     */
+    public ByteOrder setOrder(ByteOrder val) {
+        return reader.setOrder(val);
+    }
+
+    /**
+     * <p>
+     * Returns true if the viewed Object is null, in which case it has no
+     * fields.</p>
+     *
+     * @return Whether the viewed Object is null.
+     */
+    public boolean isNull() {
+        return buff.get(begin) != 1;
+    }
+
+    /**
+     * <p>
+     * Returns the number of bytes the viewed Object was serialised to, so
+     * that the message after it can be found without deserialising it.</p>
+     *
+     * @return The size of the viewed Object in bytes.
+     */
+    public int size() {
+        return isNull() ? Byte.BYTES : offset(layout.skip.length - 1) - begin;
+    }
+
+    /**
+     * <p>
+     * Returns the index of the field called 'name', the position of the
+     * field in serialisation order.</p>
+     *
+     * @param name The name of the field.
+     *
+     * @return The index of the field.
+     *
+     * @throws java.lang.IllegalArgumentException Thrown if the Class has no
+     *                                            serialised field called
+     *                                            'name'.
+     */
+    public int indexOf(String name) throws IllegalArgumentException {
+        ClassPlan.FieldPlan[] fields = layout.plan.fields;
+        for (int i = 0; i < fields.length; i++) {
+            if (fields[i].field.getName().equals(name)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException(cls + " has no serialised field "
+                + name + ".");
+    }
+
+    public int getInt(int index) throws ClassCastException {
+        switch (seek(index).code) {
+            case ClassPlan.INT:
+                return reader.readInt();
+            case ClassPlan.VAR_INT:
+                return reader.getZigZagInt();
+            default:
+                throw mismatch(index, "an int");
+        }
+    }
+
+    public long getLong(int index) throws ClassCastException {
+        switch (seek(index).code) {
+            case ClassPlan.LONG:
+                return reader.readLong();
+            case ClassPlan.VAR_LONG:
+                return reader.getZigZagLong();
+            default:
+                throw mismatch(index, "a long");
+        }
+    }
+
+    public double getDouble(int index) throws ClassCastException {
+        check(seek(index), ClassPlan.DOUBLE, index, "a double");
+        return reader.getDouble();
+    }
+
+    public float getFloat(int index) throws ClassCastException {
+        check(seek(index), ClassPlan.FLOAT, index, "a float");
+        return reader.getFloat();
+    }
+
+    public boolean getBoolean(int index) throws ClassCastException {
+        check(seek(index), ClassPlan.BOOLEAN, index, "a boolean");
+        return reader.getBoolean();
+    }
+
+    public byte getByte(int index) throws ClassCastException {
+        check(seek(index), ClassPlan.BYTE, index, "a byte");
+        return reader.getByte();
+    }
+
+    public short getShort(int index) throws ClassCastException {
+        check(seek(index), ClassPlan.SHORT, index, "a short");
+        return reader.getShort();
+    }
+
+    public char getChar(int index) throws ClassCastException {
+        check(seek(index), ClassPlan.CHAR, index, "a char");
+        return reader.getChar();
+    }
+
+    public String getString(int index) throws ClassCastException {
+        check(seek(index), ClassPlan.STRING, index, "a String");
+        return reader.readString();
+    }
+
+    /**
+     * <p>
+     * Deserialises the field at 'index', boxing primitive values.</p>
+     *
+     * @param index The index of the field.
+     *
+     * @return The value of the field.
+     *
+     * @throws java.lang.InstantiationException Thrown if the field's Class
+     *                                          does not have a nullary
+     *                                          constructor.
+     * @throws java.lang.IllegalAccessException Thrown if the field's Class
+     *                                          or it's nullary constructor
+     *                                          cannot be accessed.
+     */
+    public Object get(int index) throws InstantiationException, IllegalAccessException {
+        ClassPlan.FieldPlan f = seek(index);
+        switch (f.code) {
+            case ClassPlan.INT: //It's an int.
+                return reader.readInt();
+            case ClassPlan.LONG: //It's a long.
+                return reader.readLong();
+            case ClassPlan.VAR_INT: //It's an int which is always a varint.
+                return reader.getZigZagInt();
+            case ClassPlan.VAR_LONG: //It's a long which is always a varint.
+                return reader.getZigZagLong();
+            case ClassPlan.DOUBLE: //It's a double.
+                return reader.getDouble();
+            case ClassPlan.FLOAT: //It's a float.
+                return reader.getFloat();
+            case ClassPlan.BOOLEAN: //It's a boolean.
+                return reader.getBoolean();
+            case ClassPlan.BYTE: //It's a byte.
+                return reader.getByte();
+            case ClassPlan.SHORT: //It's a short.
+                return reader.getShort();
+            case ClassPlan.CHAR: //It's a char.
+                return reader.getChar();
+            default: //It's a String, Array, collection or Object.
+                return reader.readValue(f, null);
+        }
+    }
+
+    public Object get(String name) throws InstantiationException, IllegalAccessException, IllegalArgumentException {
+        return get(indexOf(name));
+    }
+
+    /**
+     * <p>
+     * Moves the reader to the start of the field at 'index' and returns it's
+     * FieldPlan.</p>
+     */
+    private ClassPlan.FieldPlan seek(int index) {
+        if (isNull()) {
+            throw new IllegalStateException("The viewed Object is null.");
+        }
+        ClassPlan.FieldPlan f = layout.plan.fields[index];
+        buff.position(offset(index));
+        return f;
+    }
+
+    /**
+     * <p>
+     * Returns the position of the field at 'index', or the end of the
+     * Object if 'index' is the number of fields.</p>
+     */
+    private int offset(int index) {
+        int fields = begin + Byte.BYTES + layout.vars * Integer.BYTES; //The position of the first field.
+        int prev = layout.prev[index]; //The closest variable length field before index.
+        return fields + (prev < 0 ? 0 : buff.getInt(begin + Byte.BYTES + prev
+                * Integer.BYTES)) + layout.skip[index];
+    }
+
+    private void check(ClassPlan.FieldPlan f, int code, int index,
+            String type) throws ClassCastException {
+        if (f.code != code) {
+            throw mismatch(index, type);
+        }
+    }
+
+    private ClassCastException mismatch(int index, String type) {
+        return new ClassCastException("Field "
+                + layout.plan.fields[index].field.getName() + " of " + cls
+                + " is not " + type + ".");
+    }
+
+    /**
+     * <p>
+     * Where the fields of a Class are found in the indexed layout for an
+     * IntEncoding.</p>
+     *
+     * @author Dynisious
+     * @version 0.0.1
+     */
+    static final class Layout {
+        final ClassPlan plan; //The fields in serialisation order.
+        final boolean[] variable; //Whether each field has a variable length.
+        final int vars; //The number of variable length fields.
+        final int[] prev; //The offset table index of the closest variable length field before each field, or -1.
+        final int[] skip; //The fixed length bytes between that field's end and each field.
+
+        Layout(Class cls, IntEncoding ints) {
+            plan = ClassPlan.of(cls);
+            int n = plan.fields.length;
+            variable = new boolean[n];
+            prev = new int[n + 1];
+            skip = new int[n + 1];
+            int v = -1; //The offset table index of the last variable length field.
+            int s = 0; //The fixed length bytes since it.
+            for (int i = 0; i < n; i++) {
+                prev[i] = v;
+                skip[i] = s;
+                int size = fixedSize(plan.fields[i].code, ints);
+                if (size < 0) { //The field's end is stored in the offset table.
+                    variable[i] = true;
+                    v++;
+                    s = 0;
+                } else {
+                    s += size;
+                }
+            }
+            prev[n] = v;
+            skip[n] = s;
+            vars = v + 1;
+        }
+
+        static Layout of(Class cls, IntEncoding ints) {
+            return LAYOUTS.get(cls)[ints.ordinal()];
+        }
+
+        /**
+         * <p>
+         * Returns the size of a field with the type code 'code', or -1 if
+         * it's size varies.</p>
+         */
+        private static int fixedSize(int code, IntEncoding ints) {
+            switch (code) {
+                case ClassPlan.INT:
+                    return ints == IntEncoding.FIXED ? Integer.BYTES : -1;
+                case ClassPlan.LONG:
+                    return ints == IntEncoding.FIXED ? Long.BYTES : -1;
+                case ClassPlan.DOUBLE:
+                    return Double.BYTES;
+                case ClassPlan.FLOAT:
+                    return Float.BYTES;
+                case ClassPlan.BOOLEAN:
+                case ClassPlan.BYTE:
+                    return Byte.BYTES;
+                case ClassPlan.SHORT:
+                    return Short.BYTES;
+                case ClassPlan.CHAR:
+                    return Character.BYTES;
+                default:
+                    return -1;
+            }
+        }
+    }
+}
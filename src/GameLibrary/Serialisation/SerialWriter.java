@@ -0,0 +1,1554 @@
+package GameLibrary.Serialisation;
+
+import GameLibrary.GameObjects.BitMap;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer; //Used to serialise the Object into arrays of bytes.
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * <p>
+ * Serialises Objects in a single pass, using the same layout as
+ * Serialiser.ObjectToBytes, without needing to know their size first.</p>
+ * <p>
+ * A SerialWriter either writes into a buffer which grows as needed, into a
+ * fixed byte[] or ByteBuffer, or streams it's bytes to an OutputStream or
+ * WritableByteChannel each time it's buffer fills. Writers can be pooled per
+ * Thread using acquire and release so that the buffer is reused between
+ * messages.</p>
+ * <p>
+ * Values are written big endian unless the byte order is changed with
+ * setOrder, in which case the SerialReader must use the same order.</p>
+ *
+ * @author Dynisious
+ * @version 0.0.1
+ */
+public final class SerialWriter {
+
+    /**
+     * <p>
+     * The default capacity of a new SerialWriter's buffer.</p>
+     */
+    public static final int DEFAULT_CAPACITY = 256;
+    /**
+     * <p>
+     * Pooled writers whose buffer has grown beyond this capacity are
+     * discarded on release rather than holding onto the memory.</p>
+     */
+    public static final int MAX_POOLED_CAPACITY = 1 << 20;
+
+    /**
+     * <p>
+     * The pooled SerialWriter for each Thread.</p>
+     */
+    private static final ThreadLocal<SerialWriter> POOL = new ThreadLocal<>();
+
+    /**
+     * <p>
+     * Returns an empty growable SerialWriter from the calling Thread's pool,
+     * or a new SerialWriter if the pooled writer is already in use. The
+     * writer should be returned to the pool with release once it's bytes
+     * have been used.</p>
+     *
+     * @return An empty SerialWriter.
+     */
+    public static SerialWriter acquire() {
+        SerialWriter w = POOL.get();
+        if (w == null) { //The pool is empty.
+            return new SerialWriter();
+        }
+        POOL.set(null); //The writer is in use until it is released.
+        w.encoding = Serialiser.getStringEncoding();
+        w.ints = Serialiser.getIntEncoding();
+        w.registry = Serialiser.getRegistry();
+        return w;
+    }
+
+    /**
+     * <p>
+     * The buffer bytes are serialised into.</p>
+     */
+    private ByteBuffer buff;
+    /**
+     * <p>
+     * The position in 'buff' this SerialWriter started writing at.</p>
+     */
+    private int start;
+    /**
+     * <p>
+     * Whether 'buff' is replaced with a larger buffer when it fills.</p>
+     */
+    private final boolean growable;
+    /**
+     * <p>
+     * The OutputStream bytes are streamed to, if any.</p>
+     */
+    private final OutputStream out;
+    /**
+     * <p>
+     * The WritableByteChannel bytes are streamed to, if any.</p>
+     */
+    private final WritableByteChannel channel;
+    /**
+     * <p>
+     * The number of bytes which have already been streamed.</p>
+     */
+    private int flushed = 0;
+    /**
+     * <p>
+     * The StringEncoding Strings are written with.</p>
+     */
+    private StringEncoding encoding = Serialiser.getStringEncoding();
+    /**
+     * <p>
+     * The index of every String written since this SerialWriter was created
+     * or last reset, if Strings are being interned.</p>
+     */
+    private HashMap<String, Integer> interned = null;
+    /**
+     * <p>
+     * The handle of every Object written since this SerialWriter was created
+     * or last reset, by identity, if references are being tracked.</p>
+     */
+    private IdentityHashMap<Object, Integer> tracked = null;
+    /**
+     * <p>
+     * The ClassRegistry the class IDs of Objects are taken from, if any.</p>
+     */
+    private ClassRegistry registry = Serialiser.getRegistry();
+    /**
+     * <p>
+     * The IntEncoding int and long fields and lengths are written with.</p>
+     */
+    private IntEncoding ints = Serialiser.getIntEncoding();
+    /**
+     * <p>
+     * The writer Objects are serialised into when comparing them for a
+     * delta or writing them in the indexed layout, if one has been
+     * needed.</p>
+     */
+    private SerialWriter scratch = null;
+    /**
+     * <p>
+     * Whether large Object[]s may be serialised in parallel; false for the
+     * writers serialising the chunks.</p>
+     */
+    private boolean parallel = true;
+
+    /**
+     * <p>
+     * Creates a new SerialWriter with a growable buffer of the default
+     * capacity.</p>
+     */
+    public SerialWriter() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * <p>
+     * Creates a new SerialWriter with a growable buffer of the passed
+     * capacity.</p>
+     *
+     * @param capacity The initial capacity of the buffer.
+     */
+    public SerialWriter(int capacity) {
+        this(ByteBuffer.allocate(capacity), true, null, null);
+    }
+
+    /**
+     * <p>
+     * Creates a new SerialWriter which serialises into 'buff' starting at
+     * 'pos'. The buffer will not grow so writing past the end of 'buff'
+     * throws a java.nio.BufferOverflowException.</p>
+     *
+     * @param buff The byte[] to serialise into.
+     * @param pos  The starting position in buff.
+     */
+    public SerialWriter(byte[] buff, int pos) {
+        this((ByteBuffer) ByteBuffer.wrap(buff).position(pos), false, null,
+                null);
+    }
+
+    /**
+     * <p>
+     * Creates a new SerialWriter which serialises into 'buff' starting at
+     * it's current position, using it's byte order. 'buff' may be a direct or
+     * memory mapped buffer and it's position is advanced as bytes are
+     * written. The buffer will not grow so writing past it's limit throws a
+     * java.nio.BufferOverflowException.</p>
+     *
+     * @param buff The ByteBuffer to serialise into.
+     */
+    public SerialWriter(ByteBuffer buff) {
+        this(buff, false, null, null);
+    }
+
+    /**
+     * <p>
+     * Creates a new SerialWriter which streams it's bytes to 'nOut' each time
+     * it's buffer fills and when it is flushed.</p>
+     *
+     * @param nOut The OutputStream to stream to.
+     */
+    public SerialWriter(OutputStream nOut) {
+        this(ByteBuffer.allocate(DEFAULT_CAPACITY * 32), true, nOut, null);
+    }
+
+    /**
+     * <p>
+     * Creates a new SerialWriter which streams it's bytes to the blocking
+     * channel 'nChannel' each time it's buffer fills and when it is
+     * flushed.</p>
+     *
+     * @param nChannel The WritableByteChannel to stream to.
+     */
+    public SerialWriter(WritableByteChannel nChannel) {
+        this(ByteBuffer.allocate(DEFAULT_CAPACITY * 32), true, null, nChannel);
+    }
+
+    private SerialWriter(ByteBuffer nBuff, boolean nGrowable,
+            OutputStream nOut, WritableByteChannel nChannel) {
+        buff = nBuff;
+        start = nBuff.position();
+        growable = nGrowable;
+        out = nOut;
+        channel = nChannel;
+    }
+
+    /**
+     * <p>
+     * Returns the number of bytes written by this SerialWriter since it was
+     * created or last reset, including any which have been streamed.</p>
+     *
+     * @return The number of bytes written.
+     */
+    public int length() {
+        return flushed + buff.position() - start;
+    }
+
+    /**
+     * <p>
+     * Returns the buffer this SerialWriter is serialising into, positioned
+     * after the last byte written.</p>
+     *
+     * @return The buffer being serialised into.
+     */
+    public ByteBuffer buffer() {
+        return buff;
+    }
+
+    /**
+     * <p>
+     * Returns the byte order values are written in.</p>
+     *
+     * @return The byte order values are written in.
+     */
+    public ByteOrder getOrder() {
+        return buff.order();
+    }
+
+    /**
+     * <p>
+     * Sets the byte order values are written in. ByteOrder.nativeOrder()
+     * lets primitive arrays be copied in bulk when both ends of a connection
+     * agree on it.</p>
+     *
+     * @param val The new byte order.
+     *
+     * @return The previous byte order.
+     */
+    public ByteOrder setOrder(ByteOrder val) {
+        ByteOrder old = buff.order();
+        buff.order(val);
+        return old;
+    }
+
+    public StringEncoding getStringEncoding() {
+        return encoding;
+    }
+
+    /**
+     * <p>
+     * Sets the StringEncoding Strings are written with.</p>
+     *
+     * @param val The new StringEncoding.
+     *
+     * @return The previous StringEncoding.
+     */
+    public StringEncoding setStringEncoding(StringEncoding val) {
+        StringEncoding old = encoding;
+        encoding = val;
+        return old;
+    }
+
+    public IntEncoding getIntEncoding() {
+        return ints;
+    }
+
+    /**
+     * <p>
+     * Sets the IntEncoding int and long fields and lengths are written
+     * with.</p>
+     *
+     * @param val The new IntEncoding.
+     *
+     * @return The previous IntEncoding.
+     */
+    public IntEncoding setIntEncoding(IntEncoding val) {
+        IntEncoding old = ints;
+        ints = val;
+        return old;
+    }
+
+    public boolean getInterning() {
+        return interned != null;
+    }
+
+    /**
+     * <p>
+     * Sets whether Strings are interned. An interned String which has
+     * already been written since this SerialWriter was created or last reset
+     * is written as a varint reference to the first copy, every other String
+     * is preceded by a varint 0. The SerialReader must also intern Strings.
+     * Serialiser.ObjectSize does not account for interning.</p>
+     *
+     * @param val Whether Strings are interned.
+     *
+     * @return Whether Strings were previously interned.
+     */
+    public boolean setInterning(boolean val) {
+        boolean old = interned != null;
+        interned = val ? (old ? interned : new HashMap<>()) : null;
+        return old;
+    }
+
+    /**
+     * <p>
+     * Returns a copy of the bytes written which have not been streamed.</p>
+     *
+     * @return The bytes written.
+     */
+    public byte[] toByteArray() {
+        byte[] bytes = new byte[buff.position() - start];
+        ByteBuffer b = buff.duplicate();
+        b.position(start);
+        b.get(bytes);
+        return bytes;
+    }
+
+    public boolean getTracking() {
+        return tracked != null;
+    }
+
+    /**
+     * <p>
+     * Sets whether references are tracked. The first time a tracked Object
+     * is written it is given the next handle, counting from 0, and every
+     * later time the same instance is written it is written as the byte 2
+     * followed by it's handle in a varint, so shared Objects are written
+     * once and cycles can be serialised. Arrays and collections are not
+     * tracked themselves. The SerialReader must also track references.
+     * Serialiser.ObjectSize does not account for tracking.</p>
+     *
+     * @param val Whether references are tracked.
+     *
+     * @return Whether references were previously tracked.
+     */
+    public boolean setTracking(boolean val) {
+        boolean old = tracked != null;
+        tracked = val ? (old ? tracked : new IdentityHashMap<>()) : null;
+        return old;
+    }
+
+    public ClassRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * <p>
+     * Sets the ClassRegistry used to write Objects whose Class is not their
+     * declared Class, see ClassRegistry. The SerialReader must use a
+     * registry with the same IDs.</p>
+     *
+     * @param val The new ClassRegistry, null to write every Object as it's
+     *            declared Class.
+     *
+     * @return The previous ClassRegistry.
+     */
+    public ClassRegistry setRegistry(ClassRegistry val) {
+        ClassRegistry old = registry;
+        registry = val;
+        return old;
+    }
+
+    /**
+     * <p>
+     * Discards the bytes written so that this SerialWriter can be
+     * reused.</p>
+     */
+    public void reset() {
+        buff.position(start);
+        flushed = 0;
+        if (interned != null) { //Strings from the last message can't be referenced.
+            interned.clear();
+        }
+        if (tracked != null) { //Nor can Objects.
+            tracked.clear();
+        }
+    }
+
+    /**
+     * <p>
+     * Resets this SerialWriter and returns it to the calling Thread's pool.
+     * The writer must not be used after it has been released.</p>
+     */
+    public void release() {
+        if (growable && out == null && channel == null && !buff.isDirect()
+                && buff.capacity() <= MAX_POOLED_CAPACITY) { //Only pool reusable writers which aren't holding onto too much memory.
+            reset();
+            buff.order(ByteOrder.BIG_ENDIAN);
+            interned = null;
+            tracked = null;
+            registry = null;
+            POOL.set(this);
+        }
+    }
+
+    /**
+     * <p>
+     * Streams any buffered bytes to this SerialWriter's OutputStream or
+     * WritableByteChannel and flushes it.</p>
+     *
+     * @return The total number of bytes written.
+     *
+     * @throws java.io.IOException Thrown if there was an error streaming the
+     *                             bytes.
+     */
+    public int flush() throws IOException {
+        drain();
+        if (out != null) {
+            out.flush();
+        }
+        return length();
+    }
+
+    /**
+     * <p>
+     * Writes the bytes written to 'nOut' and resets this SerialWriter.</p>
+     *
+     * @param nOut The OutputStream to write to.
+     *
+     * @return The number of bytes written to 'nOut'.
+     *
+     * @throws java.io.IOException Thrown if there was an error writing the
+     *                             bytes.
+     */
+    public int writeTo(OutputStream nOut) throws IOException {
+        int len = buff.position() - start;
+        if (buff.hasArray()) { //Write straight from the backing array.
+            nOut.write(buff.array(), buff.arrayOffset() + start, len);
+        } else {
+            nOut.write(toByteArray());
+        }
+        reset();
+        return len;
+    }
+
+    /**
+     * <p>
+     * Writes the bytes written to the blocking channel 'nChannel' and resets
+     * this SerialWriter.</p>
+     *
+     * @param nChannel The WritableByteChannel to write to.
+     *
+     * @return The number of bytes written to 'nChannel'.
+     *
+     * @throws java.io.IOException Thrown if there was an error writing the
+     *                             bytes.
+     */
+    public int writeTo(WritableByteChannel nChannel) throws IOException {
+        ByteBuffer b = buff.duplicate();
+        b.flip().position(start);
+        int len = b.remaining();
+        while (b.hasRemaining()) {
+            nChannel.write(b);
+        }
+        reset();
+        return len;
+    }
+
+    /**
+     * <p>
+     * Streams the buffered bytes, if this SerialWriter has somewhere to
+     * stream them to.</p>
+     */
+    private void drain() throws IOException {
+        int len = buff.position() - start;
+        if (len == 0) { //There is nothing to stream.
+            return;
+        }
+        if (out != null) {
+            if (buff.hasArray()) { //Write straight from the backing array.
+                out.write(buff.array(), buff.arrayOffset() + start, len);
+            } else {
+                out.write(toByteArray());
+            }
+        } else if (channel != null) {
+            ByteBuffer b = buff.duplicate();
+            b.flip().position(start);
+            while (b.hasRemaining()) {
+                channel.write(b);
+            }
+        } else {
+            return;
+        }
+        flushed += len;
+        buff.position(start);
+    }
+
+    /**
+     * <p>
+     * Makes room in the buffer for 'n' more bytes, streaming or growing the
+     * buffer if needed. A buffer which can't grow is left as is so that it
+     * throws a java.nio.BufferOverflowException.</p>
+     */
+    private void ensure(int n) {
+        if (buff.remaining() < n) { //There isn't enough room.
+            if (out != null || channel != null) { //Stream the bytes written so far.
+                try {
+                    drain();
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }
+            if (buff.remaining() < n && growable) { //Grow the buffer.
+                int capacity = Math.max(buff.capacity() * 2, buff.position() + n);
+                ByteBuffer b = (buff.isDirect() ? ByteBuffer.allocateDirect(
+                        capacity) : ByteBuffer.allocate(capacity)).order(buff.
+                                order()); //Keep the kind of buffer and byte order.
+                buff.flip();
+                b.put(buff);
+                buff = b;
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Makes room in the buffer for 'count' values of 'size' bytes each and
+     * returns how many of them fit. A streaming writer may only make room for
+     * part of them at a time.</p>
+     */
+    private int room(int count, int size) {
+        ensure(out == null && channel == null ? count * size : size);
+        int n = Math.min(count, buff.remaining() / size);
+        if (n == 0) { //A fixed buffer is full.
+            throw new BufferOverflowException();
+        }
+        return n;
+    }
+
+    /**
+     * <p>
+     * Writes 'val' as an unsigned LEB128 varint, 7 bits to a byte with the
+     * highest bit of each byte set if another byte follows.</p>
+     *
+     * @param val The int to write.
+     */
+    public void putVarInt(int val) {
+        ensure(5);
+        while ((val & ~0x7F) != 0) { //More than 7 bits remain.
+            buff.put((byte) ((val & 0x7F) | 0x80));
+            val >>>= 7;
+        }
+        buff.put((byte) val);
+    }
+
+    /**
+     * <p>
+     * Writes 'val' as an unsigned LEB128 varint.</p>
+     *
+     * @param val The long to write.
+     */
+    public void putVarLong(long val) {
+        ensure(10);
+        while ((val & ~0x7FL) != 0) { //More than 7 bits remain.
+            buff.put((byte) ((val & 0x7F) | 0x80));
+            val >>>= 7;
+        }
+        buff.put((byte) val);
+    }
+
+    /**
+     * <p>
+     * Writes 'val' zigzag encoded as a varint, so that values near 0 take a
+     * single byte whatever their sign.</p>
+     *
+     * @param val The int to write.
+     */
+    public void putZigZag(int val) {
+        putVarInt((val << 1) ^ (val >> 31));
+    }
+
+    /**
+     * <p>
+     * Writes 'val' zigzag encoded as a varint.</p>
+     *
+     * @param val The long to write.
+     */
+    public void putZigZag(long val) {
+        putVarLong((val << 1) ^ (val >> 63));
+    }
+
+    /**
+     * <p>
+     * Writes the int field 'val' using this SerialWriter's
+     * IntEncoding.</p>
+     *
+     * @param val The int to write.
+     */
+    public void writeInt(int val) {
+        if (ints == IntEncoding.VARINT) {
+            putZigZag(val);
+        } else {
+            putInt(val);
+        }
+    }
+
+    /**
+     * <p>
+     * Writes the long field 'val' using this SerialWriter's
+     * IntEncoding.</p>
+     *
+     * @param val The long to write.
+     */
+    public void writeLong(long val) {
+        if (ints == IntEncoding.VARINT) {
+            putZigZag(val);
+        } else {
+            putLong(val);
+        }
+    }
+
+    /**
+     * <p>
+     * Writes the length of a String or Array using this SerialWriter's
+     * IntEncoding.</p>
+     *
+     * @param val The length to write.
+     */
+    public void putLength(int val) {
+        if (ints == IntEncoding.VARINT) {
+            putVarInt(val);
+        } else {
+            putInt(val);
+        }
+    }
+
+    public void putByte(byte val) {
+        ensure(Byte.BYTES);
+        buff.put(val);
+    }
+
+    public void putBoolean(boolean val) {
+        ensure(Byte.BYTES);
+        buff.put((byte) (val ? 1 : 0));
+    }
+
+    public void putShort(short val) {
+        ensure(Short.BYTES);
+        buff.putShort(val);
+    }
+
+    public void putChar(char val) {
+        ensure(Character.BYTES);
+        buff.putChar(val);
+    }
+
+    public void putInt(int val) {
+        ensure(Integer.BYTES);
+        buff.putInt(val);
+    }
+
+    public void putLong(long val) {
+        ensure(Long.BYTES);
+        buff.putLong(val);
+    }
+
+    public void putFloat(float val) {
+        ensure(Float.BYTES);
+        buff.putFloat(val);
+    }
+
+    public void putDouble(double val) {
+        ensure(Double.BYTES);
+        buff.putDouble(val);
+    }
+
+    /**
+     * <p>
+     * Writes 'len' bytes from 'src' starting at 'off'.</p>
+     *
+     * @param src The bytes to write.
+     * @param off The position in 'src' to start at.
+     * @param len The number of bytes to write.
+     */
+    public void putBytes(byte[] src, int off, int len) {
+        if (out == null && channel == null) { //The bytes are written in one piece.
+            ensure(len);
+            buff.put(src, off, len);
+        } else { //Stream the bytes in as many pieces as the buffer needs.
+            while (len > 0) {
+                ensure(Byte.BYTES);
+                int n = Math.min(len, buff.remaining());
+                buff.put(src, off, n);
+                off += n;
+                len -= n;
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Serialises a String using this SerialWriter's StringEncoding.</p>
+     *
+     * @param str The String to serialise.
+     *
+     * @return The number of bytes written.
+     */
+    public int writeString(String str) {
+        int begin = length();
+        if (interned != null) { //Write a reference if str has already been written.
+            Integer index = interned.get(str);
+            if (index != null) {
+                putVarInt(index + 1);
+                return length() - begin;
+            }
+            interned.put(str, interned.size());
+            putVarInt(0);
+        }
+        switch (encoding) {
+            case UTF8:
+                writeUTF8(str);
+                break;
+            case LATIN1:
+                writeLatin1(str);
+                break;
+            default:
+                writeUTF16(str);
+        }
+        return length() - begin;
+    }
+
+    /**
+     * <p>
+     * Serialises a String in the form 'String-length, String chars'.</p>
+     */
+    private void writeUTF16(String str) {
+        putLength(str.length()); //Serialise the length of the String.
+        for (int i = 0, n; i < str.length(); i += n) { //Copy as many chars as fit in the buffer at once.
+            n = room(str.length() - i, Character.BYTES);
+            buff.asCharBuffer().put(str, i, i + n);
+            buff.position(buff.position() + n * Character.BYTES);
+        }
+    }
+
+    /**
+     * <p>
+     * Serialises a String in the form 'varint String-length, a byte per
+     * char'.</p>
+     */
+    private void writeLatin1(String str) {
+        putVarInt(str.length()); //Serialise a varint representing the length of the String.
+        for (int i = 0, n; i < str.length(); i += n) { //Copy as many chars as fit in the buffer at once.
+            n = room(str.length() - i, Byte.BYTES);
+            for (int e = i; e < i + n; e++) {
+                char c = str.charAt(e);
+                buff.put((byte) (c <= 0xFF ? c : '?'));
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Serialises a String in the form 'varint byte-length, UTF-8 bytes'. The
+     * leading ASCII chars are copied straight across and only the rest of the
+     * String is encoded.</p>
+     */
+    private void writeUTF8(String str) {
+        int ascii = 0; //The number of leading ASCII chars.
+        while (ascii < str.length() && str.charAt(ascii) < 0x80) {
+            ascii++;
+        }
+        putVarInt(ascii + utf8Length(str, ascii)); //Serialise a varint representing the length of the String in bytes.
+        for (int i = 0, n; i < ascii; i += n) { //Copy as many ASCII chars as fit in the buffer at once.
+            n = room(ascii - i, Byte.BYTES);
+            for (int e = i; e < i + n; e++) {
+                buff.put((byte) str.charAt(e));
+            }
+        }
+        for (int i = ascii; i < str.length(); i++) { //Encode the rest of the String.
+            char c = str.charAt(i);
+            ensure(4);
+            if (c < 0x80) {
+                buff.put((byte) c);
+            } else if (c < 0x800) {
+                buff.put((byte) (0xC0 | (c >> 6)));
+                buff.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < str.length()
+                    && Character.isLowSurrogate(str.charAt(i + 1))) { //Encode the surrogate pair as one code point.
+                int cp = Character.toCodePoint(c, str.charAt(++i));
+                buff.put((byte) (0xF0 | (cp >> 18)));
+                buff.put((byte) (0x80 | ((cp >> 12) & 0x3F)));
+                buff.put((byte) (0x80 | ((cp >> 6) & 0x3F)));
+                buff.put((byte) (0x80 | (cp & 0x3F)));
+            } else if (Character.isSurrogate(c)) { //An unpaired surrogate can't be encoded.
+                buff.put((byte) '?');
+            } else {
+                buff.put((byte) (0xE0 | (c >> 12)));
+                buff.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                buff.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Returns the number of bytes 'str' takes encoded as UTF-8.</p>
+     */
+    static int utf8Length(String str) {
+        return utf8Length(str, 0);
+    }
+
+    /**
+     * <p>
+     * Returns the number of bytes the chars of 'str' from 'from' take
+     * encoded as UTF-8. Unpaired surrogates are encoded as '?'.</p>
+     */
+    private static int utf8Length(String str, int from) {
+        int len = 0;
+        for (int i = from; i < str.length(); i++) {
+            char c = str.charAt(i);
+            if (c < 0x80) {
+                len += 1;
+            } else if (c < 0x800) {
+                len += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < str.length()
+                    && Character.isLowSurrogate(str.charAt(i + 1))) {
+                len += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                len += 1;
+            } else {
+                len += 3;
+            }
+        }
+        return len;
+    }
+
+    /**
+     * <p>
+     * Serialises the Array 'obj' of type 'cls' in the form 'Array length,
+     * value bytes'.</p>
+     *
+     * @param cls The Array Class type of 'obj'.
+     * @param obj The Array to serialise.
+     *
+     * @return The number of bytes written.
+     *
+     * @throws java.lang.IllegalAccessException Thrown if an Object inside of
+     *                                          'obj' cannot be serialised.
+     */
+    public int writeArray(Class cls, Object obj) throws IllegalAccessException {
+        int begin = length();
+        if (cls == String[].class) { //It's a String[].
+            String[] val = (String[]) obj;
+            putLength(val.length); //Serialise the length of the Array.
+            for (String s : val) { //Loop through each String.
+                writeString(s);
+            }
+        } else if (cls == int[].class) { //It's an int[].
+            int[] val = (int[]) obj;
+            putLength(val.length); //Serialise the length of the Array.
+            for (int i = 0, n; i < val.length; i += n) { //Copy as many ints as fit in the buffer at once.
+                n = room(val.length - i, Integer.BYTES);
+                buff.asIntBuffer().put(val, i, n);
+                buff.position(buff.position() + n * Integer.BYTES);
+            }
+        } else if (cls == long[].class) { //It's a long[].
+            long[] val = (long[]) obj;
+            putLength(val.length); //Serialise the length of the Array.
+            for (int i = 0, n; i < val.length; i += n) { //Copy as many longs as fit in the buffer at once.
+                n = room(val.length - i, Long.BYTES);
+                buff.asLongBuffer().put(val, i, n);
+                buff.position(buff.position() + n * Long.BYTES);
+            }
+        } else if (cls == double[].class) { //It's a double[].
+            double[] val = (double[]) obj;
+            putLength(val.length); //Serialise the length of the Array.
+            for (int i = 0, n; i < val.length; i += n) { //Copy as many doubles as fit in the buffer at once.
+                n = room(val.length - i, Double.BYTES);
+                buff.asDoubleBuffer().put(val, i, n);
+                buff.position(buff.position() + n * Double.BYTES);
+            }
+        } else if (cls == float[].class) { //It's a float[].
+            float[] val = (float[]) obj;
+            putLength(val.length); //Serialise the length of the Array.
+            for (int i = 0, n; i < val.length; i += n) { //Copy as many floats as fit in the buffer at once.
+                n = room(val.length - i, Float.BYTES);
+                buff.asFloatBuffer().put(val, i, n);
+                buff.position(buff.position() + n * Float.BYTES);
+            }
+        } else if (cls == boolean[].class) { //It's a boolean[].
+            boolean[] val = (boolean[]) obj;
+            writeBooleans(val, 0, val.length);
+        } else if (cls == byte[].class) { //It's a byte[].
+            byte[] val = (byte[]) obj;
+            putLength(val.length); //Serialise the length of the Array.
+            putBytes(val, 0, val.length);
+        } else if (cls == short[].class) { //It's a short[].
+            short[] val = (short[]) obj;
+            putLength(val.length); //Serialise the length of the Array.
+            for (int i = 0, n; i < val.length; i += n) { //Copy as many shorts as fit in the buffer at once.
+                n = room(val.length - i, Short.BYTES);
+                buff.asShortBuffer().put(val, i, n);
+                buff.position(buff.position() + n * Short.BYTES);
+            }
+        } else if (cls == char[].class) { //It's a char[].
+            char[] val = (char[]) obj;
+            putLength(val.length); //Serialise the length of the Array.
+            for (int i = 0, n; i < val.length; i += n) { //Copy as many chars as fit in the buffer at once.
+                n = room(val.length - i, Character.BYTES);
+                buff.asCharBuffer().put(val, i, n);
+                buff.position(buff.position() + n * Character.BYTES);
+            }
+        } else { //It's an Object[].
+            Object[] val = (Object[]) obj;
+            putLength(val.length); //Serialise the length of the Array.
+            if (parallel && interned == null && tracked == null
+                    && val.length >= Serialiser.
+                    getParallelThreshold()) { //Serialise chunks of the Array at once.
+                writeParallel(cls.getComponentType(), val);
+            } else {
+                for (Object o : val) { //Loop through each Object.
+                    writeObject(cls.getComponentType(), o);
+                }
+            }
+        }
+        return length() - begin;
+    }
+
+    /**
+     * <p>
+     * Serialises the elements of 'val' in chunks on the common ForkJoinPool,
+     * each chunk into it's own SerialWriter, and then copies the chunks in
+     * order so the bytes are the same as serialising them one after
+     * another.</p>
+     */
+    private void writeParallel(Class component, Object[] val) throws IllegalAccessException {
+        int chunks = Math.min(val.length, ForkJoinPool.getCommonPoolParallelism()
+                * 4); //Several chunks per thread to even out the work.
+        ArrayList<ForkJoinTask<SerialWriter>> tasks = new ArrayList<>(chunks);
+        for (int c = 0; c < chunks; c++) {
+            int from = (int) ((long) val.length * c / chunks);
+            int to = (int) ((long) val.length * (c + 1) / chunks);
+            tasks.add(ForkJoinPool.commonPool().submit(() -> {
+                SerialWriter w = new SerialWriter(); //The chunk is encoded the same way as this writer.
+                w.encoding = encoding;
+                w.ints = ints;
+                w.registry = registry;
+                w.parallel = false; //Nested Arrays are serialised on this thread.
+                w.buff.order(buff.order());
+                for (int i = from; i < to; i++) {
+                    w.writeObject(component, val[i]);
+                }
+                return w;
+            }));
+        }
+        for (ForkJoinTask<SerialWriter> t : tasks) { //Copy each chunk in order.
+            SerialWriter w;
+            try {
+                w = t.get();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(
+                        "Interrupted while serialising an Array.", ex);
+            } catch (ExecutionException ex) {
+                if (ex.getCause() instanceof IllegalAccessException) {
+                    throw (IllegalAccessException) ex.getCause();
+                } else if (ex.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) ex.getCause();
+                }
+                throw new IllegalStateException(ex.getCause());
+            }
+            putBytes(w.buff.array(), 0, w.length());
+        }
+    }
+
+    /**
+     * <p>
+     * Serialises 'boolLength' booleans from 'bool' starting at 'boolPos'.
+     * Booleans are stored as single bits, 8 to a byte with the first boolean
+     * in the lowest bit, taking 'ceil(boolLength / 8)' bytes. They are packed
+     * 64 at a time into a long before being written.</p>
+     *
+     * @param bool       The boolean[] to serialise from.
+     * @param boolPos    The position inside of 'bool' to start serialisation
+     *                   at.
+     * @param boolLength The number of elements to serialise from 'bool'.
+     *
+     * @return The number of bytes written.
+     */
+    public int writeBooleans(boolean[] bool, int boolPos, int boolLength) {
+        int begin = length();
+        putLength(boolLength); //Serialise the number of booleans to be serialised.
+        for (int i = 0; i < boolLength; i += Long.SIZE) { //Loop through each group of 64 booleans.
+            int bits = Math.min(Long.SIZE, boolLength - i); //The number of booleans in this group.
+            long word = 0; //The booleans packed into a long.
+            for (int b = 0; b < bits; b++) { //Set a bit for each true boolean.
+                word |= (bool[boolPos + i + b] ? 1L : 0L) << b;
+            }
+            putWord(word, bits);
+        }
+        return length() - begin;
+    }
+
+    /**
+     * <p>
+     * Serialises 'bits' in the same form as a boolean[] of length
+     * 'bits.length()'.</p>
+     *
+     * @param bits The BitSet to serialise.
+     *
+     * @return The number of bytes written.
+     */
+    public int writeBitSet(BitSet bits) {
+        return writeWords(bits.toLongArray(), bits.length());
+    }
+
+    /**
+     * <p>
+     * Serialises 'bits' in the same form as a boolean[] of length
+     * 'bits.length()'.</p>
+     *
+     * @param bits The BitMap to serialise.
+     *
+     * @return The number of bytes written.
+     */
+    public int writeBitMap(BitMap bits) {
+        return writeWords(bits.words(), bits.length());
+    }
+
+    /**
+     * <p>
+     * Serialises the first 'length' bits of 'words' in the same form as a
+     * boolean[]. Missing trailing words are written as 0.</p>
+     */
+    private int writeWords(long[] words, int length) {
+        int begin = length();
+        putLength(length); //Serialise the number of bits to be serialised.
+        for (int i = 0; i < length; i += Long.SIZE) { //Loop through each word.
+            int w = i / Long.SIZE;
+            putWord(w < words.length ? words[w] : 0, Math.min(Long.SIZE,
+                    length - i));
+        }
+        return length() - begin;
+    }
+
+    /**
+     * <p>
+     * Writes the lowest 'bits' bits of 'word' as 'ceil(bits / 8)' bytes, the
+     * lowest byte first.</p>
+     */
+    private void putWord(long word, int bits) {
+        if (bits == Long.SIZE) { //Write the whole word at once.
+            putLong(buff.order() == ByteOrder.LITTLE_ENDIAN ? word : Long.
+                    reverseBytes(word));
+        } else {
+            for (int b = 0; b < bits; b += Byte.SIZE) { //Write each byte holding bits.
+                putByte((byte) word);
+                word >>>= Byte.SIZE;
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Serialises 'obj' as an instance of 'cls', preceded by a byte marking
+     * whether it is null. If there is a ClassRegistry and 'obj' is an
+     * instance of a subClass of 'cls' it is serialised as that subClass,
+     * preceded by it's class ID.</p>
+     *
+     * @param cls The Class type of 'obj'.
+     * @param obj The Object to serialise.
+     *
+     * @return The number of bytes written.
+     *
+     * @throws java.lang.IllegalAccessException Thrown if 'obj' is not an
+     *                                          instance of 'cls' or it's
+     *                                          Class is not registered.
+     */
+    public int writeObject(Class cls, Object obj) throws IllegalAccessException {
+        int begin = length();
+        if (obj == null) { //This is a null value.
+            putByte((byte) 0);
+        } else if (!cls.isInstance(obj)) {
+            throw new IllegalAccessException(
+                    "The passed Object is not an instance of the passed Class.");
+        } else if (cls.isArray()) { //This is an Array type.
+            writeArray(cls, obj);
+        } else {
+            if (tracked != null) { //Write a reference if obj has already been written.
+                Integer handle = tracked.get(obj);
+                if (handle != null) {
+                    putByte((byte) 2); //Mark that this is a reference.
+                    putVarInt(handle);
+                    return length() - begin;
+                }
+                tracked.put(obj, tracked.size()); //Give obj the next handle before it's fields so cycles refer back to it.
+            }
+            Class actual = obj instanceof Enum ? ((Enum) obj).
+                    getDeclaringClass() : obj.getClass(); //Enum constants with bodies are instances of their enum.
+            if (registry != null && actual != cls) { //obj is an instance of a subClass of cls.
+                int id = registry.idOf(actual);
+                if (id == -1) {
+                    throw new IllegalAccessException(actual.getName()
+                            + " is not registered.");
+                }
+                putByte((byte) 3); //Mark that the class ID follows.
+                putVarInt(id);
+                writeFields(actual, obj);
+            } else {
+                putByte((byte) 1); //Mark that this is not a null value.
+                writeFields(cls, obj);
+            }
+        }
+        return length() - begin;
+    }
+
+    /**
+     * <p>
+     * Serialises 'val', preceded by a byte marking whether it is null, as
+     * it's size followed by each element as an instance of 'elem'.</p>
+     *
+     * @param elem The Class type of the elements.
+     * @param val  The Collection to serialise.
+     *
+     * @return The number of bytes written.
+     *
+     * @throws java.lang.IllegalAccessException Thrown if an element is not an
+     *                                          instance of 'elem'.
+     */
+    public int writeList(Class elem, Collection val) throws IllegalAccessException {
+        int begin = length();
+        if (val == null) { //This is a null value.
+            putByte((byte) 0);
+        } else {
+            putByte((byte) 1); //Mark that this is not a null value.
+            putLength(val.size());
+            for (Object o : val) { //Loop through each element.
+                writeObject(elem, o);
+            }
+        }
+        return length() - begin;
+    }
+
+    /**
+     * <p>
+     * Serialises 'val', preceded by a byte marking whether it is null, as
+     * it's size followed by each key and value as instances of 'key' and
+     * 'value'.</p>
+     *
+     * @param key   The Class type of the keys.
+     * @param value The Class type of the values.
+     * @param val   The Map to serialise.
+     *
+     * @return The number of bytes written.
+     *
+     * @throws java.lang.IllegalAccessException Thrown if a key or value is
+     *                                          not an instance of it's
+     *                                          Class.
+     */
+    public int writeMap(Class key, Class value, Map<?, ?> val) throws IllegalAccessException {
+        int begin = length();
+        if (val == null) { //This is a null value.
+            putByte((byte) 0);
+        } else {
+            putByte((byte) 1); //Mark that this is not a null value.
+            putLength(val.size());
+            for (Map.Entry<?, ?> e : val.entrySet()) { //Loop through each entry.
+                writeObject(key, e.getKey());
+                writeObject(value, e.getValue());
+            }
+        }
+        return length() - begin;
+    }
+
+    /**
+     * <p>
+     * Serialises 'val', preceded by a byte marking whether it is null, as a
+     * bit for each constant of the enum 'elem', packed the same as a
+     * boolean[] but without the length.</p>
+     *
+     * @param elem The enum Class of the elements.
+     * @param val  The Set to serialise.
+     *
+     * @return The number of bytes written.
+     */
+    public int writeEnumSet(Class<? extends Enum> elem, Set<? extends Enum> val) {
+        int begin = length();
+        if (val == null) { //This is a null value.
+            putByte((byte) 0);
+        } else {
+            putByte((byte) 1); //Mark that this is not a null value.
+            int length = elem.getEnumConstants().length; //The number of bits.
+            long[] words = new long[(length + Long.SIZE - 1) / Long.SIZE];
+            for (Enum e : val) { //Set the bit of each element.
+                words[e.ordinal() >>> 6] |= 1L << e.ordinal();
+            }
+            for (int i = 0; i < words.length; i++) {
+                putWord(words[i], Math.min(Long.SIZE, length - i * Long.SIZE));
+            }
+        }
+        return length() - begin;
+    }
+
+    /**
+     * <p>
+     * Serialises the fields of 'obj' as an instance of 'cls' without the
+     * byte marking whether it is null.</p>
+     *
+     * @param cls The Class type of 'obj'.
+     * @param obj The Object to serialise.
+     *
+     * @throws java.lang.IllegalAccessException Thrown if a field of 'obj'
+     *                                          cannot be serialised.
+     */
+    void writeFields(Class cls, Object obj) throws IllegalAccessException {
+        Codec codec = CodecRegistry.of(cls); //The Codec for cls, if there is one.
+        if (codec != null) { //Use the Codec for cls.
+            codec.write(this, obj);
+            return;
+        }
+        for (ClassPlan.FieldPlan f : ClassPlan.of(cls).fields) { //Loop through every field in the cached plan.
+            writeField(f, obj);
+        }
+    }
+
+    /**
+     * <p>
+     * Serialises the value of the field 'f' of 'obj'.</p>
+     */
+    private void writeField(ClassPlan.FieldPlan f, Object obj) throws IllegalAccessException {
+        switch (f.code) {
+            case ClassPlan.INT: //It's an int.
+                writeInt(f.access.getInt(obj));
+                break;
+            case ClassPlan.LONG: //It's a long.
+                writeLong(f.access.getLong(obj));
+                break;
+            case ClassPlan.VAR_INT: //It's an int which is always a varint.
+                putZigZag(f.access.getInt(obj));
+                break;
+            case ClassPlan.VAR_LONG: //It's a long which is always a varint.
+                putZigZag(f.access.getLong(obj));
+                break;
+            case ClassPlan.DOUBLE: //It's a double.
+                putDouble(f.access.getDouble(obj));
+                break;
+            case ClassPlan.FLOAT: //It's a float.
+                putFloat(f.access.getFloat(obj));
+                break;
+            case ClassPlan.BOOLEAN: //It's a boolean.
+                putBoolean(f.access.getBoolean(obj));
+                break;
+            case ClassPlan.BYTE: //It's a byte.
+                putByte(f.access.getByte(obj));
+                break;
+            case ClassPlan.SHORT: //It's a short.
+                putShort(f.access.getShort(obj));
+                break;
+            case ClassPlan.CHAR: //It's a char.
+                putChar(f.access.getChar(obj));
+                break;
+            default: //It's an Object.
+                writeValue(f, f.access.get(obj));
+        }
+    }
+
+    /**
+     * <p>
+     * Serialises 'val', the value of the non primitive field 'f'.</p>
+     */
+    void writeValue(ClassPlan.FieldPlan f, Object val) throws IllegalAccessException {
+        switch (f.code) {
+            case ClassPlan.ARRAY: //This field contains an Array.
+                writeArray(f.type, val);
+                break;
+            case ClassPlan.STRING: //It's a String.
+                writeString((String) val);
+                break;
+            case ClassPlan.LIST: //It's a Collection.
+                writeList(f.args[0], (Collection) val);
+                break;
+            case ClassPlan.MAP: //It's a Map.
+                writeMap(f.args[0], f.args[1], (Map) val);
+                break;
+            case ClassPlan.ENUM_SET: //It's a Set of an enum.
+                writeEnumSet(f.args[0], (Set) val);
+                break;
+            default: //It's an Object.
+                writeObject(f.type, val);
+        }
+    }
+
+    /**
+     * <p>
+     * Serialises 'obj', an instance of 'cls', in the indexed layout read by
+     * SerialView: a byte marking whether 'obj' is null, an int for the end
+     * of every variable length field and then the fields in the same order
+     * ObjectToBytes serialises them. Strings are not interned.</p>
+     *
+     * @param cls The Class type of 'obj'.
+     * @param obj The Object to serialise.
+     *
+     * @throws java.lang.IllegalAccessException Thrown if 'obj' is not an
+     *                                          instance of 'cls'.
+     */
+    public void writeIndexed(Class cls, Object obj) throws IllegalAccessException {
+        if (obj == null) { //Only the null marker is written.
+            putByte((byte) 0);
+            return;
+        } else if (!cls.isInstance(obj)) {
+            throw new IllegalAccessException(
+                    "The passed Object is not an instance of the passed Class.");
+        }
+        SerialView.Layout layout = SerialView.Layout.of(cls, ints);
+        SerialWriter fields = scratch(); //The fields are written first so the offset table can lead them.
+        putByte((byte) 1);
+        ClassPlan.FieldPlan[] plan = ClassPlan.of(cls).fields;
+        for (int i = 0; i < plan.length; i++) {
+            fields.writeField(plan[i], obj);
+            if (layout.variable[i]) { //Record the end of the field in the offset table.
+                putInt(fields.length());
+            }
+        }
+        putBytes(fields.buff.array(), 0, fields.length()); //The scratch writer is always backed by a byte[].
+    }
+
+    /**
+     * <p>
+     * Returns the reset scratch SerialWriter, created if it has not been
+     * needed before, encoding values the same way as this SerialWriter.</p>
+     */
+    private SerialWriter scratch() {
+        if (scratch == null) {
+            scratch = new SerialWriter();
+        }
+        scratch.reset();
+        scratch.encoding = encoding;
+        scratch.ints = ints;
+        scratch.registry = registry;
+        scratch.buff.order(buff.order());
+        return scratch;
+    }
+
+    /**
+     * <p>
+     * Serialises the fields of 'obj' which differ from 'base' as a delta,
+     * both being instances of 'cls'. The delta is a bitmask with a bit for
+     * every field of 'cls', in the same order ObjectToBytes serialises them,
+     * followed by the value of every field whose bit is set. Apply the delta
+     * with SerialReader.readDelta.</p>
+     * <p>
+     * 'base' must be a snapshot of the previous state, it must not share
+     * mutable Objects or Arrays with 'obj' or their changes will be
+     * missed. Nested Objects and Arrays of Objects are compared by their
+     * serialised bytes, but if this SerialWriter tracks references they are
+     * compared by identity instead, as a graph with cycles can't be
+     * serialised to compare it. A snapshot deserialised from the previous
+     * state holds copies of it's nested Objects, so every such field which
+     * is not null is then written as changed; write deltas of these Classes
+     * with a SerialWriter which does not track references.</p>
+     *
+     * @param cls  The Class type of 'base' and 'obj'.
+     * @param base The previous state.
+     * @param obj  The current state.
+     *
+     * @return The number of bytes written.
+     *
+     * @throws java.lang.IllegalAccessException Thrown if 'base' or 'obj' is
+     *                                          not an instance of 'cls'.
+     */
+    public int writeDelta(Class cls, Object base, Object obj) throws IllegalAccessException {
+        if (!cls.isInstance(base) || !cls.isInstance(obj)) {
+            throw new IllegalAccessException(
+                    "The passed Objects are not instances of the passed Class.");
+        }
+        int begin = length();
+        ClassPlan.FieldPlan[] fields = ClassPlan.of(cls).fields;
+        long[] mask = new long[(fields.length + Long.SIZE - 1) / Long.SIZE]; //The bits of the changed fields, 64 to a word.
+        for (int i = 0; i < fields.length; i++) { //Compare each field once.
+            if (changed(fields[i], base, obj)) {
+                mask[i / Long.SIZE] |= 1L << i;
+            }
+        }
+        for (int w = 0; w < mask.length; w++) { //Write the bitmask 64 fields at a time.
+            putWord(mask[w], Math.min(Long.SIZE, fields.length - w * Long.SIZE));
+        }
+        for (int i = 0; i < fields.length; i++) { //Write each changed field.
+            if ((mask[i / Long.SIZE] & 1L << i) != 0) {
+                writeField(fields[i], obj);
+            }
+        }
+        return length() - begin;
+    }
+
+    /**
+     * <p>
+     * Serialises the fields of 'obj' which differ from the previous state
+     * serialised in 'base' as a delta, the same as writeDelta given that
+     * state as an Object. 'base' must be positioned at the bytes
+     * ObjectToBytes wrote for the previous state, an instance of 'cls'
+     * serialised through it's fields, and read them with the same byte
+     * order and encodings as this SerialWriter; it is left positioned after
+     * them.</p>
+     * <p>
+     * Each field of 'obj' is serialised and compared with it's bytes in
+     * 'base', so no copy of the previous state needs to be kept or
+     * deserialised. The previous state must be serialised without tracking
+     * references and this SerialWriter must not track references, as a
+     * graph with cycles can't be serialised to compare it.</p>
+     *
+     * @param cls  The Class type of the previous state and 'obj'.
+     * @param base The SerialReader positioned at the previous state.
+     * @param obj  The current state.
+     *
+     * @return The number of bytes written.
+     *
+     * @throws java.lang.InstantiationException Thrown if a field of the
+     *                                          previous state could not be
+     *                                          read.
+     * @throws java.lang.IllegalAccessException Thrown if the previous state
+     *                                          or 'obj' is not an instance
+     *                                          of 'cls'.
+     * @throws java.lang.IllegalStateException  Thrown if this SerialWriter
+     *                                          tracks references.
+     */
+    public int writeDelta(Class cls, SerialReader base, Object obj) throws InstantiationException, IllegalAccessException {
+        if (!cls.isInstance(obj)) {
+            throw new IllegalAccessException(
+                    "The passed Object is not an instance of the passed Class.");
+        } else if (tracked != null) {
+            throw new IllegalStateException(
+                    "A delta against serialised bytes can't be written while tracking references.");
+        } else if (base.getByte() != 1) { //The previous state is null, a reference or a subClass.
+            throw new IllegalAccessException(
+                    "The serialised previous state is not an instance of the passed Class.");
+        }
+        int begin = length();
+        ClassPlan.FieldPlan[] fields = ClassPlan.of(cls).fields;
+        long[] mask = new long[(fields.length + Long.SIZE - 1) / Long.SIZE]; //The bits of the changed fields, 64 to a word.
+        ByteBuffer was = base.buffer();
+        for (int i = 0; i < fields.length; i++) { //Compare each field with it's previous bytes.
+            int start = was.position();
+            base.skipField(fields[i]);
+            int len = was.position() - start; //The length of the field's previous bytes.
+            SerialWriter cmp = scratch();
+            cmp.writeField(fields[i], obj);
+            boolean changed = cmp.length() != len;
+            for (int b = 0; b < len && !changed; b++) { //Compare the serialised bytes.
+                changed = cmp.buff.get(b) != was.get(start + b);
+            }
+            if (changed) {
+                mask[i / Long.SIZE] |= 1L << i;
+            }
+        }
+        for (int w = 0; w < mask.length; w++) { //Write the bitmask 64 fields at a time.
+            putWord(mask[w], Math.min(Long.SIZE, fields.length - w * Long.SIZE));
+        }
+        for (int i = 0; i < fields.length; i++) { //Write each changed field.
+            if ((mask[i / Long.SIZE] & 1L << i) != 0) {
+                writeField(fields[i], obj);
+            }
+        }
+        return length() - begin;
+    }
+
+    /**
+     * <p>
+     * Returns true if the value of the field 'f' differs between 'base' and
+     * 'obj'. Objects and Arrays of Objects are compared by their serialised
+     * bytes, unless references are tracked; the graph may then have cycles
+     * which would never finish serialising, so they are compared by
+     * identity.</p>
+     */
+    private boolean changed(ClassPlan.FieldPlan f, Object base, Object obj) throws IllegalAccessException {
+        switch (f.code) {
+            case ClassPlan.INT:
+            case ClassPlan.VAR_INT:
+                return f.access.getInt(base) != f.access.getInt(obj);
+            case ClassPlan.LONG:
+            case ClassPlan.VAR_LONG:
+                return f.access.getLong(base) != f.access.getLong(obj);
+            case ClassPlan.DOUBLE:
+                return Double.doubleToRawLongBits(f.access.getDouble(base))
+                        != Double.doubleToRawLongBits(f.access.getDouble(obj));
+            case ClassPlan.FLOAT:
+                return Float.floatToRawIntBits(f.access.getFloat(base))
+                        != Float.floatToRawIntBits(f.access.getFloat(obj));
+            case ClassPlan.BOOLEAN:
+                return f.access.getBoolean(base) != f.access.getBoolean(obj);
+            case ClassPlan.BYTE:
+                return f.access.getByte(base) != f.access.getByte(obj);
+            case ClassPlan.SHORT:
+                return f.access.getShort(base) != f.access.getShort(obj);
+            case ClassPlan.CHAR:
+                return f.access.getChar(base) != f.access.getChar(obj);
+            case ClassPlan.STRING:
+            case ClassPlan.ENUM_SET:
+                return !Objects.equals(f.access.get(base), f.access.get(obj));
+            default: {
+                Object a = f.access.get(base);
+                Object b = f.access.get(obj);
+                if (a == null || b == null) { //Only changed if just one is null.
+                    return a != b;
+                } else if (f.code == ClassPlan.ARRAY && (f.type.
+                        getComponentType().isPrimitive()
+                        || f.type == String[].class)) { //Compare the elements directly.
+                    return !Objects.deepEquals(a, b);
+                } else if (tracked != null) { //The scratch writer does not track, so a cycle would recurse forever.
+                    return a != b;
+                }
+                SerialWriter cmp = scratch(); //Compare the serialised Objects.
+                cmp.writeValue(f, a);
+                int len = cmp.length(); //The length of a's bytes.
+                cmp.writeValue(f, b);
+                if (cmp.length() != len * 2) { //The serialised Objects have different lengths.
+                    return true;
+                }
+                ByteBuffer bytes = cmp.buff;
+                for (int i = 0; i < len; i++) { //Compare the serialised bytes.
+                    if (bytes.get(i) != bytes.get(len + i)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package GameLibrary.Serialisation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <p>
+ * Marks a Class which should have a Codec generated for it at compile time
+ * by SerialisableProcessor. Serialiser uses the generated Codec instead of
+ * reflecting over the Class.</p>
+ * <p>
+ * Every serialised field of the Class, and of it's superClasses, must be
+ * accessible from the Class's package and must not be final, and the Class
+ * must have an accessible nullary constructor.</p>
+ *
+ * @author Dynisious
+ * @version 0.0.1
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface Serialisable {
+}
@@ -0,0 +1,393 @@
+package GameLibrary.Serialisation;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.StandardLocation;
+
+/**
+ * <p>
+ * An annotation processor which generates a Codec for every Class marked
+ * with Serialisable. The generated Codecs write exactly the same bytes as
+ * Serialiser.ObjectToBytes and access fields directly so no reflection is
+ * needed to serialise the Class at runtime.</p>
+ * <p>
+ * The generated Codecs are listed in
+ * META-INF/services/GameLibrary.Serialisation.Codec so that Serialiser can
+ * find them when it is first used.</p>
+ *
+ * @author Dynisious
+ * @version 0.0.1
+ */
+@SupportedAnnotationTypes("GameLibrary.Serialisation.Serialisable")
+public class SerialisableProcessor extends AbstractProcessor {
+
+    /**
+     * <p>
+     * The qualified names of every Codec generated during this
+     * compilation.</p>
+     */
+    private final List<String> codecs = new ArrayList<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations,
+            RoundEnvironment roundEnv) {
+        for (Element e : roundEnv.getElementsAnnotatedWith(Serialisable.class)) { //Loop through every annotated element.
+            if (e.getKind() != ElementKind.CLASS) { //Only Classes can be serialised.
+                error(e, "Only classes can be @Serialisable.");
+            } else {
+                generate((TypeElement) e);
+            }
+        }
+        if (roundEnv.processingOver() && !codecs.isEmpty()) { //Register the generated Codecs.
+            try (Writer w = processingEnv.getFiler().createResource(
+                    StandardLocation.CLASS_OUTPUT, "",
+                    "META-INF/services/GameLibrary.Serialisation.Codec").
+                    openWriter()) {
+                for (String c : codecs) {
+                    w.write(c);
+                    w.write('\n');
+                }
+            } catch (IOException ex) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                        "Could not register the generated Codecs: " + ex);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * <p>
+     * Returns "List", "Map" or "EnumSet" if a field of type 'type' is
+     * serialised as that collection, the same as ClassPlan, otherwise
+     * null.</p>
+     */
+    private String collection(TypeMirror type) {
+        if (type.getKind() != TypeKind.DECLARED || typeArguments(type) == null) { //The element Classes are not known.
+            return null;
+        }
+        Types types = processingEnv.getTypeUtils();
+        Elements elements = processingEnv.getElementUtils();
+        TypeMirror raw = types.erasure(type);
+        List<? extends TypeMirror> args = ((DeclaredType) type).
+                getTypeArguments();
+        String name = raw.toString();
+        if ((name.equals("java.util.EnumSet") || name.equals("java.util.Set"))
+                && args.get(0).getKind() == TypeKind.DECLARED
+                && types.asElement(args.get(0)).getKind() == ElementKind.ENUM) { //It's a Set of an enum.
+            return "EnumSet";
+        } else if (args.size() == 1 && types.isAssignable(raw, types.erasure(
+                elements.getTypeElement("java.util.Collection").asType()))
+                && types.isAssignable(types.erasure(elements.getTypeElement(
+                        "java.util.ArrayList").asType()), raw)) { //An ArrayList can be stored in it.
+            return "List";
+        } else if (args.size() == 2 && types.isAssignable(raw, types.erasure(
+                elements.getTypeElement("java.util.Map").asType()))
+                && types.isAssignable(types.erasure(elements.getTypeElement(
+                        "java.util.HashMap").asType()), raw)) { //A HashMap can be stored in it.
+            return "Map";
+        }
+        return null;
+    }
+
+    /**
+     * <p>
+     * Returns the Class literals of the type arguments of 'type' separated
+     * by commas, or null if any of them is not a plain Class.</p>
+     */
+    private String typeArguments(TypeMirror type) {
+        List<? extends TypeMirror> args = ((DeclaredType) type).
+                getTypeArguments();
+        if (args.isEmpty()) {
+            return null;
+        }
+        StringBuilder b = new StringBuilder();
+        for (TypeMirror a : args) {
+            boolean plain = (a.getKind() == TypeKind.DECLARED && ((DeclaredType) a).
+                    getTypeArguments().isEmpty()) || (a.getKind()
+                    == TypeKind.ARRAY && processingEnv.getTypeUtils().erasure(
+                            a).toString().equals(a.toString())); //Wildcards, type variables and nested generics are not known.
+            if (!plain) {
+                return null;
+            }
+            b.append(b.length() == 0 ? "" : ", ").append(a).append(".class");
+        }
+        return b.toString();
+    }
+
+    private void error(Element e, String msg) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, msg, e);
+    }
+
+    /**
+     * <p>
+     * Generates the Codec for 'type'.</p>
+     *
+     * @param type The Class to generate a Codec for.
+     */
+    private void generate(TypeElement type) {
+        PackageElement pkg = processingEnv.getElementUtils().getPackageOf(type);
+        String name = type.getQualifiedName().toString(); //The name the generated code uses for type.
+        String codec = pkg.isUnnamed() ? name : name.substring(pkg.
+                getQualifiedName().length() + 1);
+        codec = codec.replace('.', '_') + "Codec"; //The simple name of the generated Codec.
+        boolean ok = true; //Whether type can be serialised by a generated Codec.
+
+        if (type.getModifiers().contains(Modifier.ABSTRACT)) { //An instance can't be created to deserialise into.
+            error(type, "@Serialisable classes must not be abstract.");
+            ok = false;
+        }
+        if (type.getNestingKind().isNested() && !type.getModifiers().contains(
+                Modifier.STATIC)) { //An instance can't be created without an enclosing instance.
+            error(type, "Nested @Serialisable classes must be static.");
+            ok = false;
+        }
+        boolean ctor = false; //Whether type has an accessible nullary constructor.
+        for (ExecutableElement c : ElementFilter.constructorsIn(type.
+                getEnclosedElements())) {
+            ctor |= c.getParameters().isEmpty() && !c.getModifiers().contains(
+                    Modifier.PRIVATE);
+        }
+        if (!ctor) {
+            error(type, "@Serialisable classes need a non private constructor with no parameters.");
+            ok = false;
+        }
+
+        List<VariableElement> fields = new ArrayList<>(); //The fields in serialisation order.
+        List<String> access = new ArrayList<>(); //The expression for each field's value.
+        Set<String> names = new HashSet<>(); //The names of the fields declared by the subClasses of t.
+        TypeElement t = type;
+        while (t != null && !t.getQualifiedName().contentEquals(
+                "java.lang.Object")) { //Add each Class's fields before it's superClass's fields.
+            boolean samePackage = processingEnv.getElementUtils().getPackageOf(t).
+                    equals(pkg);
+            boolean visible = samePackage || t.getModifiers().contains(
+                    Modifier.PUBLIC); //Whether the generated Codec can name t.
+            String cast = "((" + processingEnv.getTypeUtils().erasure(t.
+                    asType()) + ") obj)."; //Reaches a field of t hidden by a subClass.
+            List<String> own = new ArrayList<>(); //The names of the fields t declares.
+            List<VariableElement> declared = ElementFilter.fieldsIn(t.
+                    getEnclosedElements());
+            declared.sort((a, b) -> a.getSimpleName().toString().compareTo(b.
+                    getSimpleName().toString())); //Match the order of ClassPlan.
+            for (VariableElement f : declared) {
+                Set<Modifier> mods = f.getModifiers();
+                if (mods.contains(Modifier.STATIC)) { //Static fields are not serialised.
+                    own.add(f.getSimpleName().toString()); //But they still hide t's superClass's fields.
+                    continue;
+                }
+                if (mods.contains(Modifier.PRIVATE) || (!samePackage && !mods.
+                        contains(Modifier.PUBLIC))) { //The generated Codec can't access this field.
+                    error(f, "Fields of @Serialisable classes must be accessible from " + pkg + ".");
+                    ok = false;
+                } else if (mods.contains(Modifier.FINAL)) { //The generated Codec can't deserialise into this field.
+                    error(f, "Fields of @Serialisable classes must not be final.");
+                    ok = false;
+                } else if (f.asType().getKind() == TypeKind.TYPEVAR) { //Serialiser can't serialise this field.
+                    error(f, "Serialiser cannot serialise fields of type " + f.
+                            asType() + ".");
+                    ok = false;
+                }
+                String n = f.getSimpleName().toString();
+                if (names.contains(n)) { //A subClass declares a field with the same name, so 'obj.' + n is that field.
+                    if (!visible) { //The generated Codec can't cast obj to t.
+                        error(f, "Hidden fields of @Serialisable classes must be declared by a class accessible from " + pkg + ".");
+                        ok = false;
+                    }
+                    access.add(cast + n);
+                } else {
+                    access.add("obj." + n);
+                }
+                own.add(n);
+                fields.add(f);
+            }
+            names.addAll(own);
+            TypeMirror sup = t.getSuperclass();
+            t = sup.getKind() == TypeKind.DECLARED ? (TypeElement) ((DeclaredType) sup).
+                    asElement() : null;
+        }
+        if (!ok) {
+            return;
+        }
+
+        StringBuilder size = new StringBuilder(); //The body of size.
+        StringBuilder write = new StringBuilder(); //The body of write.
+        StringBuilder read = new StringBuilder(); //The body of read.
+        int fixed = 0; //The total size of the fields which always serialise to the same number of bytes.
+        for (int i = 0; i < fields.size(); i++) {
+            VariableElement f = fields.get(i);
+            String field = access.get(i); //The expression for the field's value.
+            TypeMirror ft = processingEnv.getTypeUtils().erasure(f.asType());
+            switch (ft.getKind()) {
+                case INT:
+                    if (f.getAnnotation(Varint.class) != null) { //The field is always a varint.
+                        size.append("        size += Serialiser.ZigZagSize(").
+                                append(field).append(");\n");
+                        write.append("        w.putZigZag(").append(field).
+                                append(");\n");
+                        read.append("        ").append(field).append(
+                                " = r.getZigZagInt();\n");
+                    } else {
+                        size.append("        size += Serialiser.IntSize(").
+                                append(field).append(");\n");
+                        write.append("        w.writeInt(").append(field).
+                                append(");\n");
+                        read.append("        ").append(field).append(
+                                " = r.readInt();\n");
+                    }
+                    break;
+                case LONG:
+                    if (f.getAnnotation(Varint.class) != null) { //The field is always a varint.
+                        size.append("        size += Serialiser.ZigZagSize(").
+                                append(field).append(");\n");
+                        write.append("        w.putZigZag(").append(field).
+                                append(");\n");
+                        read.append("        ").append(field).append(
+                                " = r.getZigZagLong();\n");
+                    } else {
+                        size.append("        size += Serialiser.LongSize(").
+                                append(field).append(");\n");
+                        write.append("        w.writeLong(").append(field).
+                                append(");\n");
+                        read.append("        ").append(field).append(
+                                " = r.readLong();\n");
+                    }
+                    break;
+                case DOUBLE:
+                    fixed += Double.BYTES;
+                    write.append("        w.putDouble(").append(field).append(");\n");
+                    read.append("        ").append(field).append(" = r.getDouble();\n");
+                    break;
+                case FLOAT:
+                    fixed += Float.BYTES;
+                    write.append("        w.putFloat(").append(field).append(");\n");
+                    read.append("        ").append(field).append(" = r.getFloat();\n");
+                    break;
+                case BOOLEAN:
+                    fixed += Byte.BYTES;
+                    write.append("        w.putBoolean(").append(field).
+                            append(");\n");
+                    read.append("        ").append(field).append(" = r.getBoolean();\n");
+                    break;
+                case BYTE:
+                    fixed += Byte.BYTES;
+                    write.append("        w.putByte(").append(field).append(");\n");
+                    read.append("        ").append(field).append(" = r.getByte();\n");
+                    break;
+                case SHORT:
+                    fixed += Short.BYTES;
+                    write.append("        w.putShort(").append(field).append(");\n");
+                    read.append("        ").append(field).append(" = r.getShort();\n");
+                    break;
+                case CHAR:
+                    fixed += Character.BYTES;
+                    write.append("        w.putChar(").append(field).append(");\n");
+                    read.append("        ").append(field).append(" = r.getChar();\n");
+                    break;
+                default:
+                    String collection = collection(f.asType()); //The Serialiser method family for a collection field.
+                    if (collection != null) { //It's a List, Map or Set of an enum.
+                        String args = typeArguments(f.asType());
+                        size.append("        size += Serialiser.").append(
+                                collection).append("Size(").append(args).
+                                append(", ").append(field).append(");\n");
+                        write.append("        w.write").append(collection).
+                                append("(").append(args).append(", ").append(
+                                field).append(");\n");
+                        read.append("        ").append(field).append(" = r.read").
+                                append(collection).append("(").append(args).
+                                append(", r.getReuse() ? ").append(field).
+                                append(" : null);\n");
+                    } else if (ft.toString().equals("java.lang.String")) { //It's a String.
+                        size.append("        size += Serialiser.StringSize(").
+                                append(field).append(");\n");
+                        write.append("        w.writeString(").append(field).
+                                append(");\n");
+                        read.append("        ").append(field).append(
+                                " = r.readString();\n");
+                    } else if (ft.getKind() == TypeKind.ARRAY) { //It's an Array.
+                        size.append("        size += Serialiser.ArraySize(").
+                                append(ft).append(".class, ").append(field).
+                                append(");\n");
+                        write.append("        w.writeArray(").append(ft).
+                                append(".class, ").append(field).append(");\n");
+                        read.append("        ").append(field).append(" = (").
+                                append(ft).append(") r.readArray(").append(ft).
+                                append(".class, r.getReuse() ? ").append(field).
+                                append(" : null);\n");
+                    } else { //It's an Object.
+                        size.append("        size += Serialiser.ObjectSize(").
+                                append(ft).append(".class, ").append(field).
+                                append(", true);\n");
+                        write.append("        w.writeObject(").append(ft).
+                                append(".class, ").append(field).append(");\n");
+                        read.append("        ").append(field).append(" = (").
+                                append(ft).append(") r.readObject(").append(ft).
+                                append(".class, r.getReuse() ? ").append(field).
+                                append(" : null);\n");
+                    }
+            }
+        }
+
+        try (Writer w = processingEnv.getFiler().createSourceFile(pkg.isUnnamed()
+                ? codec : pkg.getQualifiedName() + "." + codec, type).
+                openWriter()) {
+            if (!pkg.isUnnamed()) {
+                w.write("package " + pkg.getQualifiedName() + ";\n\n");
+            }
+            w.write("import GameLibrary.Serialisation.Codec;\n");
+            w.write("import GameLibrary.Serialisation.SerialReader;\n");
+            w.write("import GameLibrary.Serialisation.SerialWriter;\n");
+            w.write("import GameLibrary.Serialisation.Serialiser;\n\n");
+            w.write("/**\n * <p>\n * The Codec for " + name
+                    + ", generated by SerialisableProcessor.</p>\n */\n");
+            w.write("public final class " + codec + " implements Codec<" + name
+                    + "> {\n\n");
+            w.write("    @Override\n    public Class<" + name + "> type() {\n");
+            w.write("        return " + name + ".class;\n    }\n\n");
+            w.write("    @Override\n    public int size(" + name
+                    + " obj) throws IllegalAccessException {\n");
+            w.write("        int size = " + fixed + ";\n" + size);
+            w.write("        return size;\n    }\n\n");
+            w.write("    @Override\n    public void write(SerialWriter w, " + name
+                    + " obj) throws IllegalAccessException {\n" + write + "    }\n\n");
+            w.write("    @Override\n    public " + name + " read(SerialReader r, "
+                    + name
+                    + " obj) throws InstantiationException, IllegalAccessException {\n");
+            w.write("        if (obj == null) {\n            obj = new " + name
+                    + "();\n        }\n");
+            w.write(read.toString());
+            w.write("        return obj;\n    }\n}\n");
+            codecs.add(pkg.isUnnamed() ? codec : pkg.getQualifiedName() + "."
+                    + codec);
+        } catch (IOException ex) {
+            error(type, "Could not generate " + codec + ": " + ex);
+        }
+    }
+}
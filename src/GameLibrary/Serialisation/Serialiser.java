@@ -7,8 +7,10 @@ package GameLibrary.Serialisation;
 
 import java.lang.reflect.Array; //Used to interact with Arrays during serialisation.
 import java.nio.ByteBuffer; //Used to serialise and deserialise the Object into/from arrays of bytes.
-import java.lang.reflect.Field; //Used to interact with the fields of Objects during serialisation.
-import java.lang.reflect.Modifier;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 /**
  * <p>
  * Used to Serialise and Deserialise Objects into/from arrays of bytes with
@@ -22,17 +24,308 @@ import java.lang.reflect.Modifier;
  */
 public class Serialiser {
 
+    /**
+     * <p>
+     * The AccessMode used to read and write the fields of Objects.</p>
+     */
+    private static volatile AccessMode accessMode = AccessMode.REFLECTION;
+    public static AccessMode getAccessMode() {
+        return accessMode;
+    }
+    /**
+     * <p>
+     * Sets the AccessMode used to read and write the fields of Objects and
+     * returns the previous AccessMode.</p>
+     *
+     * @param val The new AccessMode.
+     *
+     * @return The previously set AccessMode.
+     */
+    public static AccessMode setAccessMode(AccessMode val) {
+        AccessMode m = accessMode;
+        accessMode = val;
+        return m;
+    }
+
+    /**
+     * <p>
+     * The StringEncoding new SerialWriters and SerialReaders use.</p>
+     */
+    private static volatile StringEncoding stringEncoding = StringEncoding.UTF16;
+    public static StringEncoding getStringEncoding() {
+        return stringEncoding;
+    }
+    /**
+     * <p>
+     * Sets the StringEncoding new SerialWriters and SerialReaders use and
+     * returns the previous StringEncoding.</p>
+     *
+     * @param val The new StringEncoding.
+     *
+     * @return The previously set StringEncoding.
+     */
+    public static StringEncoding setStringEncoding(StringEncoding val) {
+        StringEncoding e = stringEncoding;
+        stringEncoding = val;
+        return e;
+    }
+
+    /**
+     * <p>
+     * The IntEncoding new SerialWriters and SerialReaders use.</p>
+     */
+    private static volatile IntEncoding intEncoding = IntEncoding.FIXED;
+    public static IntEncoding getIntEncoding() {
+        return intEncoding;
+    }
+    /**
+     * <p>
+     * Sets the IntEncoding new SerialWriters and SerialReaders use and
+     * returns the previous IntEncoding. The sizes returned by Serialiser
+     * follow the current IntEncoding.</p>
+     *
+     * @param val The new IntEncoding.
+     *
+     * @return The previously set IntEncoding.
+     */
+    public static IntEncoding setIntEncoding(IntEncoding val) {
+        IntEncoding e = intEncoding;
+        intEncoding = val;
+        return e;
+    }
+
+    public static <T> Codec<T> getCodec(Class<T> cls) {
+        return CodecRegistry.of(cls);
+    }
+    /**
+     * <p>
+     * Sets the Codec used to serialise 'cls', replacing any built in Codec
+     * or Codec generated by SerialisableProcessor, and returns the previous
+     * Codec.</p>
+     *
+     * @param <T>   The type of 'cls'.
+     * @param cls   The Class the Codec serialises.
+     * @param codec The new Codec or null to serialise 'cls' through it's
+     *              fields.
+     *
+     * @return The previously set Codec or null.
+     */
+    public static <T> Codec<T> setCodec(Class<T> cls, Codec<T> codec) {
+        return CodecRegistry.register(cls, codec);
+    }
+
+    /**
+     * <p>
+     * The number of elements at which an Object[] is serialised in parallel,
+     * Integer.MAX_VALUE when it never is.</p>
+     */
+    private static volatile int parallelThreshold = Integer.MAX_VALUE;
+    public static int getParallelThreshold() {
+        return parallelThreshold;
+    }
+    /**
+     * <p>
+     * Sets the number of elements at which an Object[] is serialised in
+     * chunks on the common ForkJoinPool and returns the previous threshold.
+     * The bytes are the same as serialising the Array on one thread. Arrays
+     * are never serialised in parallel by a SerialWriter interning
+     * Strings.</p>
+     *
+     * @param val The new threshold, Integer.MAX_VALUE to never serialise in
+     *            parallel.
+     *
+     * @return The previous threshold.
+     */
+    public static int setParallelThreshold(int val) {
+        int t = parallelThreshold;
+        parallelThreshold = val;
+        return t;
+    }
+
+    /**
+     * <p>
+     * Whether new SerialReaders reuse the Objects and Arrays they
+     * deserialise into.</p>
+     */
+    private static volatile boolean reuse = false;
+    public static boolean getReuse() {
+        return reuse;
+    }
+    /**
+     * <p>
+     * Sets whether new SerialReaders reuse the Objects and Arrays they
+     * deserialise into and returns the previous setting, see
+     * SerialReader.setReuse.</p>
+     *
+     * @param val Whether to reuse Objects and Arrays.
+     *
+     * @return Whether Objects and Arrays were previously reused.
+     */
+    public static boolean setReuse(boolean val) {
+        boolean r = reuse;
+        reuse = val;
+        return r;
+    }
+
+    /**
+     * <p>
+     * The ClassRegistry new SerialWriters and SerialReaders use, if any.</p>
+     */
+    private static volatile ClassRegistry registry = null;
+    public static ClassRegistry getRegistry() {
+        return registry;
+    }
+    /**
+     * <p>
+     * Sets the ClassRegistry new SerialWriters and SerialReaders use and
+     * returns the previous ClassRegistry, see ClassRegistry. ObjectSize
+     * counts the class IDs and subClass fields written with it.</p>
+     *
+     * @param val The new ClassRegistry, null to write every Object as it's
+     *            declared Class.
+     *
+     * @return The previous ClassRegistry.
+     */
+    public static ClassRegistry setRegistry(ClassRegistry val) {
+        ClassRegistry r = registry;
+        registry = val;
+        return r;
+    }
+
+    /**
+     * <p>
+     * The ObjectPools new instances are taken from when reusing Objects, by
+     * the Class they hold.</p>
+     */
+    private static final ConcurrentHashMap<Class, ObjectPool> POOLS = new ConcurrentHashMap<>();
+    public static <T> ObjectPool<T> getPool(Class<T> cls) {
+        return POOLS.get(cls);
+    }
+    /**
+     * <p>
+     * Sets the ObjectPool new instances of 'cls' are taken from when reusing
+     * Objects and returns the previous ObjectPool.</p>
+     *
+     * @param <T>  The type of 'cls'.
+     * @param cls  The Class which is pooled.
+     * @param pool The new ObjectPool or null to always construct new
+     *             instances.
+     *
+     * @return The previously set ObjectPool or null.
+     */
+    public static <T> ObjectPool<T> setPool(Class<T> cls, ObjectPool<T> pool) {
+        return pool == null ? POOLS.remove(cls) : POOLS.put(cls, pool);
+    }
+
+    /**
+     * <p>
+     * Returns the size in bytes of the int field 'val' after it has been
+     * serialised with the current IntEncoding.</p>
+     *
+     * @param val The int in question.
+     *
+     * @return An int representing the size of 'val'.
+     */
+    public static int IntSize(int val) {
+        return intEncoding == IntEncoding.VARINT ? ZigZagSize(val)
+                : Integer.BYTES;
+    }
+
+    /**
+     * <p>
+     * Returns the size in bytes of the long field 'val' after it has been
+     * serialised with the current IntEncoding.</p>
+     *
+     * @param val The long in question.
+     *
+     * @return An int representing the size of 'val'.
+     */
+    public static int LongSize(long val) {
+        return intEncoding == IntEncoding.VARINT ? ZigZagSize(val)
+                : Long.BYTES;
+    }
+
+    /**
+     * <p>
+     * Returns the size in bytes of the length of a String or Array after it
+     * has been serialised with the current IntEncoding.</p>
+     *
+     * @param length The length in question.
+     *
+     * @return An int representing the size of 'length'.
+     */
+    public static int LengthSize(int length) {
+        return intEncoding == IntEncoding.VARINT ? VarIntSize(length)
+                : Integer.BYTES;
+    }
+
+    public static int ZigZagSize(int val) {
+        return VarIntSize((val << 1) ^ (val >> 31));
+    }
+
+    public static int ZigZagSize(long val) {
+        return VarLongSize((val << 1) ^ (val >> 63));
+    }
+
     /**
      * <p>
      * Returns the size in bytes of a String of length 'length', after it has
-     * been serialised using StringToBytes.</p>
+     * been serialised using StringToBytes with StringEncoding.UTF16.</p>
      *
      * @param length The length of the String in question.
      *
      * @return An int representing the size of a String of length 'length'.
      */
     public static int StringSize(int length) {
-        return Integer.BYTES + (length * Character.BYTES); //Return the size of the serialised String of length, length.
+        return LengthSize(length) + (length * Character.BYTES); //Return the size of the serialised String of length, length.
+    }
+
+    /**
+     * <p>
+     * Returns the size in bytes of 'str' after it has been serialised using
+     * StringToBytes with the current StringEncoding.</p>
+     *
+     * @param str The String in question.
+     *
+     * @return An int representing the size of 'str'.
+     */
+    public static int StringSize(String str) {
+        switch (stringEncoding) {
+            case UTF8: { //A varint byte length and the UTF-8 bytes.
+                int bytes = SerialWriter.utf8Length(str);
+                return VarIntSize(bytes) + bytes;
+            }
+            case LATIN1: //A varint length and a byte per char.
+                return VarIntSize(str.length()) + str.length();
+            default:
+                return StringSize(str.length());
+        }
+    }
+
+    /**
+     * <p>
+     * Returns the size in bytes of 'val' after it has been serialised as an
+     * unsigned LEB128 varint, 7 bits to a byte.</p>
+     *
+     * @param val The int in question.
+     *
+     * @return An int between 1 and 5.
+     */
+    public static int VarIntSize(int val) {
+        return (Integer.SIZE - Integer.numberOfLeadingZeros(val | 1) + 6) / 7;
+    }
+
+    /**
+     * <p>
+     * Returns the size in bytes of 'val' after it has been serialised as an
+     * unsigned LEB128 varint.</p>
+     *
+     * @param val The long in question.
+     *
+     * @return An int between 1 and 10.
+     */
+    public static int VarLongSize(long val) {
+        return (Long.SIZE - Long.numberOfLeadingZeros(val | 1) + 6) / 7;
     }
 
     /**
@@ -47,12 +340,9 @@ public class Serialiser {
      * @return The array of bytes.
      */
     public static ByteBuffer StringToBytes(byte[] buff, int pos, String str) { //Strings are Serialised in the form of 'String-length, String chars'.
-        ByteBuffer b = (ByteBuffer) ByteBuffer.wrap(buff).position(pos); //Create a ByteBuffer that will store the bytes starting at the given position.
-        b.putInt(str.length()); //Serialise an int representing the length of the String to the start of b.
-        for (char c : str.toCharArray()) { //Loop through each char in the String.
-            b.putChar(c); //Serialise the char to the next index.
-        }
-        return b; //Return the array of bytes.
+        SerialWriter w = new SerialWriter(buff, pos); //Create a SerialWriter that will store the bytes starting at the given position.
+        w.writeString(str); //Serialise the String.
+        return w.buffer(); //Return the array of bytes.
     }
 
     /**
@@ -66,12 +356,8 @@ public class Serialiser {
      * @return The String and the ByteBuffr used to deserialise it.
      */
     public static DeserialiseResult<String> StringFromBytes(byte[] buff, int pos) { //Strings are Serialised in the form of 'String-length, String chars'.
-        ByteBuffer b = (ByteBuffer) ByteBuffer.wrap(buff).position(pos); //Create a ByteBuffer that around the bytes of the String.
-        char[] chrs = new char[b.getInt()]; //Create a char[] the length of the String to deserialise to hold the characters of the String.
-        for (int i = 0; i < chrs.length; i++) { //Loop through each char in the String.
-            chrs[i] = b.getChar(); //Deserialise a char from b into chrs.
-        }
-        return new DeserialiseResult<>(String.valueOf(chrs), b); //Return the result.
+        SerialReader r = new SerialReader(buff, pos); //Create a SerialReader around the bytes of the String.
+        return new DeserialiseResult<>(r.readString(), r.buffer()); //Return the result.
     }
 
     /**
@@ -83,7 +369,7 @@ public class Serialiser {
      * @return The array of bytes representing the String.
      */
     public static ByteBuffer StringToBytes(String str) { //Strings are Serialised in the form of 'String-length, String chars'.
-        return StringToBytes(new byte[StringSize(str.length())], 0, str); //Return the bytes representing the String.
+        return StringToBytes(new byte[StringSize(str)], 0, str); //Return the bytes representing the String.
     }
 
     /**
@@ -96,9 +382,9 @@ public class Serialiser {
      * @return An int representing the size of 'str' after serialisation.
      */
     public static int StringArraySize(String[] str) {
-        int size = Integer.BYTES; //The total size of the String[] after serialisation; initially the size of one int representing the Array's length.
+        int size = LengthSize(str.length); //The total size of the String[] after serialisation; initially the size of the Array's length.
         for (String s : str) { //Loop through each String in str.
-            size += StringSize(s.length()); //Add the size of the serialised String of length, length.
+            size += StringSize(s); //Add the size of the serialised String.
         }
         return size; //Return the total size.
     }
@@ -114,7 +400,7 @@ public class Serialiser {
      *         bytes.
      */
     public static int IntArraySize(int length) { //int[]'s are serialised in the form 'int[] length, ints'
-        return Integer.BYTES + (Integer.BYTES * length); //Return the size of an int[] of length 'length'.
+        return LengthSize(length) + (Integer.BYTES * length); //Return the size of an int[] of length 'length'.
     }
 
     /**
@@ -128,7 +414,7 @@ public class Serialiser {
      *         bytes.
      */
     public static int LongArraySize(int length) { //long[]'s are serialised in the form 'long[] length, longs'
-        return Integer.BYTES + (Long.BYTES * length); //Return the size of an long[] of length 'length'.
+        return LengthSize(length) + (Long.BYTES * length); //Return the size of an long[] of length 'length'.
     }
 
     /**
@@ -142,7 +428,7 @@ public class Serialiser {
      *         bytes.
      */
     public static int DoubleArraySize(int length) { //double[]'s are serialised in the form 'double[] length, doubles'
-        return Integer.BYTES + (Double.BYTES * length); //Return the size of an double[] of length 'length'.
+        return LengthSize(length) + (Double.BYTES * length); //Return the size of an double[] of length 'length'.
     }
 
     /**
@@ -156,7 +442,7 @@ public class Serialiser {
      *         bytes.
      */
     public static int FloatArraySize(int length) { //float[]'s are serialised in the form 'float[] length, floats'
-        return Integer.BYTES + (Float.BYTES * length); //Return the size of an float[] of length 'length'.
+        return LengthSize(length) + (Float.BYTES * length); //Return the size of an float[] of length 'length'.
     }
 
     /**
@@ -171,7 +457,7 @@ public class Serialiser {
      *         bytes.
      */
     public static int BooleanArraySize(int length) { //boolean[]'s are serialised in the form 'boolean[] length, bits'
-        return Integer.BYTES + (int) Math.ceil(((double) length) / Byte.SIZE); //Return the size of an boolean[] of length 'length'.
+        return LengthSize(length) + (int) Math.ceil(((double) length) / Byte.SIZE); //Return the size of an boolean[] of length 'length'.
     }
 
     /**
@@ -196,29 +482,9 @@ public class Serialiser {
             byte[] buff, int buffPos, int boolPos, int boolLength,
             boolean[] bool) throws IndexOutOfBoundsException { //Booleans are stored as single 1's or 0's in bytes with 8 booleans being stored in a single byte.
         if (boolLength <= bool.length - boolPos) { //The number of iterations to be made does not exceed the number that can be made.
-            ByteBuffer b = (ByteBuffer) ByteBuffer.wrap(buff).position(buffPos); //Create a ByteBuffer to serialise to.
-            b.putInt(boolLength); //Serialise an int representing the the number of booleans to be serialised into b.
-            for (int i = boolPos; i < (boolPos + boolLength) - 8; i += 8) { //Loop through as many groups of 8 as evenly bit into bool.
-                byte bit = 1; //A byte which starts at 1 but will shift left every boolean.
-                byte val = 0; //A byte which stores the boolean values for serialisation.
-                for (int e = i; e < (i + 8); e++) { //Iterate through the next 8 booleans.
-                    if (bool[e]) { //This boolean needs to be set in val.
-                        val |= bit; //Set a bit to true in val.
-                    }
-                    bit <<= 1; //Left shift bit for the next bool.
-                }
-                b.put(val); //Serialise val into b.
-            }
-            int remainder = (int) Math.IEEEremainder(boolLength, 8); //Get an int representing the number of booleans left to iterate through.
-            byte bit = 1; //A byte which starts at 1 but will shift left every boolean.
-            byte val = 0; //A byte which stores the boolean values for serialisation.
-            for (int i = boolPos + boolLength - remainder; i < boolPos + boolLength; i++) { //Loop through the last booleans.
-                if (bool[i]) { //This boolean needs to be set in val.
-                    val |= bit; //Set a bit to true in val.
-                }
-                bit <<= 1; //Left shift bit for the next bool.
-            }
-            return b.put(val); //Serialise val into b and then return b.
+            SerialWriter w = new SerialWriter(buff, buffPos); //Create a SerialWriter to serialise to.
+            w.writeBooleans(bool, boolPos, boolLength); //Serialise the booleans.
+            return w.buffer();
         } else { //The number of iterations to be made exceeds the maximum possible.
             throw new IndexOutOfBoundsException(
                     "The number of booleans asked to be read from the Array exceeded the maximum that could be read.");
@@ -237,24 +503,8 @@ public class Serialiser {
      */
     public static DeserialiseResult<boolean[]> BooleanArrayFromBytes(
             byte[] buff, int pos) { //Booleans are stored as single 1's or 0's in bytes with 8 booleans being stored in a single byte.
-        ByteBuffer b = (ByteBuffer) ByteBuffer.wrap(buff).position(pos); //Wrap a ByteBuffer around buff to deserialise from.
-        boolean[] bool = new boolean[b.getInt()]; //Create a boolean[] to store all the booleans that need to be deserialised.
-        for (int i = 0; i < bool.length - 8; i += 8) { //Loop through as many groups of 8 as evenly bit into bool.
-            byte bit = 1; //A byte which starts at 1 but will shift left every boolean.
-            byte val = b.get(); //Deserialise the next byte of values from b.
-            for (int e = i; e < (i + 8); e++) { //Iterate through the next 8 booleans.
-                bool[e] = (bit & val) != 0; //Assign true or false to this boolean based on the next bit in val.
-                bit <<= 1; //Right shift bit for the next bool.
-            }
-        }
-        int remainder = (int) Math.IEEEremainder(bool.length, 8); //Get an int representing the number of booleans left to iterate through.
-        byte bit = 1; //A byte which starts at 1 but will shift left every boolean.
-        byte val = b.get(); //Deserialise the next byte of values from b.
-        for (int i = bool.length - remainder; i < bool.length; i++) { //Loop through the last booleans.
-            bool[i] = (bit & val) != 0; //Assign true or false to this boolean based on the next bit in val.
-            bit <<= 1; //Left shift bit for the next bool.
-        }
-        return new DeserialiseResult(bool, b); //Return the result of this deserialise.
+        SerialReader r = new SerialReader(buff, pos); //Create a SerialReader around buff to deserialise from.
+        return new DeserialiseResult<>(r.readBooleans(), r.buffer()); //Return the result of this deserialise.
     }
 
     /**
@@ -268,7 +518,7 @@ public class Serialiser {
      *         bytes.
      */
     public static int ByteArraySize(int length) { //byte[]'s are serialised in the form 'byte[] length, bytes'
-        return Integer.BYTES + length; //Return the size of an byte[] of length 'length'.
+        return LengthSize(length) + length; //Return the size of an byte[] of length 'length'.
     }
 
     /**
@@ -283,7 +533,7 @@ public class Serialiser {
      *         bytes.
      */
     public static int ShortArraySize(int length) { //short[]'s are serialised in the form 'short[] length, bits'
-        return Integer.BYTES + (length * Short.BYTES); //Return the size of an short[] of length 'length'.
+        return LengthSize(length) + (length * Short.BYTES); //Return the size of an short[] of length 'length'.
     }
 
     /**
@@ -298,7 +548,7 @@ public class Serialiser {
      *         bytes.
      */
     public static int CharacterArraySize(int length) { //char[]'s are serialised in the form 'char[] length, bits'
-        return Integer.BYTES + (length * Character.BYTES); //Return the size of an char[] of length 'length'.
+        return LengthSize(length) + (length * Character.BYTES); //Return the size of an char[] of length 'length'.
     }
 
     /**
@@ -320,51 +570,9 @@ public class Serialiser {
             Class cls, byte[] buff, int pos, Object obj) throws IllegalAccessException { //Arrays are serialised in the form 'Array length, value bytes'.
         if (cls.isInstance(obj)) { //obj is an intance of cls.
             if (cls.isArray()) { //cls is an Array class.
-                ByteBuffer b = (ByteBuffer) ByteBuffer.wrap(buff).position(pos); //Create a ByteBuffer around buff to serialise to.
-                if (cls == String[].class) { //It's a String[].
-                    b.putInt(Array.getLength(obj)); //Serialise an int representing the length of the Array to b.
-                    for (String s : (String[]) obj) { //Loop through each String.
-                        b = StringToBytes(buff, b.position(), s); //Serialise the String and get the ByteBuffer.
-                    }
-                } else if (cls == int[].class) { //It's an int[].
-                    b.putInt(Array.getLength(obj)); //Serialise an int representing the length of the Array to b.
-                    for (int i : (int[]) obj) { //Loop through each int.
-                        b.putInt(i); //Serialise i into b.
-                    }
-                } else if (cls == long[].class) { //It's a long[].
-                    b.putInt(Array.getLength(obj)); //Serialise an int representing the length of the Array to b.
-                    for (long l : (long[]) obj) { //Loop through each long.
-                        b.putLong(l); //Serialise i into b.
-                    }
-                } else if (cls == double[].class) { //It's a double[].
-                    b.putInt(Array.getLength(obj)); //Serialise an int representing the length of the Array to b.
-                    for (double d : (double[]) obj) { //Loop through each double.
-                        b.putDouble(d); //Serialise d into b.
-                    }
-                } else if (cls == float[].class) { //It's a float[].
-                    b.putInt(Array.getLength(obj)); //Serialise an int representing the length of the Array to b.
-                    for (float f : (float[]) obj) { //Loop through each float.
-                        b.putFloat(f); //Serialise f into b.
-                    }
-                } else if (cls == boolean[].class) { //It's a boolean[].
-                    b = BooleanArrayToBytes(buff, b.position(), 0,
-                            Array.getLength(obj), (boolean[]) obj); //Serialise the boolean array into b.
-                } else if (cls == byte[].class) { //It's a byte[].
-                    b.putInt(Array.getLength(obj)); //Serialise an int representing the length of the Array to b.
-                    b.put((byte[]) obj); //Serialise obj into b.
-                } else if (cls == short[].class) { //It's a short[].
-                    b.putInt(Array.getLength(obj)); //Serialise an int representing the length of the Array to b.
-                    for (short s : (short[]) obj) { //Loop through each short.
-                        b.putShort(s); //Serialise s into b.
-                    }
-                } else { //It's an Object[].
-                    b.putInt(Array.getLength(obj)); //Serialise an int representing the length of the Array to b.
-                    for (Object o : (Object[]) obj) { //Loop through each Object in obj
-                        b = ObjectToBytes(o.getClass(), buff, b.position(), o,
-                                true); //Serialise o into b and get the new ByteBuffer.
-                    }
-                }
-                return b;
+                SerialWriter w = new SerialWriter(buff, pos); //Create a SerialWriter around buff to serialise to.
+                w.writeArray(cls, obj); //Serialise the Array.
+                return w.buffer();
             } else { //This is not an Array type
                 throw new IllegalAccessException(
                         "The passed Object is not an Array.");
@@ -395,71 +603,58 @@ public class Serialiser {
      */
     public static DeserialiseResult<?> ArrayFromBytes(
             Class cls, byte[] buff, int pos) throws InstantiationException, IllegalAccessException { //Arrays are serialised in the form 'Array length, value bytes'.
-        ByteBuffer b = (ByteBuffer) ByteBuffer.wrap(buff).position(pos); //Create a ByteBuffer around buff to deserialise from.
+        SerialReader r = new SerialReader(buff, pos); //Create a SerialReader around buff to deserialise from.
+        return new DeserialiseResult<>(r.readArray(cls), r.buffer()); //Return the result.
+    }
+
+    /**
+     * <p>
+     * Returns the size of the Array 'obj' of type 'cls' after it has been
+     * serialised using ArrayToBytes.</p>
+     *
+     * @param cls The Array Class type of 'obj'.
+     * @param obj The Array to get the size of.
+     *
+     * @return An int representing the size of 'obj' in bytes.
+     *
+     * @throws java.lang.IllegalAccessException Thrown if an Object inside of
+     *                                          'obj' is not an instance of
+     *                                          it's Class.
+     */
+    public static int ArraySize(Class cls, Object obj) throws IllegalAccessException {
         if (cls == String[].class) { //It's a String[].
-            String[] val = new String[b.getInt()]; //Create a String[] to hold each String.
-            for (int i = 0; i < val.length; i++) { //Loop through each String.
-                DeserialiseResult<String> res = StringFromBytes(buff, b.
-                        position()); //Deserialise a String from buff and get the result.
-                b = res.buff; //Get the new ByteBuffer.
-                val[i] = res.val; //Place the String into val.
-            }
-            return new DeserialiseResult<>(val, b); //Return the result.
+            return StringArraySize((String[]) obj); //Return the size of this Array.
         } else if (cls == int[].class) { //It's an int[].
-            int[] val = new int[b.getInt()]; //Create an int[] to hold each int.
-            for (int i = 0; i < val.length; i++) { //Loop through each int.
-                val[i] = b.getInt(); //Deserialise an int from b.
-            }
-            return new DeserialiseResult<>(val, b); //Return the result.
+            return IntArraySize(Array.getLength(obj)); //Return the size of this Array.
         } else if (cls == long[].class) { //It's a long[].
-            long[] val = new long[b.getInt()]; //Create a long[] to store each long.
-            for (int i = 0; i < val.length; i++) { //Loop through each long.
-                val[i] = b.getLong(); //Deserialise a long from b.
-            }
-            return new DeserialiseResult<>(val, b); //Return the result.
+            return LongArraySize(Array.getLength(obj)); //Return the size of this Array.
         } else if (cls == double[].class) { //It's a double[].
-            double[] val = new double[b.getInt()]; //Create a double[] to store each double.
-            for (int i = 0; i < val.length; i++) { //Loop through each double.
-                val[i] = b.getDouble(); //Deserialise a double from b.
-            }
-            return new DeserialiseResult<>(val, b); //Return the result.
+            return DoubleArraySize(Array.getLength(obj)); //Return the size of this Array.
         } else if (cls == float[].class) { //It's a float[].
-            float[] val = new float[b.getInt()]; //Create a float[] to store each float.
-            for (int i = 0; i < val.length; i++) { //Loop through each float.
-                val[i] = b.getFloat(); //Deserialise a float from b.
-            }
-            return new DeserialiseResult<>(val, b); //Return the result.
+            return FloatArraySize(Array.getLength(obj)); //Return the size of this Array.
         } else if (cls == boolean[].class) { //It's a boolean[].
-            DeserialiseResult<boolean[]> res = BooleanArrayFromBytes(buff, pos); //Deserialise a boolean[] from buff.
-            return new DeserialiseResult<>(res.val, res.buff); //Return the result.
+            return BooleanArraySize(Array.getLength(obj)); //Return the size of this Array.
         } else if (cls == byte[].class) { //It's a byte[].
-            byte[] val = new byte[b.getInt()]; //Create a byte[] to store each byte.
-            b.get(val, 0, val.length); //Deserialise the bytes from b into val.
-            return new DeserialiseResult<>(val, b); //Return the result.
+            return ByteArraySize(Array.getLength(obj)); //Return the size of this Array.
         } else if (cls == short[].class) { //It's a short[].
-            short[] val = new short[b.getInt()]; //Create a short[] to store each short.
-            for (int i = 0; i < val.length; i++) { //Loop through each short.
-                val[i] = b.getShort(); //Deserialise a short from b.
-            }
-            return new DeserialiseResult<>(val, b); //Return the result.
+            return ShortArraySize(Array.getLength(obj)); //Return the size of this Array.
+        } else if (cls == char[].class) { //It's a char[].
+            return CharacterArraySize(Array.getLength(obj)); //Return the size of this Array.
         } else { //It's an Object[].
-            Object[] val = new Object[b.getInt()]; //Create a Object[] to store each Object.
-            for (int i = 0; i < val.length; i++) { //Loop through each Object.
-                if (b.get() == 1) { //This is not a null value.
-                    DeserialiseResult res = ObjectFromBytes(cls, buff, b.
-                            position(), null, true); //Deserialise a Object from b.
-                    b = res.buff; //Get the returned byte buffer.
-                    val[i] = res.val; //Get the Object from res.
-                }
+            int size = LengthSize(Array.getLength(obj)); //Add the length of this Array.
+            for (Object o : (Object[]) obj) { //Loop through each Object in this Array.
+                size += ObjectSize(cls.getComponentType(), o, true); //Add the size of this Object to size.
             }
-            return new DeserialiseResult<>(val, b); //Return the result.
+            return size;
         }
     }
 
     /**
      * <p>
      * Returns the size of 'obj' of type 'cls' after it has been serialised
-     * using ObjectToBytes.</p>
+     * using ObjectToBytes. If a ClassRegistry is set and 'obj' is an instance
+     * of a subClass of 'cls' this is the size of it's class ID and the
+     * subClass's fields.</p>
      *
      * @param cls   The class type of 'obj'.
      * @param obj   The object to get the size of.
@@ -470,78 +665,70 @@ public class Serialiser {
      * @return An int representing the size of 'obj' in bytes.
      *
      * @throws java.lang.IllegalAccessException Thrown if 'obj' is not an
-     *                                          instance of 'cls'.
+     *                                          instance of 'cls' or it's
+     *                                          Class is not registered.
      */
     public static int ObjectSize(Class cls, Object obj, boolean first) throws IllegalAccessException {
         if (obj == null) { //obj is null.
             return Byte.BYTES; //Return one byte size to indicate this is a null value.
         } else { //obj is not null 
             if (cls.isInstance(obj)) { //obj is an instance of the given Class.
-                int size = first ? Byte.BYTES : 0; //This int will keep a count of the size of this Object in bytes; initialy one byte to store whether obj is null if this is the first iteration.
-                Field[] fields = cls.getDeclaredFields(); //Get the fields for this Object type.
-                for (Field f : fields) { //Loop through every field.
-                    f.setAccessible(true);
-                    Class fCls = f.getType(); //Get the class type for this field.
-
-                    if (fCls.isArray()) { //This field contains an Array.
-                        if (fCls == String[].class) { //It's a String[].
-                            size += Integer.BYTES; //Add an int to represent the length of this Array.
-                            for (String s : (String[]) f.get(obj)) { //Loop through every String in this Field.
-                                size += StringSize(s.length()); //Add the size of this String to size.
-                            }
-                        } else if (fCls == int[].class) { //It's an int[].
-                            size += IntArraySize(Array.getLength(f.get(obj))); //Add the size of this Array to size.
-                        } else if (fCls == long[].class) { //It's a long[].
-                            size += LongArraySize(Array.getLength(obj)); //Adds the size of this Array to size.
-                        } else if (fCls == double[].class) { //It's a double[].
-                            size += DoubleArraySize(Array.getLength(obj)); //Adds the size of this Array to size.
-                        } else if (fCls == float[].class) { //It's a float[].
-                            size += FloatArraySize(Array.getLength(obj)); //Adds the size of this Array to size.
-                        } else if (fCls == boolean[].class) { //It's a boolean[].
-                            size += BooleanArraySize(Array.getLength(obj)); //Adds the size of this Array to size.
-                        } else if (fCls == byte[].class) { //It's a byte[].
-                            size += ByteArraySize(Array.getLength(obj)); //Adds the size of this Array to size.
-                        } else if (fCls == short[].class) { //It's a short[].
-                            size += ShortArraySize(Array.getLength(obj)); //Adds the size of this Array to size.
-                        } else if (fCls == char[].class) { //It's a char[].
-                            size += CharacterArraySize(Array.getLength(obj)); //Adds the size of this array to size.
-                        } else { //It's an Object[].
-                            size += Integer.BYTES; //Add an int to represent the length of this Array.
-                            for (Object o : (Object[]) f.get(obj)) { //Loop through each Object in this Array.
-                                size += ObjectSize(fCls.getComponentType(), o,
-                                        true); //Add the size of this Object to size.
-                            }
+                if (cls.isArray()) { //This is an Array type.
+                    return ArraySize(cls, obj); //Return the size of the Array.
+                }
+                ClassRegistry reg = registry;
+                if (first && reg != null) { //Check whether obj is written as a subClass of cls, the same as SerialWriter.writeObject.
+                    Class actual = obj instanceof Enum ? ((Enum) obj).
+                            getDeclaringClass() : obj.getClass();
+                    if (actual != cls) { //obj is written with it's class ID.
+                        int id = reg.idOf(actual);
+                        if (id == -1) {
+                            throw new IllegalAccessException(actual.getName()
+                                    + " is not registered.");
                         }
-                    } else if (fCls == String.class) { //It's a String.
-                        size += StringSize(((String) f.get(obj)).length()); //Add the size of this String to size.
-                    } else if (fCls == int.class) { //It's an int.
-                        size += Integer.BYTES; //Add the size of an int to size.
-                    } else if (fCls == long.class) { //It's a long.
-                        size += Long.BYTES; //Add the size of a long to size.
-                    } else if (fCls == double.class) { //It's a double.
-                        size += Double.BYTES; //Add the size of a double to size.
-                    } else if (fCls == float.class) { //It's a float.
-                        size += Float.BYTES; //Add the size of a float to size.
-                    } else if (fCls == boolean.class || fCls == byte.class) { //It's a boolean or a byte.
-                        size += Byte.BYTES; //Add the size of a byte to size.
-                    } else if (fCls == short.class) { //It's a short.
-                        size += Short.BYTES; //Add the size of a Short to size.
-                    } else if (fCls == char.class) { //It's a char.
-                        size += Character.BYTES; //Add the size of a char to size.
-                    } else { //It's an Object.
-                        size += ObjectSize(fCls.getComponentType(), f.get(obj),
-                                true); //Add the size of this Object to size.
+                        return Byte.BYTES + VarIntSize(id) + ObjectSize(actual,
+                                obj, false); //The marker, the class ID and the subClass's fields.
                     }
                 }
-
-                if (cls.getSuperclass() != null) {
-                    size += ObjectSize(cls.getSuperclass(), obj, false); //Add the size of obj as an instance of it's superClass
+                int size = first ? Byte.BYTES : 0; //This int will keep a count of the size of this Object in bytes; initialy one byte to store whether obj is null if this is the first iteration.
+                Codec codec = CodecRegistry.of(cls); //The Codec for cls, if there is one.
+                if (codec != null) { //Use the Codec for cls.
+                    return size + codec.size(obj); //Add the size of obj's fields.
                 }
-
-                for (Class c : cls.getInterfaces()) { //Loop through all interfaces used by 'cls'
-                    size += ObjectSize(c, obj, false); //Add the size of obj as an instance of 'c'
+                for (ClassPlan.FieldPlan f : ClassPlan.of(cls).fields) { //Loop through every field in the cached plan.
+                    switch (f.code) {
+                        case ClassPlan.INT: //It's an int.
+                            size += IntSize(f.access.getInt(obj)); //Add the size of an int to size.
+                            break;
+                        case ClassPlan.LONG: //It's a long.
+                            size += LongSize(f.access.getLong(obj)); //Add the size of a long to size.
+                            break;
+                        case ClassPlan.VAR_INT: //It's an int which is always a varint.
+                            size += ZigZagSize(f.access.getInt(obj)); //Add the size of the varint to size.
+                            break;
+                        case ClassPlan.VAR_LONG: //It's a long which is always a varint.
+                            size += ZigZagSize(f.access.getLong(obj)); //Add the size of the varint to size.
+                            break;
+                        case ClassPlan.DOUBLE: //It's a double.
+                            size += Double.BYTES; //Add the size of a double to size.
+                            break;
+                        case ClassPlan.FLOAT: //It's a float.
+                            size += Float.BYTES; //Add the size of a float to size.
+                            break;
+                        case ClassPlan.BOOLEAN: //It's a boolean.
+                        case ClassPlan.BYTE: //It's a byte.
+                            size += Byte.BYTES; //Add the size of a byte to size.
+                            break;
+                        case ClassPlan.SHORT: //It's a short.
+                            size += Short.BYTES; //Add the size of a Short to size.
+                            break;
+                        case ClassPlan.CHAR: //It's a char.
+                            size += Character.BYTES; //Add the size of a char to size.
+                            break;
+                        default: //It's an Object.
+                            size += ValueSize(f, f.access.get(obj)); //Add the size of this Object to size.
+                    }
                 }
-
                 return size;
             } else {
                 throw new IllegalAccessException(
@@ -550,6 +737,95 @@ public class Serialiser {
         }
     }
 
+    /**
+     * <p>
+     * Returns the size in bytes of 'val', the value of the non primitive
+     * field 'f'.</p>
+     */
+    static int ValueSize(ClassPlan.FieldPlan f, Object val) throws IllegalAccessException {
+        switch (f.code) {
+            case ClassPlan.ARRAY: //This field contains an Array.
+                return ArraySize(f.type, val);
+            case ClassPlan.STRING: //It's a String.
+                return StringSize((String) val);
+            case ClassPlan.LIST: //It's a Collection.
+                return ListSize(f.args[0], (Collection) val);
+            case ClassPlan.MAP: //It's a Map.
+                return MapSize(f.args[0], f.args[1], (Map) val);
+            case ClassPlan.ENUM_SET: //It's a Set of an enum.
+                return EnumSetSize(f.args[0], (Set) val);
+            default: //It's an Object.
+                return ObjectSize(f.type, val, true);
+        }
+    }
+
+    /**
+     * <p>
+     * Returns the size in bytes of 'val' after it has been serialised by
+     * SerialWriter.writeList.</p>
+     *
+     * @param elem The Class type of the elements.
+     * @param val  The Collection in question.
+     *
+     * @return An int representing the size of 'val'.
+     *
+     * @throws java.lang.IllegalAccessException Thrown if an element is not an
+     *                                          instance of 'elem'.
+     */
+    public static int ListSize(Class elem, Collection val) throws IllegalAccessException {
+        if (val == null) { //Only the null marker is serialised.
+            return Byte.BYTES;
+        }
+        int size = Byte.BYTES + LengthSize(val.size());
+        for (Object o : val) {
+            size += ObjectSize(elem, o, true);
+        }
+        return size;
+    }
+
+    /**
+     * <p>
+     * Returns the size in bytes of 'val' after it has been serialised by
+     * SerialWriter.writeMap.</p>
+     *
+     * @param key   The Class type of the keys.
+     * @param value The Class type of the values.
+     * @param val   The Map in question.
+     *
+     * @return An int representing the size of 'val'.
+     *
+     * @throws java.lang.IllegalAccessException Thrown if a key or value is
+     *                                          not an instance of it's
+     *                                          Class.
+     */
+    public static int MapSize(Class key, Class value, Map<?, ?> val) throws IllegalAccessException {
+        if (val == null) { //Only the null marker is serialised.
+            return Byte.BYTES;
+        }
+        int size = Byte.BYTES + LengthSize(val.size());
+        for (Map.Entry<?, ?> e : val.entrySet()) {
+            size += ObjectSize(key, e.getKey(), true) + ObjectSize(value, e.
+                    getValue(), true);
+        }
+        return size;
+    }
+
+    /**
+     * <p>
+     * Returns the size in bytes of 'val' after it has been serialised by
+     * SerialWriter.writeEnumSet.</p>
+     *
+     * @param elem The enum Class of the elements.
+     * @param val  The Set in question.
+     *
+     * @return An int representing the size of 'val'.
+     */
+    public static int EnumSetSize(Class<? extends Enum> elem,
+            Set<? extends Enum> val) {
+        return val == null ? Byte.BYTES : Byte.BYTES + (elem.
+                getEnumConstants().length + Byte.SIZE - 1) / Byte.SIZE;
+    }
+
     /**
      * <p>
      * Serialises 'obj' into buff starting at position 'pos' as an instance of
@@ -570,63 +846,44 @@ public class Serialiser {
      */
     public static ByteBuffer ObjectToBytes(
             Class cls, byte[] buff, int pos, Object obj, boolean first) throws IllegalAccessException {
-        ByteBuffer b = (ByteBuffer) ByteBuffer.wrap(buff).position(pos); //Create a ByteBuffer around buff and set the position to pos.
+        SerialWriter w = new SerialWriter(buff, pos); //Create a SerialWriter around buff starting at pos.
         if (obj == null) { //This is a null value.
-            b.put((byte) 0); //Serialise 0 into b to indicate that this is a null value.
-            return b; //Return b to the caller.
-        } else { //This is not a null value.
-            if (cls.isInstance(obj)) { //obj is an instance of the given Class.
-                if (cls.isArray()) { //This is an Array type.
-                    return ArrayToBytes(cls.getComponentType(), buff, pos, obj); //Return the serialise Array.
-                } else { //This is an Object type.
-                    if (first) { //Serialise 1 into b to indicate that this is not a null value if it's the first iteration.
-                        b.put((byte) 1); //Serialise a byte into b.
-                    }
-                    Field[] fields = cls.getDeclaredFields(); //Get the fields for this Object type.
-                    for (Field f : fields) { //Loop through every field.
-                        f.setAccessible(true);
-                        Class fCls = f.getType(); //Get the class type for this field.
-                        if (fCls.isArray()) { //This field contains an Array.
-                            b = ArrayToBytes(fCls, buff, b.position(), f.
-                                    get(obj)); //Serialise the Array into buff.
-
-                        } else if (fCls == String.class) { //It's a String[].
-                            b = StringToBytes(
-                                    buff, b.position(), (String) f.get(obj)); //Serialise the String and get the ByteBuffer.
-                        } else if (fCls == int.class) { //It's an int.
-                            b.putInt(f.getInt(obj)); //Serialise the int into b.
-                        } else if (fCls == long.class) { //It's a long.
-                            b.putLong(f.getLong(obj)); //Serialise the long into b.
-                        } else if (fCls == double.class) { //It's a double.
-                            b.putDouble(f.getDouble(obj)); //Serialise the double into b.
-                        } else if (fCls == float.class) { //It's a float.
-                            b.putFloat(f.getFloat(obj)); //Serialise the float into b.
-                        } else if (fCls == boolean.class) { //It's a boolean.
-                            b.put((byte) (f.getBoolean(obj) ? 1 : 0)); //Serialise the boolean into b.
-                        } else if (fCls == byte.class) { //It's a byte.
-                            b.put(f.getByte(obj)); //Serialise the byte into b.
-                        } else if (fCls == short.class) { //It's a short.
-                            b.putShort(f.getShort(obj)); //Serialise the short into b.
-                        } else { //It's an Object.
-                            b.put(f.getByte(obj)); //Serialise the Object into b.
-                        }
-                    }
-
-                    if (cls.getSuperclass() != null) { //There is a superClass
-                        b = ObjectToBytes(cls.getSuperclass(), buff, b.
-                                position(), obj, false); //Serialise the object as an instance of it's superClass.
-                    }
-
-                    for (Class c : cls.getInterfaces()) { //Loop through all interfaces used by 'cls'
-                        b = ObjectToBytes(c, buff, b.position(), obj, false); //Serialise the object as an instance of it's interface.
-                    }
-
-                    return b;
-                }
-            } else {
-                throw new IllegalAccessException(
-                        "The passed Object is not an instance of the passed Class.");
+            w.putByte((byte) 0); //Serialise 0 to indicate that this is a null value.
+        } else if (!cls.isInstance(obj)) {
+            throw new IllegalAccessException(
+                    "The passed Object is not an instance of the passed Class.");
+        } else if (cls.isArray()) { //This is an Array type.
+            w.writeArray(cls, obj); //Serialise the Array.
+        } else { //This is an Object type.
+            if (first) { //Serialise 1 to indicate that this is not a null value if it's the first iteration.
+                w.putByte((byte) 1);
             }
+            w.writeFields(cls, obj); //Serialise the fields of obj.
+        }
+        return w.buffer();
+    }
+
+    /**
+     * <p>
+     * Serialises 'obj' as an instance of 'cls' in a single pass and returns
+     * the bytes. Unlike the other ObjectToBytes the size of 'obj' does not
+     * need to be known before hand.</p>
+     *
+     * @param cls The class type of 'obj'.
+     * @param obj The object to serialise.
+     *
+     * @return The bytes representing 'obj'.
+     *
+     * @throws java.lang.IllegalAccessException Thrown if 'obj' is not an
+     *                                          instance of 'cls'.
+     */
+    public static byte[] ObjectToBytes(Class cls, Object obj) throws IllegalAccessException {
+        SerialWriter w = SerialWriter.acquire(); //Get a pooled SerialWriter to serialise into.
+        try {
+            w.writeObject(cls, obj); //Serialise obj.
+            return w.toByteArray();
+        } finally {
+            w.release();
         }
     }
 
@@ -658,90 +915,194 @@ public class Serialiser {
      */
     public static DeserialiseResult<?> ObjectFromBytes(
             Class cls, byte[] buff, int pos, Object obj, boolean first) throws InstantiationException, IllegalAccessException, ClassCastException {
-        ByteBuffer b = (ByteBuffer) ByteBuffer.wrap(buff).position(pos); //Create a ByteBuffer around buff and set the position to pos.
-        if (cls.isArray()) { //This is an Array type.
-            return ArrayFromBytes(cls, buff, pos); //Return the deserialised Array.
-        } else { //This is an Object type.
-            if (first) { //This is the first iteration so check for null obj.
-                if (b.get() == 1) { //This instance is is a non null value.
-                    if (obj == null) { //obj needs to have a value to be deserialised to.
-                        try {
-                            obj = cls.newInstance(); //Create a new Instance of cls to deserialise values to.
-                        } catch (InstantiationException ex) {
-                            throw new InstantiationException(
-                                    "The passed class does not have a contructor with no parameters.");
-                        }
-                    }
-                } else { //This is a null value.
-                    return new DeserialiseResult<>(null, b); //Return a null result.
-                }
-            }
+        SerialReader r = new SerialReader(buff, pos); //Create a SerialReader around buff starting at pos.
+        if (first || cls.isArray()) { //Check for a null value.
+            return new DeserialiseResult<>(r.readObject(cls, obj), r.buffer()); //Return the deserialised Object.
+        } else if (!cls.isInstance(obj)) { //obj is not an instance of cls.
+            throw new ClassCastException(
+                    "The passed Object is not an instance of the passed Class."); //Throw an exception to the calling code.
+        }
+        return new DeserialiseResult<>(r.readFields(cls, obj), r.buffer()); //Return the result.
+    }
 
-            if (!cls.isInstance(obj)) { //obj is not an instance of cls.
-                throw new ClassCastException(
-                        "The passed Object is not an instance of the passed Class."); //Throw an exception to the calling code.
-            } else {
-                Field[] fields = cls.getDeclaredFields(); //Get the fields for this Object type.
-                for (Field f : fields) { //Loop through every field.
-                    if (!Modifier.isFinal(f.getModifiers())
-                            || !Modifier.isStatic(f.getModifiers())) { //This field is not 'static final'.
-                        f.setAccessible(true);
-                        Class fCls = f.getType(); //Get the class type for this field.
-                        if (fCls.isArray()) { //This field contains an Array.
-                            DeserialiseResult res = ArrayFromBytes(fCls, buff,
-                                    b.
-                                    position()); //Deserialise the Array from buff and get the result.
-                            b = res.buff; //Set b to the updated ByteBuffer.
-                            f.set(obj, res.val); //Set the value in obj.
-                        } else if (fCls == String.class) { //It's a String[].
-                            DeserialiseResult res = StringFromBytes(buff, b.
-                                    position()); //Deserialise the String from buff and get the result.
-                            b = res.buff; //Set b to the updated ByteBuffer.
-                            f.set(obj, res.val); //Set the value in obj.
-                        } else if (fCls == int.class) { //It's an int.
-                            f.set(obj, b.getInt()); //Deserialise an int from b into obj.
-                        } else if (fCls == long.class) { //It's a long.
-                            f.set(obj, b.getLong()); //Deserialise a long from b into obj.
-                        } else if (fCls == double.class) { //It's a double.
-                            f.set(obj, b.getDouble()); //Deserialise an double from b into obj.
-                        } else if (fCls == float.class) { //It's a float.
-                            f.set(obj, b.getFloat()); //Deserialise an float from b into obj.
-                        } else if (fCls == boolean.class) { //It's a boolean.
-                            f.set(obj, (b.get() == 1)); //Deserialise an boolean from b into obj.
-                        } else if (fCls == byte.class) { //It's a byte.
-                            f.set(obj, b.get()); //Deserialise an byte from b into obj.
-                        } else if (fCls == short.class) { //It's a short.
-                            f.set(obj, b.getShort()); //Deserialise an short from b into obj.
-                        } else { //It's an Object.
-                            DeserialiseResult res = ObjectFromBytes(fCls, buff,
-                                    b.
-                                    position(), null, true); //Deserialise an Object from b and get the result.
-                            b = res.buff; //Set b to the updated ByteBuffer.
-                            f.set(obj, res.val); //Set the deserialised Object in obj.
-                        }
-                    }
-                }
+    /**
+     * <p>
+     * Serialises 'obj' as an instance of 'cls' into 'buff' starting at it's
+     * current position, using it's byte order. 'buff' may be a direct or
+     * memory mapped buffer so the bytes can be sent or saved without being
+     * copied.</p>
+     *
+     * @param cls  The class type of 'obj'.
+     * @param buff The ByteBuffer to serialise into.
+     * @param obj  The object to serialise.
+     *
+     * @return buff after serialising 'obj' into it.
+     *
+     * @throws java.lang.IllegalAccessException Thrown if 'obj' is not an
+     *                                          instance of 'cls'.
+     */
+    public static ByteBuffer ObjectToBytes(Class cls, ByteBuffer buff,
+            Object obj) throws IllegalAccessException {
+        new SerialWriter(buff).writeObject(cls, obj); //Serialise obj into buff.
+        return buff;
+    }
 
-                if (cls.getSuperclass() != null) { //There is a superClass
-                    DeserialiseResult res = ObjectFromBytes(cls.
-                            getSuperclass(),
-                            buff, b.position(), obj, false); //Deserialise the values for obj's superClass into obj.
-                    b = res.buff; //Set b to the new updated ByteBuffer.
-                    obj = res.val; //Set obj to the updated Object.
-                }
+    /**
+     * <p>
+     * Deserialises an instance of 'cls' from 'buff' starting at it's current
+     * position, using it's byte order.</p>
+     *
+     * @param cls  The class type to deserialise.
+     * @param buff The ByteBuffer to deserialise from.
+     * @param obj  The Object to deserialise values into, if null a new
+     *             instance of 'cls' will be created.
+     *
+     * @return The deserialised Object.
+     *
+     * @throws java.lang.InstantiationException Thrown if the Class defined by
+     *                                          'cls' does not have a nullary constructor.
+     * @throws java.lang.IllegalAccessException Thrown if the Class 'cls' or
+     *                                          it's nullary constructor cannot
+     *                                          be accessed.
+     * @throws java.lang.ClassCastException     Thrown if 'obj' is not an
+     *                                          instance of 'cls'.
+     */
+    public static Object ObjectFromBytes(Class cls, ByteBuffer buff, Object obj) throws InstantiationException, IllegalAccessException, ClassCastException {
+        return new SerialReader(buff).readObject(cls, obj);
+    }
 
-                for (Class c : cls.getInterfaces()) { //Loop through all interfaces used by 'cls'
-                    DeserialiseResult res = ObjectFromBytes(c, buff, b.
-                            position(), obj, false); //Deserialise the values for obj's interface into obj.
-                    b = res.buff; //Set b to the new updated ByteBuffer.
-                    obj = res.val; //Set obj to the updated Object.
-                }
+    /**
+     * <p>
+     * Serialises 'obj' as an instance of 'cls' in the indexed layout and
+     * returns the bytes. Fields of the indexed layout can be read one at a
+     * time through a SerialView without deserialising the whole Object.</p>
+     *
+     * @param cls The class type of 'obj'.
+     * @param obj The object to serialise.
+     *
+     * @return The bytes representing 'obj'.
+     *
+     * @throws java.lang.IllegalAccessException Thrown if 'obj' is not an
+     *                                          instance of 'cls'.
+     */
+    public static byte[] IndexedToBytes(Class cls, Object obj) throws IllegalAccessException {
+        SerialWriter w = SerialWriter.acquire(); //Get a pooled SerialWriter to serialise into.
+        try {
+            w.writeIndexed(cls, obj); //Serialise obj with it's offset table.
+            return w.toByteArray();
+        } finally {
+            w.release();
+        }
+    }
 
-                return new DeserialiseResult<>(obj, b); //Return the result.
-            }
+    /**
+     * <p>
+     * Deserialises the whole of an instance of 'cls' serialised in the
+     * indexed layout from 'buff' starting at position 'pos'.</p>
+     *
+     * @param cls  The class type to deserialise.
+     * @param buff The byte[] to deserialise from.
+     * @param pos  The starting position in buff.
+     * @param obj  The Object to deserialise values into, if null a new
+     *             instance of 'cls' will be created.
+     *
+     * @return The deserialised Object and the ByteBuffer used to deserialise
+     *         it.
+     *
+     * @throws java.lang.InstantiationException Thrown if the Class defined by
+     *                                          'cls' does not have a nullary constructor.
+     * @throws java.lang.IllegalAccessException Thrown if the Class 'cls' or
+     *                                          it's nullary constructor cannot
+     *                                          be accessed.
+     * @throws java.lang.ClassCastException     Thrown if 'obj' is not an
+     *                                          instance of 'cls'.
+     */
+    public static DeserialiseResult<?> IndexedFromBytes(Class cls, byte[] buff,
+            int pos, Object obj) throws InstantiationException, IllegalAccessException, ClassCastException {
+        SerialReader r = new SerialReader(buff, pos); //Create a SerialReader around buff starting at pos.
+        return new DeserialiseResult<>(r.readIndexed(cls, obj), r.buffer());
+    }
+
+    /**
+     * <p>
+     * Serialises only the fields of 'obj' which differ from 'base' and
+     * returns the bytes. The fields are marked in a bitmask in the same order
+     * ObjectToBytes serialises them, see SerialWriter.writeDelta.</p>
+     *
+     * @param cls  The class type of 'base' and 'obj'.
+     * @param base A snapshot of the previous state of 'obj'.
+     * @param obj  The current state.
+     *
+     * @return The bytes representing the changes from 'base' to 'obj'.
+     *
+     * @throws java.lang.IllegalAccessException Thrown if 'base' or 'obj' is
+     *                                          not an instance of 'cls'.
+     */
+    public static byte[] DeltaToBytes(Class cls, Object base, Object obj) throws IllegalAccessException {
+        SerialWriter w = SerialWriter.acquire(); //Get a pooled SerialWriter to serialise into.
+        try {
+            w.writeDelta(cls, base, obj); //Serialise the changed fields.
+            return w.toByteArray();
+        } finally {
+            w.release();
+        }
+    }
+
+    /**
+     * <p>
+     * Serialises only the fields of 'obj' which differ from the previous
+     * state serialised by ObjectToBytes in 'base' starting at position 'pos'
+     * and returns the bytes, see SerialWriter.writeDelta.</p>
+     *
+     * @param cls  The class type of the previous state and 'obj'.
+     * @param base The byte[] holding the previous state of 'obj'.
+     * @param pos  The starting position of the previous state in 'base'.
+     * @param obj  The current state.
+     *
+     * @return The bytes representing the changes from the previous state to
+     *         'obj'.
+     *
+     * @throws java.lang.InstantiationException Thrown if a field of the
+     *                                          previous state could not be
+     *                                          read.
+     * @throws java.lang.IllegalAccessException Thrown if the previous state
+     *                                          or 'obj' is not an instance
+     *                                          of 'cls'.
+     */
+    public static byte[] DeltaToBytes(Class cls, byte[] base, int pos,
+            Object obj) throws InstantiationException, IllegalAccessException {
+        SerialWriter w = SerialWriter.acquire(); //Get a pooled SerialWriter to serialise into.
+        try {
+            w.writeDelta(cls, new SerialReader(base, pos), obj); //Serialise the changed fields.
+            return w.toByteArray();
+        } finally {
+            w.release();
         }
     }
 
+    /**
+     * <p>
+     * Applies the delta in 'buff' starting at position 'pos' to 'base'.</p>
+     *
+     * @param cls  The class type of 'base'.
+     * @param buff The byte[] to deserialise from.
+     * @param pos  The starting position in buff.
+     * @param base The previous state the delta is applied to.
+     *
+     * @return 'base' updated to the current state and the ByteBuffer used to
+     *         deserialise it.
+     *
+     * @throws java.lang.InstantiationException Thrown if a changed field
+     *                                          could not be deserialised.
+     * @throws java.lang.IllegalAccessException Thrown if 'base' is not an
+     *                                          instance of 'cls'.
+     */
+    public static DeserialiseResult<?> DeltaFromBytes(Class cls, byte[] buff,
+            int pos, Object base) throws InstantiationException, IllegalAccessException {
+        SerialReader r = new SerialReader(buff, pos); //Create a SerialReader around buff starting at pos.
+        return new DeserialiseResult<>(r.readDelta(cls, base), r.buffer());
+    }
+
     /**
      * This Class is returned as the result for a deserialisation. It
      * contains
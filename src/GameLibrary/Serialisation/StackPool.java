@@ -0,0 +1,56 @@
+package GameLibrary.Serialisation;
+
+import java.util.ArrayDeque;
+
+/**
+ * <p>
+ * An ObjectPool which holds up to a fixed number of released instances,
+ * handing back the most recently released first. A StackPool is safe to
+ * share between threads.</p>
+ *
+ * @author Dynisious
+ * @version 0.0.1
+ * @param <T> The type of the pooled instances.
+ */
+public final class StackPool<T> implements ObjectPool<T> {
+
+    /**
+     * <p>
+     * The released instances.</p>
+     */
+    private final ArrayDeque<T> free = new ArrayDeque<>();
+    /**
+     * <p>
+     * The most instances this pool will hold.</p>
+     */
+    private final int capacity;
+
+    /**
+     * <p>
+     * Creates a new, empty StackPool holding up to 'nCapacity'
+     * instances.</p>
+     *
+     * @param nCapacity The most instances this pool will hold.
+     */
+    public StackPool(int nCapacity) {
+        capacity = nCapacity;
+    }
+
+    @Override
+    public synchronized T acquire() {
+        return free.pollFirst();
+    }
+
+    /**
+     * <p>
+     * Returns 'obj' to this pool, dropping it if the pool is full.</p>
+     *
+     * @param obj The instance to pool.
+     */
+    @Override
+    public synchronized void release(T obj) {
+        if (obj != null && free.size() < capacity) { //Only keep instances while there is room.
+            free.addFirst(obj);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package GameLibrary.Serialisation;
+
+/**
+ * <p>
+ * Serialises a String held as an Object, such as the element of a List, the
+ * same way as a String field.</p>
+ *
+ * @author Dynisious
+ * @version 0.0.1
+ */
+final class StringCodec implements Codec<String> {
+
+    @Override
+    public Class<String> type() {
+        return String.class;
+    }
+
+    @Override
+    public int size(String obj) {
+        return Serialiser.StringSize(obj);
+    }
+
+    @Override
+    public void write(SerialWriter w, String obj) {
+        w.writeString(obj);
+    }
+
+    @Override
+    public String read(SerialReader r, String obj) {
+        return r.readString();
+    }
+}
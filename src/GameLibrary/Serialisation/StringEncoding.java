@@ -0,0 +1,31 @@
+package GameLibrary.Serialisation;
+
+/**
+ * <p>
+ * The ways in which Serialiser can encode Strings. A SerialReader must use
+ * the same StringEncoding as the SerialWriter which wrote the bytes.</p>
+ *
+ * @author Dynisious
+ * @version 0.0.1
+ */
+public enum StringEncoding {
+    /**
+     * <p>
+     * Strings are serialised as an int length followed by every char as 2
+     * bytes. This is the original encoding.</p>
+     */
+    UTF16,
+    /**
+     * <p>
+     * Strings are serialised as a varint length in bytes followed by the
+     * String encoded as UTF-8. ASCII chars take a single byte and are
+     * written without any encoding step.</p>
+     */
+    UTF8,
+    /**
+     * <p>
+     * Strings are serialised as a varint length followed by every char as a
+     * single byte. chars above 0xFF are replaced with '?'.</p>
+     */
+    LATIN1
+}
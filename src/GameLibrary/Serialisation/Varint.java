@@ -0,0 +1,24 @@
+package GameLibrary.Serialisation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <p>
+ * Marks an int or long field which is always serialised as a zigzag encoded
+ * LEB128 varint, regardless of the IntEncoding being used. Suited to fields
+ * which usually hold small values such as health or counts.</p>
+ * <p>
+ * Varint has no effect on fields of other types.</p>
+ *
+ * @author Dynisious
+ * @version 0.0.1
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface Varint {
+}
@@ -0,0 +1,166 @@
+package GameLibrary.Serialisation;
+
+import GameLibrary.GameObjects.BitMap;
+import java.nio.ByteOrder;
+import java.util.BitSet;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * <p>
+ * Round trips random boolean[]'s, BitSets and BitMaps of every length from 0
+ * to 130, so every length up to and past two whole longs is covered, in both
+ * byte orders.</p>
+ *
+ * @author Dynisious
+ * @version 0.0.1
+ */
+public class BitsRoundTripTest {
+
+    private static final int MAX_LENGTH = 130; //The longest bits tested.
+    private static final ByteOrder[] ORDERS = {ByteOrder.BIG_ENDIAN,
+        ByteOrder.LITTLE_ENDIAN};
+
+    /**
+     * <p>
+     * Holds each kind of bits as a field, to round trip through
+     * Serialiser.</p>
+     */
+    public static final class Holder {
+        public BitSet set;
+        public BitMap map;
+        public boolean[] bools;
+    }
+
+    /**
+     * <p>
+     * Returns 'n' random booleans, the same for every test.</p>
+     */
+    private static boolean[] random(int n) {
+        Random random = new Random(n);
+        boolean[] bools = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            bools[i] = random.nextBoolean();
+        }
+        return bools;
+    }
+
+    private static BitSet bitSet(boolean[] bools) {
+        BitSet set = new BitSet();
+        for (int i = 0; i < bools.length; i++) {
+            set.set(i, bools[i]);
+        }
+        return set;
+    }
+
+    private static BitMap bitMap(boolean[] bools) {
+        BitMap map = new BitMap(bools.length);
+        for (int i = 0; i < bools.length; i++) {
+            map.set(i, bools[i]);
+        }
+        return map;
+    }
+
+    @Test
+    public void testBooleans() {
+        for (ByteOrder order : ORDERS) {
+            for (int n = 0; n <= MAX_LENGTH; n++) {
+                String at = order + " length " + n;
+                boolean[] bools = random(n);
+                SerialWriter writer = new SerialWriter();
+                writer.setOrder(order);
+                int size = writer.writeBooleans(bools, 0, n);
+                byte[] bytes = writer.toByteArray();
+                assertEquals(at, Serialiser.BooleanArraySize(n), size);
+                for (int i = 0; i < n; i++) { //The bits are packed least significant bit first after the length.
+                    assertEquals(at + " bit " + i, bools[i], (bytes[4 + i
+                            / Byte.SIZE] >> (i % Byte.SIZE) & 1) != 0);
+                }
+                SerialReader reader = new SerialReader(bytes, 0);
+                reader.setOrder(order);
+                assertArrayEquals(at, bools, reader.readBooleans());
+                assertEquals(at, bytes.length, reader.position());
+            }
+        }
+    }
+
+    @Test
+    public void testBooleanArrayToBytes() {
+        for (int n = 0; n <= MAX_LENGTH; n++) {
+            boolean[] bools = random(n);
+            byte[] bytes = Serialiser.BooleanArrayToBytes(new byte[Serialiser.
+                    BooleanArraySize(n)], 0, 0, n, bools).array();
+            assertArrayEquals("length " + n, bools, Serialiser.
+                    BooleanArrayFromBytes(bytes, 0).val);
+        }
+    }
+
+    @Test
+    public void testBitSet() {
+        for (ByteOrder order : ORDERS) {
+            for (int n = 0; n <= MAX_LENGTH; n++) {
+                String at = order + " length " + n;
+                BitSet set = bitSet(random(n));
+                SerialWriter writer = new SerialWriter();
+                writer.setOrder(order);
+                int size = writer.writeBitSet(set);
+                assertEquals(at, Serialiser.BooleanArraySize(set.length()), size);
+                SerialReader reader = new SerialReader(writer.toByteArray(), 0);
+                reader.setOrder(order);
+                assertEquals(at, set, reader.readBitSet());
+                assertEquals(at, size, reader.position());
+            }
+        }
+    }
+
+    @Test
+    public void testBitMap() {
+        for (ByteOrder order : ORDERS) {
+            for (int n = 0; n <= MAX_LENGTH; n++) {
+                String at = order + " length " + n;
+                BitMap map = bitMap(random(n));
+                SerialWriter writer = new SerialWriter();
+                writer.setOrder(order);
+                int size = writer.writeBitMap(map);
+                assertEquals(at, Serialiser.BooleanArraySize(n), size);
+                SerialReader reader = new SerialReader(writer.toByteArray(), 0);
+                reader.setOrder(order);
+                BitMap read = reader.readBitMap();
+                assertEquals(at, n, read.length());
+                assertArrayEquals(at, map.words(), read.words());
+                assertEquals(at, size, reader.position());
+            }
+        }
+    }
+
+    @Test
+    public void testFields() throws Exception {
+        AccessMode previous = Serialiser.getAccessMode();
+        try {
+            for (AccessMode mode : AccessMode.values()) {
+                Serialiser.setAccessMode(mode);
+                for (int n = 0; n <= MAX_LENGTH; n++) {
+                    String at = mode + " length " + n;
+                    Holder holder = new Holder();
+                    holder.bools = random(n);
+                    holder.set = bitSet(holder.bools);
+                    holder.map = bitMap(holder.bools);
+                    byte[] bytes = Serialiser.ObjectToBytes(Holder.class,
+                            holder);
+                    assertEquals(at, Serialiser.ObjectSize(Holder.class,
+                            holder, true), bytes.length);
+                    Holder copy = (Holder) Serialiser.ObjectFromBytes(
+                            Holder.class, bytes, 0, null, true).val;
+                    assertEquals(at, holder.set, copy.set);
+                    assertEquals(at, n, copy.map.length());
+                    assertArrayEquals(at, holder.map.words(), copy.map.words());
+                    assertArrayEquals(at, holder.bools, copy.bools);
+                }
+            }
+        } finally {
+            Serialiser.setAccessMode(previous);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package GameLibrary.Serialisation;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * <p>
+ * Checks Objects written as a registered subClass of their declared Class
+ * are sized and read back correctly.</p>
+ *
+ * @author Dynisious
+ * @version 0.0.1
+ */
+public class ClassRegistryTest {
+
+    public static class Base {
+        public int a = 1;
+    }
+
+    public static class Sub extends Base {
+        public long b = 2;
+        public String c = "sub";
+    }
+
+    public static class Holder {
+        public Base x = new Sub();
+        public Object y = new Base();
+        public Base[] z = {new Base(), new Sub(), null};
+    }
+
+    @Test
+    public void testObjectSize() throws Exception {
+        ClassRegistry registry = new ClassRegistry();
+        registry.register(Base.class);
+        registry.register(Sub.class);
+        AccessMode mode = Serialiser.getAccessMode();
+        ClassRegistry previous = Serialiser.setRegistry(registry);
+        try {
+            for (AccessMode m : AccessMode.values()) {
+                Serialiser.setAccessMode(m);
+                Holder holder = new Holder();
+                int size = Serialiser.ObjectSize(Holder.class, holder, true);
+                byte[] buff = new byte[size];
+                assertEquals(m.toString(), size, Serialiser.ObjectToBytes(
+                        Holder.class, buff, 0, holder, true).position());
+                Holder copy = (Holder) Serialiser.ObjectFromBytes(Holder.class,
+                        buff, 0, null, true).val;
+                assertEquals(m.toString(), Sub.class, copy.x.getClass());
+                assertEquals(m.toString(), "sub", ((Sub) copy.x).c);
+                assertEquals(m.toString(), Base.class, copy.y.getClass());
+                assertEquals(m.toString(), Sub.class, copy.z[1].getClass());
+            }
+        } finally {
+            Serialiser.setRegistry(previous);
+            Serialiser.setAccessMode(mode);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package GameLibrary.Serialisation;
+
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * <p>
+ * Checks deltas written against a baseline Object and against it's
+ * serialised bytes are the same and bring a copy of the baseline up to the
+ * current state.</p>
+ *
+ * @author Dynisious
+ * @version 0.0.1
+ */
+public class DeltaTest {
+
+    public static class Inner {
+        public float q = 2f;
+        public String tag = "inner";
+    }
+
+    public static class Entity {
+        public int hp = 10;
+        public long id = 7;
+        public double x = 1.5;
+        public boolean alive = true;
+        public String name = "entity";
+        public int[] xs = {1, 2, 3};
+        public Inner inner = new Inner();
+        public Inner spare = null;
+    }
+
+    /**
+     * <p>
+     * Returns the delta from 'base' to 'obj' written against the bytes of
+     * 'base', checking it matches the delta written against 'base'
+     * itself.</p>
+     */
+    private static byte[] delta(Entity base, Entity obj) throws Exception {
+        byte[] baseline = Serialiser.ObjectToBytes(Entity.class, base);
+        byte[] delta = Serialiser.DeltaToBytes(Entity.class, baseline, 0, obj);
+        assertArrayEquals(Serialiser.DeltaToBytes(Entity.class, base, obj),
+                delta);
+        Entity copy = (Entity) Serialiser.ObjectFromBytes(Entity.class,
+                baseline, 0, null, true).val;
+        Serialiser.DeltaFromBytes(Entity.class, delta, 0, copy);
+        assertArrayEquals(Serialiser.ObjectToBytes(Entity.class, obj),
+                Serialiser.ObjectToBytes(Entity.class, copy));
+        return delta;
+    }
+
+    @Test
+    public void testBytesBaseline() throws Exception {
+        AccessMode previous = Serialiser.getAccessMode();
+        try {
+            for (AccessMode mode : AccessMode.values()) {
+                Serialiser.setAccessMode(mode);
+                Entity base = new Entity();
+                Entity obj = new Entity();
+                byte[] unchanged = delta(base, obj);
+                assertTrue(mode.toString(), unchanged.length <= Integer.BYTES
+                        + Byte.BYTES); //Only the bitmask.
+
+                obj.hp = 3;
+                obj.name = "moved";
+                obj.xs = new int[]{1, 2, 4};
+                obj.inner.q = 3.25f;
+                obj.spare = new Inner();
+                byte[] changed = delta(base, obj);
+                assertTrue(mode.toString(), changed.length > unchanged.length);
+
+                base = (Entity) Serialiser.ObjectFromBytes(Entity.class,
+                        Serialiser.ObjectToBytes(Entity.class, obj), 0, null,
+                        true).val; //A deserialised snapshot shares nothing with obj.
+                assertArrayEquals(mode.toString(), unchanged, delta(base, obj));
+            }
+        } finally {
+            Serialiser.setAccessMode(previous);
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testBytesBaselineTracking() throws Exception {
+        Entity base = new Entity();
+        SerialWriter w = new SerialWriter();
+        w.setTracking(true);
+        w.writeDelta(Entity.class, new SerialReader(Serialiser.ObjectToBytes(
+                Entity.class, base), 0), base);
+    }
+}
@@ -0,0 +1,78 @@
+package GameLibrary.Serialisation;
+
+import java.util.Arrays;
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * <p>
+ * Checks the Codecs SerialisableProcessor generates for the Classes below,
+ * while this test is compiled, write the same bytes as Serialiser does
+ * through each AccessMode.</p>
+ *
+ * @author Dynisious
+ * @version 0.0.1
+ */
+public class SerialisableProcessorTest {
+
+    public static class Base {
+        int x = 100;
+        long id = 7;
+    }
+
+    @Serialisable
+    public static class Msg extends Base {
+        static int id = -1; //Hides Base.id without being serialised.
+        int x = 200;
+        String name = "msg";
+        int[] xs = {1, 2, 3};
+    }
+
+    /**
+     * <p>
+     * Returns the bytes Serialiser writes for 'obj' through each AccessMode
+     * without a Codec for 'cls', then restores the generated Codec.</p>
+     */
+    private static <T> byte[][] reflective(Class<T> cls, T obj) throws Exception {
+        AccessMode previous = Serialiser.getAccessMode();
+        Codec<T> codec = Serialiser.setCodec(cls, null);
+        try {
+            byte[][] bytes = new byte[AccessMode.values().length][];
+            for (AccessMode mode : AccessMode.values()) {
+                Serialiser.setAccessMode(mode);
+                bytes[mode.ordinal()] = Serialiser.ObjectToBytes(cls, obj);
+            }
+            return bytes;
+        } finally {
+            Serialiser.setAccessMode(previous);
+            Serialiser.setCodec(cls, codec);
+        }
+    }
+
+    @Test
+    public void testHiddenFields() throws Exception {
+        assertNotNull("No Codec was generated for Msg.", Serialiser.getCodec(
+                Msg.class));
+        Msg msg = new Msg();
+        ((Base) msg).x = 100;
+        msg.x = 200;
+        ((Base) msg).id = 99;
+        byte[] generated = Serialiser.ObjectToBytes(Msg.class, msg);
+        assertEquals(Serialiser.ObjectSize(Msg.class, msg, true),
+                generated.length);
+        for (AccessMode mode : AccessMode.values()) {
+            assertArrayEquals(mode.toString(), reflective(Msg.class, msg)[mode.
+                    ordinal()], generated);
+        }
+
+        Msg copy = (Msg) Serialiser.ObjectFromBytes(Msg.class, generated, 0,
+                null, true).val;
+        assertEquals(200, copy.x);
+        assertEquals(100, ((Base) copy).x);
+        assertEquals(99, ((Base) copy).id);
+        assertEquals(msg.name, copy.name);
+        assertEquals(Arrays.toString(msg.xs), Arrays.toString(copy.xs));
+    }
+}